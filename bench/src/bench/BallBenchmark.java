@@ -0,0 +1,108 @@
+package bench;
+
+// 322613720 Stav Reuven
+
+import arkanoid.GameEnvironment;
+import arkanoid.SpriteCollection;
+import geometry.Ball;
+import geometry.Block;
+import geometry.BlockField;
+import geometry.Point;
+import geometry.Rectangle;
+import geometry.Velocity;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.awt.Color;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks moving balls in a closed box around the brick wall of the game. The bricks are light
+ * gray, which balls never destroy, so the scene stays the same however long the benchmark runs.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BallBenchmark {
+    /**
+     * The number of balls in the sprite collection.
+     */
+    @Param({"1", "100", "1000"})
+    private int balls;
+
+    private Ball ball;
+    private SpriteCollection sprites;
+
+    /**
+     * Builds the box, the wall and the balls.
+     */
+    @Setup
+    public void setUp() {
+        GameEnvironment environment = new GameEnvironment();
+        this.sprites = new SpriteCollection();
+        Block[] walls = {
+            new Block(new Rectangle(0, 0, 20, 600), Color.lightGray),
+            new Block(new Rectangle(0, 0, 800, 20), Color.lightGray),
+            new Block(new Rectangle(780, 0, 20, 600), Color.lightGray),
+            new Block(new Rectangle(0, 580, 800, 20), Color.lightGray)
+        };
+        for (Block wall : walls) {
+            environment.addCollidable(wall);
+            this.sprites.addSprite(wall);
+        }
+        BlockField field = new BlockField(169, 100, 51, 20, 12, 6);
+        for (int row = 0; row < 6; row++) {
+            for (int col = 0; col < 12; col++) {
+                field.setCell(col, row, Color.lightGray);
+            }
+        }
+        environment.addCollidable(field);
+        this.sprites.addSprite(field);
+
+        SplittableRandom random = new SplittableRandom(1);
+        for (int i = 0; i < this.balls; i++) {
+            Ball b = new Ball(3, new Point(40 + random.nextInt(700), 260 + random.nextInt(300)),
+                    Color.BLACK, environment);
+            b.setVelocity(Velocity.fromAngleAndSpeed(random.nextInt(360), 4));
+            this.sprites.addSprite(b);
+            if (i == 0) {
+                this.ball = b;
+            }
+        }
+    }
+
+    /**
+     * Moves a single ball one step.
+     *
+     * @return the ball
+     */
+    @Benchmark
+    public Ball moveOneStep() {
+        this.ball.moveOneStep();
+        return this.ball;
+    }
+
+    /**
+     * Advances every sprite by one frame.
+     *
+     * @return the sprite collection
+     */
+    @Benchmark
+    public SpriteCollection notifyAllTimePassed() {
+        this.sprites.notifyAllTimePassed();
+        return this.sprites;
+    }
+}
@@ -0,0 +1,89 @@
+package bench;
+
+// 322613720 Stav Reuven
+
+import arkanoid.CollisionIndexType;
+import arkanoid.GameEnvironment;
+import geometry.Block;
+import geometry.CollisionInfo;
+import geometry.Rectangle;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.awt.Color;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks GameEnvironment.getClosestCollision against a growing number of small blocks
+ * scattered over the 800x600 playing area, kept in either collision index. Each call sweeps the
+ * next of a fixed set of seeded ball motions, so the branch predictor cannot learn a single query.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CollisionBenchmark {
+    private static final int QUERIES = 1024;
+
+    /**
+     * The number of collidables in the environment.
+     */
+    @Param({"10", "100", "1000", "10000"})
+    private int collidables;
+
+    /**
+     * The collision index the environment keeps the collidables in.
+     */
+    @Param({"UNIFORM_GRID", "AABB_TREE"})
+    private CollisionIndexType index;
+
+    private GameEnvironment environment;
+    private double[] motions;
+    private int next;
+
+    /**
+     * Fills the environment and draws the motions to query.
+     */
+    @Setup
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(1);
+        this.environment = new GameEnvironment(this.index);
+        for (int i = 0; i < this.collidables; i++) {
+            this.environment.addCollidable(new Block(new Rectangle(20 + random.nextDouble(750),
+                    20 + random.nextDouble(550), 6, 4), Color.BLUE));
+        }
+        this.motions = new double[QUERIES * 4];
+        for (int i = 0; i < QUERIES; i++) {
+            double angle = random.nextDouble(2 * Math.PI);
+            this.motions[4 * i] = 20 + random.nextDouble(760);
+            this.motions[4 * i + 1] = 20 + random.nextDouble(560);
+            this.motions[4 * i + 2] = 8 * Math.cos(angle);
+            this.motions[4 * i + 3] = 8 * Math.sin(angle);
+        }
+    }
+
+    /**
+     * Sweeps a ball of radius 3 along the next motion.
+     *
+     * @return the closest collision, or null
+     */
+    @Benchmark
+    public CollisionInfo getClosestCollision() {
+        int i = 4 * this.next;
+        this.next = (this.next + 1) & (QUERIES - 1);
+        return this.environment.getClosestCollision(this.motions[i], this.motions[i + 1],
+                this.motions[i + 2], this.motions[i + 3], 3);
+    }
+}
@@ -0,0 +1,141 @@
+package bench;
+
+// 322613720 Stav Reuven
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * The CompareResults class compares a JMH run, written with "-rf csv", against a baseline written
+ * the same way. For every benchmark and parameter combination it prints the time per operation and
+ * the bytes allocated per operation (from "-prof gc") of both runs, and it fails if either grew by
+ * more than the allowed margin. It also fails if there is no baseline, or if the baseline has no
+ * row for a result of the run. Other secondary results of the profilers are ignored.
+ */
+public final class CompareResults {
+    private static final double DEFAULT_MARGIN_PERCENT = 10;
+    private static final String ALLOCATION = ":gc.alloc.rate.norm";
+    private static final double ALLOCATION_SLACK_BYTES = 1;
+
+    private CompareResults() {
+    }
+
+    /**
+     * Compares the results and exits with status 1 if anything regressed.
+     *
+     * @param args the baseline CSV file, the current CSV file, and optionally the margin in percent
+     * @throws IOException if a file cannot be read
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.out.println("usage: CompareResults <baseline.csv> <results.csv> [margin-percent]");
+            System.exit(2);
+        }
+        Path baselineFile = Paths.get(args[0]);
+        if (!Files.exists(baselineFile)) {
+            System.out.println("No baseline at " + baselineFile + "; record one with \"ant bench-baseline\"");
+            System.exit(1);
+        }
+        double margin = args.length > 2 ? Double.parseDouble(args[2]) : DEFAULT_MARGIN_PERCENT;
+        Map<String, String[]> baseline = read(baselineFile);
+        Map<String, String[]> current = read(Paths.get(args[1]));
+
+        int regressions = 0;
+        int missing = 0;
+        for (Map.Entry<String, String[]> entry : current.entrySet()) {
+            String[] now = entry.getValue();
+            String[] before = baseline.get(entry.getKey());
+            double score = Double.parseDouble(now[4]);
+            if (before == null) {
+                missing++;
+                System.out.printf(Locale.ROOT, "NEW        %-70s %12.2f %s%n", entry.getKey(), score, now[6]);
+                continue;
+            }
+            double old = Double.parseDouble(before[4]);
+            double change = old == 0 ? (score == 0 ? 0 : Double.POSITIVE_INFINITY) : (score - old) / old * 100;
+            boolean allocation = now[0].endsWith(ALLOCATION);
+            boolean regressed = change > margin && (!allocation || score - old >= ALLOCATION_SLACK_BYTES);
+            if (regressed) {
+                regressions++;
+            }
+            System.out.printf(Locale.ROOT, "%-10s %-70s %12.2f -> %12.2f %s (%+.1f%%)%n",
+                    regressed ? "REGRESSED" : "ok", entry.getKey(), old, score, now[6], change);
+        }
+        if (missing > 0) {
+            System.out.println(missing + " result(s) have no baseline; record one with \"ant bench-baseline\"");
+        }
+        if (regressions > 0) {
+            System.out.println(regressions + " result(s) regressed by more than " + margin + "%");
+        }
+        if (missing > 0 || regressions > 0) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Reads the time and allocation rows of a JMH CSV file, keyed by benchmark and parameters.
+     *
+     * @param file the file to read
+     * @return the rows, each split into its columns
+     * @throws IOException if the file cannot be read
+     */
+    private static Map<String, String[]> read(Path file) throws IOException {
+        Map<String, String[]> rows = new LinkedHashMap<>();
+        List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        if (lines.isEmpty()) {
+            return rows;
+        }
+        String[] header = split(lines.get(0));
+        for (String line : lines.subList(1, lines.size())) {
+            String[] columns = split(line);
+            if (columns.length < 7) {
+                continue;
+            }
+            boolean primary = !columns[0].contains(":");
+            if (!primary && !columns[0].endsWith(ALLOCATION)) {
+                continue;
+            }
+            StringBuilder key = new StringBuilder(columns[0]);
+            for (int i = 7; i < columns.length && i < header.length; i++) {
+                if (!columns[i].isEmpty()) {
+                    key.append(' ').append(header[i].replace("Param: ", "")).append('=').append(columns[i]);
+                }
+            }
+            rows.put(key.toString(), columns);
+        }
+        return rows;
+    }
+
+    /**
+     * Splits a CSV line into its columns, removing the quotes around quoted columns.
+     *
+     * @param line the line to split
+     * @return the columns
+     */
+    private static String[] split(String line) {
+        List<String> columns = new ArrayList<>();
+        StringBuilder column = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == '"') {
+                quoted = !quoted;
+            } else if (c == ',' && !quoted) {
+                columns.add(column.toString());
+                column.setLength(0);
+            } else {
+                column.append(c);
+            }
+        }
+        columns.add(column.toString());
+        return columns.toArray(new String[0]);
+    }
+}
@@ -0,0 +1,78 @@
+package bench;
+
+// 322613720 Stav Reuven
+
+import geometry.Line;
+import geometry.Point;
+import geometry.Rectangle;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the object-based geometry: intersecting two lines and intersecting a line with
+ * the edges of a rectangle. Both allocate their results, which shows in the gc profiler.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class GeometryBenchmark {
+    private Line line;
+    private Line crossing;
+    private Line parallel;
+    private Rectangle rectangle;
+
+    /**
+     * Builds the shapes.
+     */
+    @Setup
+    public void setUp() {
+        this.line = new Line(new Point(0, 0), new Point(100, 100));
+        this.crossing = new Line(new Point(0, 100), new Point(100, 0));
+        this.parallel = new Line(new Point(0, 10), new Point(100, 110));
+        this.rectangle = new Rectangle(new Point(30, 20), 40, 50);
+    }
+
+    /**
+     * Intersects two crossing lines.
+     *
+     * @return the intersection point
+     */
+    @Benchmark
+    public Point lineIntersectionWith() {
+        return this.line.intersectionWith(this.crossing);
+    }
+
+    /**
+     * Intersects two parallel lines, which do not meet.
+     *
+     * @return null
+     */
+    @Benchmark
+    public Point lineIntersectionWithParallel() {
+        return this.line.intersectionWith(this.parallel);
+    }
+
+    /**
+     * Intersects a line with the edges of a rectangle it crosses.
+     *
+     * @return the intersection points
+     */
+    @Benchmark
+    public List<Point> rectangleIntersectionPoints() {
+        return this.rectangle.intersectionPoints(this.line);
+    }
+}
@@ -0,0 +1,91 @@
+package bench;
+
+// 322613720 Stav Reuven
+
+import arkanoid.GameEnvironment;
+import geometry.Ball;
+import geometry.Block;
+import geometry.CollisionInfo;
+import geometry.Point;
+import geometry.Rectangle;
+import geometry.Velocity;
+import listener.HitListener;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.awt.Color;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks Block.hit with a growing number of hit listeners, each of which only hands the
+ * event to a Blackhole, so the cost measured is that of the dispatch itself.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class HitBenchmark {
+    /**
+     * The number of listeners registered on the block.
+     */
+    @Param({"0", "1", "10", "100"})
+    private int listeners;
+
+    private Block block;
+    private Ball ball;
+    private CollisionInfo collision;
+    private Velocity velocity;
+
+    /**
+     * Builds the block, its listeners and the ball hitting it.
+     *
+     * @param blackhole the sink the listeners hand their events to
+     */
+    @Setup
+    public void setUp(Blackhole blackhole) {
+        this.block = new Block(new Rectangle(100, 100, 50, 20), Color.BLUE);
+        for (int i = 0; i < this.listeners; i++) {
+            this.block.addHitListener(new SinkListener(blackhole));
+        }
+        this.ball = new Ball(3, new Point(120, 97), Color.BLACK, new GameEnvironment());
+        this.collision = new CollisionInfo(new Point(120, 100), this.block, 0.5, 0, -1);
+        this.velocity = new Velocity(1, 2);
+    }
+
+    /**
+     * Hits the block from above with a ball of another color, so the listeners are notified.
+     *
+     * @return the velocity after the bounce
+     */
+    @Benchmark
+    public Velocity hit() {
+        // A hit paints the ball in the color of the block, which would silence the next hit
+        this.ball.setColor(Color.BLACK);
+        return this.block.hit(this.ball, this.collision, this.velocity);
+    }
+
+    private static final class SinkListener implements HitListener {
+        private final Blackhole blackhole;
+
+        SinkListener(Blackhole blackhole) {
+            this.blackhole = blackhole;
+        }
+
+        @Override
+        public void hitEvent(Block beingHit, Ball hitter) {
+            this.blackhole.consume(beingHit);
+        }
+    }
+}
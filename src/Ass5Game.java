@@ -1,20 +1,153 @@
 // 322613720 Stav Reuven
 
+import arkanoid.CollisionIndexType;
 import arkanoid.Game;
+import arkanoid.GuiScreen;
+import arkanoid.InputSource;
+import arkanoid.KeyboardInput;
+import arkanoid.PhysicsMode;
+import arkanoid.Screen;
+import biuoop.GUI;
+import level.GameSession;
+import level.LevelLibrary;
+import replay.InputRecorder;
+import replay.JournalWriter;
+import replay.ReplayDriver;
+import snapshot.SnapshotRing;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
 
 /**
  * The Ass5Game class is the main class that starts the Arkanoid game.
  * It initializes the game and runs the game loop.
  */
 public class Ass5Game {
+    private static final long PROFILE_DUMP_FRAMES = 600;
+    private static final int REWIND_FRAMES = 10 * 60;
+    private static final int KEYFRAME_INTERVAL = 60;
+
     /**
      * The main method creates a new Game object, initializes it, and starts the game loop.
+     * With the argument "headless", the game is simulated without a window and with an idle paddle
+     * as fast as possible, and the outcome and simulated frames per second are printed.
+     * With the argument "pipelined", the game simulates and renders on two separate threads.
+     * With the argument "profile", the phases of every frame are timed, written to profile.csv every
+     * 600 frames, and the timings of the last frames are printed when the game ends.
+     * With the argument "record", the input of every physics step is recorded to replay.journal,
+     * which replay.ReplayDriver plays back in the physics mode it was recorded in. A journal is
+     * replayed over the default collision index, so a game over another one is not recorded.
+     * With the argument "level=ID", the level levels/ID.level is played instead of the built-in one.
+     * With the argument "mode=MODE", the balls are advanced in that PhysicsMode instead of STEPPED.
+     * With the argument "index=AABB_TREE", the collidables are kept in an AabbTree instead of the
+     * default UNIFORM_GRID.
+     * With the argument "session", the levels in levels/ are played in order in the same window, each
+     * loaded in the background while the one before it plays, until one is lost.
+     * In a window, holding R rewinds the last ten seconds of the game, and if the game crashes, the
+     * state after its last complete step is written to crash.snapshot.
      *
-     * @param args command-line arguments (not used)
+     * @param args command-line arguments, optionally "headless" or "pipelined", "profile", "record" and
+     *             "level=ID" or "session", "mode=MODE" and "index=TYPE"
+     * @throws IOException if the level cannot be loaded or the journal cannot be written
+     * @throws IllegalArgumentException if a game over another collision index than the default is to be recorded
      */
-    public static void main(String[] args) {
-        Game game = new Game();
-        game.initialize();
-        game.run();
+    public static void main(String[] args) throws IOException {
+        List<String> options = Arrays.asList(args);
+        int levelId = LevelLibrary.BUILT_IN_LEVEL;
+        PhysicsMode mode = PhysicsMode.STEPPED;
+        CollisionIndexType index = CollisionIndexType.UNIFORM_GRID;
+        for (String option : options) {
+            if (option.startsWith("level=")) {
+                levelId = Integer.parseInt(option.substring("level=".length()));
+            } else if (option.startsWith("mode=")) {
+                mode = PhysicsMode.valueOf(option.substring("mode=".length()));
+            } else if (option.startsWith("index=")) {
+                index = CollisionIndexType.valueOf(option.substring("index=".length()));
+            }
+        }
+        if (options.contains("record") && index != CollisionIndexType.UNIFORM_GRID) {
+            throw new IllegalArgumentException("cannot record a game over the " + index + " index: journals are"
+                    + " replayed over the default " + CollisionIndexType.UNIFORM_GRID + " index");
+        }
+        LevelLibrary library = LevelLibrary.standard();
+        Screen screen = null;
+        InputSource input;
+        if (options.contains("headless")) {
+            input = new InputSource() {
+                @Override
+                public boolean isLeftPressed() {
+                    return false;
+                }
+
+                @Override
+                public boolean isRightPressed() {
+                    return false;
+                }
+            };
+        } else {
+            GUI gui = new GUI("Arkanoid", 800, 600);
+            screen = new GuiScreen(gui);
+            input = new KeyboardInput(gui.getKeyboardSensor());
+        }
+        if (options.contains("session")) {
+            GameSession session = new GameSession(screen, input, library, library.getLevelIds());
+            session.setPipelined(options.contains("pipelined"));
+            session.setPhysicsMode(mode);
+            session.setCollisionIndex(index);
+            int cleared = session.run();
+            System.out.println("Levels cleared: " + cleared + ", score: " + session.getScore());
+            return;
+        }
+        SnapshotRing rewind = null;
+        if (screen != null) {
+            rewind = new SnapshotRing(REWIND_FRAMES, KEYFRAME_INTERVAL);
+        }
+        JournalWriter journal = null;
+        InputRecorder recorder = null;
+        if (options.contains("record")) {
+            journal = new JournalWriter(Paths.get("replay.journal"), 0, levelId, mode,
+                    ReplayDriver.levelHash(levelId, mode), rewind);
+            recorder = new InputRecorder(input, journal);
+            input = recorder;
+        }
+        Game game = new Game(screen, input);
+        game.setPhysicsMode(mode);
+        game.setPipelined(options.contains("pipelined"));
+        game.setCollisionIndex(index);
+        if (recorder != null) {
+            game.addStepListener(recorder);
+        }
+        if (options.contains("profile")) {
+            game.getProfiler().setEnabled(true);
+            game.getProfiler().dumpTo(Paths.get("profile.csv"), PROFILE_DUMP_FRAMES);
+        }
+        if (rewind != null) {
+            game.setRewindBuffer(rewind);
+        }
+        library.setUp(game, levelId);
+        try {
+            if (screen == null) {
+                System.out.println(game.runHeadless(Long.MAX_VALUE));
+            } else {
+                game.run();
+            }
+        } catch (RuntimeException e) {
+            if (rewind != null && rewind.size() > 0) {
+                Path dump = Paths.get("crash.snapshot");
+                rewind.writeLatest(dump);
+                System.err.println("Crash snapshot written to " + dump.toAbsolutePath());
+            }
+            throw e;
+        } finally {
+            if (journal != null) {
+                journal.close();
+            }
+        }
+        if (options.contains("profile")) {
+            System.out.print(game.getProfiler().snapshot());
+        }
     }
 }
@@ -0,0 +1,343 @@
+package arkanoid;
+
+// 322613720 Stav Reuven
+
+import geometry.Collidable;
+import geometry.Rectangle;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * The AabbTree class is a dynamic bounding volume hierarchy over collidables.
+ * Every leaf stores a "fat" axis-aligned box, enlarged by a margin around the collision
+ * rectangle, so a collidable that moves a little stays inside its box and needs no work.
+ * Only when it leaves its fat box is its leaf removed and re-inserted, and the tree is kept
+ * balanced by rotations, so queries and updates stay O(log n) while many collidables move.
+ * A trajectory query descends into the nearer child first and skips every subtree whose box
+ * is entered after the closest hit found so far.
+ */
+public class AabbTree implements CollisionIndex {
+    private static final double DEFAULT_MARGIN = 10;
+
+    private final double margin;
+    private final Map<Collidable, Node> leaves;
+    private Node root;
+
+    /**
+     * Constructs an empty tree with the default fat box margin.
+     */
+    public AabbTree() {
+        this(DEFAULT_MARGIN);
+    }
+
+    /**
+     * Constructs an empty tree.
+     *
+     * @param margin the distance by which leaf boxes are enlarged around collision rectangles
+     */
+    public AabbTree(double margin) {
+        this.margin = margin;
+        this.leaves = new IdentityHashMap<>();
+    }
+
+    @Override
+    public void add(Collidable c) {
+        Node leaf = new Node();
+        leaf.collidable = c;
+        fatten(leaf, c.getCollisionRectangle());
+        this.leaves.put(c, leaf);
+        insertLeaf(leaf);
+    }
+
+    @Override
+    public void remove(Collidable c) {
+        Node leaf = this.leaves.remove(c);
+        if (leaf != null) {
+            removeLeaf(leaf);
+        }
+    }
+
+    @Override
+    public void clear() {
+        this.leaves.clear();
+        this.root = null;
+    }
+
+    @Override
+    public void update(Collidable c) {
+        Node leaf = this.leaves.get(c);
+        if (leaf == null) {
+            return;
+        }
+        Rectangle rect = c.getCollisionRectangle();
+        if (rect.getMinX() >= leaf.minX && rect.getMinY() >= leaf.minY
+                && rect.getMaxX() <= leaf.maxX && rect.getMaxY() <= leaf.maxY) {
+            // Still inside its fat box
+            return;
+        }
+        removeLeaf(leaf);
+        fatten(leaf, rect);
+        insertLeaf(leaf);
+    }
+
+    @Override
+    public void query(CollisionQuery query) {
+        if (this.root != null) {
+            query(this.root, entryTime(this.root, query), query);
+        }
+    }
+
+    /**
+     * Returns the height of the tree, zero for a single leaf and -1 for an empty tree.
+     *
+     * @return the height of the tree
+     */
+    public int height() {
+        return this.root == null ? -1 : this.root.height;
+    }
+
+    private static void query(Node node, double entry, CollisionQuery query) {
+        if (entry > 1 || entry > query.time()) {
+            return;
+        }
+        if (node.isLeaf()) {
+            query.test(node.collidable);
+            return;
+        }
+        double leftEntry = entryTime(node.left, query);
+        double rightEntry = entryTime(node.right, query);
+        if (leftEntry <= rightEntry) {
+            query(node.left, leftEntry, query);
+            query(node.right, rightEntry, query);
+        } else {
+            query(node.right, rightEntry, query);
+            query(node.left, leftEntry, query);
+        }
+    }
+
+    /**
+     * Returns the parametric time at which a swept circle enters the box of a node,
+     * using the slab method on the box grown by the radius.
+     *
+     * @param node  the node whose box is tested
+     * @param query the query holding the motion of the circle
+     * @return the entry time, zero if the circle starts inside the box,
+     *         or Double.MAX_VALUE if the circle misses the box
+     */
+    private static double entryTime(Node node, CollisionQuery query) {
+        double x0 = query.startX();
+        double y0 = query.startY();
+        double dx = query.deltaX();
+        double dy = query.deltaY();
+        double radius = query.radius();
+        double minX = node.minX - radius;
+        double minY = node.minY - radius;
+        double maxX = node.maxX + radius;
+        double maxY = node.maxY + radius;
+        double enter = 0;
+        double exit = 1;
+        if (dx == 0) {
+            if (x0 < minX || x0 > maxX) {
+                return Double.MAX_VALUE;
+            }
+        } else {
+            double t1 = (minX - x0) / dx;
+            double t2 = (maxX - x0) / dx;
+            enter = Math.max(enter, Math.min(t1, t2));
+            exit = Math.min(exit, Math.max(t1, t2));
+        }
+        if (dy == 0) {
+            if (y0 < minY || y0 > maxY) {
+                return Double.MAX_VALUE;
+            }
+        } else {
+            double t1 = (minY - y0) / dy;
+            double t2 = (maxY - y0) / dy;
+            enter = Math.max(enter, Math.min(t1, t2));
+            exit = Math.min(exit, Math.max(t1, t2));
+        }
+        return enter <= exit ? enter : Double.MAX_VALUE;
+    }
+
+    private void fatten(Node leaf, Rectangle rect) {
+        leaf.minX = rect.getMinX() - this.margin;
+        leaf.minY = rect.getMinY() - this.margin;
+        leaf.maxX = rect.getMaxX() + this.margin;
+        leaf.maxY = rect.getMaxY() + this.margin;
+    }
+
+    private void insertLeaf(Node leaf) {
+        if (this.root == null) {
+            this.root = leaf;
+            leaf.parent = null;
+            return;
+        }
+
+        // Find the best sibling, descending towards the child whose box grows the least
+        Node sibling = this.root;
+        while (!sibling.isLeaf()) {
+            double area = sibling.perimeter();
+            double combinedArea = Node.combinedPerimeter(sibling, leaf);
+            double cost = 2 * combinedArea;
+            double inheritanceCost = 2 * (combinedArea - area);
+            double leftCost = descendCost(sibling.left, leaf) + inheritanceCost;
+            double rightCost = descendCost(sibling.right, leaf) + inheritanceCost;
+            if (cost < leftCost && cost < rightCost) {
+                break;
+            }
+            sibling = leftCost < rightCost ? sibling.left : sibling.right;
+        }
+
+        // Create a new parent holding the sibling and the leaf
+        Node oldParent = sibling.parent;
+        Node newParent = new Node();
+        newParent.parent = oldParent;
+        newParent.left = sibling;
+        newParent.right = leaf;
+        sibling.parent = newParent;
+        leaf.parent = newParent;
+        newParent.refit();
+        if (oldParent == null) {
+            this.root = newParent;
+        } else if (oldParent.left == sibling) {
+            oldParent.left = newParent;
+        } else {
+            oldParent.right = newParent;
+        }
+
+        refitAncestors(newParent.parent);
+    }
+
+    private static double descendCost(Node child, Node leaf) {
+        double combined = Node.combinedPerimeter(child, leaf);
+        return child.isLeaf() ? combined : combined - child.perimeter();
+    }
+
+    private void removeLeaf(Node leaf) {
+        if (leaf == this.root) {
+            this.root = null;
+            return;
+        }
+        Node parent = leaf.parent;
+        Node grandParent = parent.parent;
+        Node sibling = parent.left == leaf ? parent.right : parent.left;
+        if (grandParent == null) {
+            this.root = sibling;
+            sibling.parent = null;
+        } else {
+            if (grandParent.left == parent) {
+                grandParent.left = sibling;
+            } else {
+                grandParent.right = sibling;
+            }
+            sibling.parent = grandParent;
+            refitAncestors(grandParent);
+        }
+        leaf.parent = null;
+    }
+
+    private void refitAncestors(Node node) {
+        while (node != null) {
+            node = balance(node);
+            node.refit();
+            node = node.parent;
+        }
+    }
+
+    /**
+     * Performs a left or right rotation if the subtree rooted at the given node is unbalanced.
+     *
+     * @param a the root of the subtree
+     * @return the new root of the subtree
+     */
+    private Node balance(Node a) {
+        if (a.isLeaf() || a.height < 2) {
+            return a;
+        }
+        Node b = a.left;
+        Node c = a.right;
+        int difference = c.height - b.height;
+        if (difference > 1) {
+            return rotate(a, c);
+        }
+        if (difference < -1) {
+            return rotate(a, b);
+        }
+        return a;
+    }
+
+    /**
+     * Promotes the taller child of a node, moving the node down next to its grandchildren.
+     *
+     * @param a    the unbalanced node
+     * @param tall the taller child of a, promoted in its place
+     * @return the promoted node
+     */
+    private Node rotate(Node a, Node tall) {
+        Node f = tall.left;
+        Node g = tall.right;
+
+        // Swap a and tall
+        tall.left = a;
+        tall.parent = a.parent;
+        a.parent = tall;
+        if (tall.parent == null) {
+            this.root = tall;
+        } else if (tall.parent.left == a) {
+            tall.parent.left = tall;
+        } else {
+            tall.parent.right = tall;
+        }
+
+        // Keep the taller grandchild under tall and hand the other one down to a
+        Node keep = f.height > g.height ? f : g;
+        Node give = keep == f ? g : f;
+        tall.right = keep;
+        if (a.left == tall) {
+            a.left = give;
+        } else {
+            a.right = give;
+        }
+        give.parent = a;
+        a.refit();
+        tall.refit();
+        return tall;
+    }
+
+    /**
+     * A node of the tree. Leaves hold a collidable, internal nodes hold two children.
+     */
+    private static class Node {
+        private double minX;
+        private double minY;
+        private double maxX;
+        private double maxY;
+        private Node parent;
+        private Node left;
+        private Node right;
+        private Collidable collidable;
+        private int height;
+
+        boolean isLeaf() {
+            return this.left == null;
+        }
+
+        double perimeter() {
+            return 2 * ((this.maxX - this.minX) + (this.maxY - this.minY));
+        }
+
+        void refit() {
+            this.minX = Math.min(this.left.minX, this.right.minX);
+            this.minY = Math.min(this.left.minY, this.right.minY);
+            this.maxX = Math.max(this.left.maxX, this.right.maxX);
+            this.maxY = Math.max(this.left.maxY, this.right.maxY);
+            this.height = 1 + Math.max(this.left.height, this.right.height);
+        }
+
+        static double combinedPerimeter(Node a, Node b) {
+            return 2 * ((Math.max(a.maxX, b.maxX) - Math.min(a.minX, b.minX))
+                    + (Math.max(a.maxY, b.maxY) - Math.min(a.minY, b.minY)));
+        }
+    }
+}
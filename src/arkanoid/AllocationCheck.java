@@ -0,0 +1,110 @@
+package arkanoid;
+
+// 322613720 Stav Reuven
+
+import geometry.Ball;
+import geometry.Block;
+import geometry.BlockField;
+import geometry.Point;
+import geometry.Rectangle;
+import geometry.Velocity;
+
+import java.awt.Color;
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+
+/**
+ * The AllocationCheck class runs the simulation of a game without a window and measures the bytes
+ * allocated by the game thread on every frame, once the JIT has warmed up.
+ * A frame in which no ball bounces must not allocate at all; a bounce still allocates the
+ * CollisionInfo and the new Velocity that Collidable.hit() works with, which is reported per bounce.
+ * Run it with "ant alloc-check"; it exits with status 1 if a quiet frame allocated.
+ */
+public final class AllocationCheck {
+    private static final int BALLS = 20;
+    private static final int WARMUP_FRAMES = 20000;
+    private static final int MEASURED_FRAMES = 5000;
+
+    private AllocationCheck() {
+    }
+
+    /**
+     * Runs the check and prints the allocation per quiet frame and per bounce.
+     *
+     * @param args command-line arguments (not used)
+     */
+    public static void main(String[] args) {
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        GameEnvironment environment = new GameEnvironment();
+        SpriteCollection sprites = new SpriteCollection();
+        Block[] walls = {
+            new Block(new Rectangle(0, 0, 20, 600), Color.lightGray),
+            new Block(new Rectangle(0, 0, 800, 20), Color.lightGray),
+            new Block(new Rectangle(780, 0, 20, 600), Color.lightGray),
+            new Block(new Rectangle(0, 580, 800, 20), Color.lightGray)
+        };
+        for (Block wall : walls) {
+            environment.addCollidable(wall);
+            sprites.addSprite(wall);
+        }
+        BlockField field = new BlockField(169, 100, 51, 20, 12, 6);
+        for (int row = 0; row < 6; row++) {
+            for (int col = 0; col < 12; col++) {
+                field.setCell(col, row, Color.lightGray);
+            }
+        }
+        environment.addCollidable(field);
+        sprites.addSprite(field);
+
+        Random random = new Random(1);
+        Ball[] balls = new Ball[BALLS];
+        Velocity[] velocities = new Velocity[BALLS];
+        for (int i = 0; i < BALLS; i++) {
+            balls[i] = new Ball(3, new Point(40 + random.nextInt(700), 260 + random.nextInt(300)),
+                    Color.BLACK, environment);
+            balls[i].setVelocity(Velocity.fromAngleAndSpeed(random.nextInt(360), 2));
+            sprites.addSprite(balls[i]);
+        }
+
+        for (int frame = 0; frame < WARMUP_FRAMES; frame++) {
+            sprites.notifyAllTimePassed();
+        }
+
+        long quietFrames = 0;
+        long quietBytes = 0;
+        long bounces = 0;
+        long bounceBytes = 0;
+        for (int frame = 0; frame < MEASURED_FRAMES; frame++) {
+            for (int i = 0; i < BALLS; i++) {
+                velocities[i] = balls[i].getVelocity();
+            }
+            long before = threads.getCurrentThreadAllocatedBytes();
+            sprites.notifyAllTimePassed();
+            long allocated = threads.getCurrentThreadAllocatedBytes() - before;
+            // A bounce always replaces the velocity object of the ball
+            int frameBounces = 0;
+            for (int i = 0; i < BALLS; i++) {
+                if (balls[i].getVelocity() != velocities[i]) {
+                    frameBounces++;
+                }
+            }
+            if (frameBounces == 0) {
+                quietFrames++;
+                quietBytes += allocated;
+            } else {
+                bounces += frameBounces;
+                bounceBytes += allocated;
+            }
+        }
+
+        System.out.println("quiet frames: " + quietFrames + ", bytes allocated: " + quietBytes);
+        System.out.println("bounces: " + bounces + ", bytes per bounce: "
+                + (bounces == 0 ? 0 : bounceBytes / bounces));
+        if (quietBytes != 0) {
+            System.out.println("FAILED: frames without bounces allocated memory");
+            System.exit(1);
+        }
+        System.out.println("OK: frames without bounces allocate nothing");
+    }
+}
@@ -0,0 +1,46 @@
+package arkanoid;
+
+// 322613720 Stav Reuven
+
+import geometry.Collidable;
+
+/**
+ * The CollisionIndex interface represents a spatial index of collidables that the
+ * GameEnvironment uses to answer trajectory queries without testing every collidable.
+ */
+public interface CollisionIndex {
+    /**
+     * Adds a collidable to the index.
+     *
+     * @param c the collidable to add
+     */
+    void add(Collidable c);
+
+    /**
+     * Removes a collidable from the index.
+     *
+     * @param c the collidable to remove
+     */
+    void remove(Collidable c);
+
+    /**
+     * Refreshes the entry of a collidable whose collision rectangle may have changed.
+     *
+     * @param c the collidable that moved
+     */
+    void update(Collidable c);
+
+    /**
+     * Removes every collidable from the index, keeping the storage it allocated for reuse.
+     */
+    void clear();
+
+    /**
+     * Answers a swept-circle query: tests the query against the indexed collidables that the
+     * circle may hit, so the query ends up holding the first impact.
+     * The index must not keep any per-query state, so that queries may run concurrently.
+     *
+     * @param query the query to answer, already reset to the motion to test
+     */
+    void query(CollisionQuery query);
+}
@@ -0,0 +1,20 @@
+package arkanoid;
+
+// 322613720 Stav Reuven
+
+/**
+ * The CollisionIndexType enum lists the spatial indexes a GameEnvironment can keep its
+ * collidables in.
+ */
+public enum CollisionIndexType {
+    /**
+     * A UniformGrid over the playing area, for balls up to GameEnvironment.MAX_BALL_RADIUS.
+     * The default.
+     */
+    UNIFORM_GRID,
+
+    /**
+     * An AabbTree, for levels with many moving collidables.
+     */
+    AABB_TREE
+}
@@ -0,0 +1,115 @@
+package arkanoid;
+
+// 322613720 Stav Reuven
+
+import geometry.Collidable;
+import geometry.CollisionInfo;
+import geometry.Point;
+import geometry.SegmentHit;
+
+/**
+ * The CollisionQuery class describes a swept-circle collision query and tracks the closest
+ * impact found so far while a collision index answers it. A query object is reset and reused
+ * for every query, so testing candidates does not allocate. Queries are independent of each
+ * other, so threads that each own a query may run them against the same unchanging environment.
+ */
+public class CollisionQuery {
+    private final SegmentHit hit = new SegmentHit();
+    private double x0;
+    private double y0;
+    private double dx;
+    private double dy;
+    private double radius;
+    private double time;
+    private double normalX;
+    private double normalY;
+    private Collidable collidable;
+
+    /**
+     * Starts a new query for a circle whose center moves from (x0, y0) to (x0 + dx, y0 + dy).
+     *
+     * @param startX      the x-coordinate of the center at the start of the motion
+     * @param startY      the y-coordinate of the center at the start of the motion
+     * @param deltaX      the x-component of the motion
+     * @param deltaY      the y-component of the motion
+     * @param sweepRadius the radius of the circle, 0 for a plain segment
+     */
+    public void reset(double startX, double startY, double deltaX, double deltaY, double sweepRadius) {
+        this.x0 = startX;
+        this.y0 = startY;
+        this.dx = deltaX;
+        this.dy = deltaY;
+        this.radius = sweepRadius;
+        this.time = Double.MAX_VALUE;
+        this.collidable = null;
+    }
+
+    /**
+     * Sweeps the circle against a collidable,
+     * keeping the impact if it is the closest one so far.
+     *
+     * @param c the collidable to test
+     */
+    void test(Collidable c) {
+        if (c.sweep(this.x0, this.y0, this.dx, this.dy, this.radius, this.hit)
+                && this.hit.getTime() < this.time) {
+            this.time = this.hit.getTime();
+            this.normalX = this.hit.getNormalX();
+            this.normalY = this.hit.getNormalY();
+            this.collidable = c;
+        }
+    }
+
+    /**
+     * Returns whether an impact was found.
+     *
+     * @return true if an impact was found, false otherwise
+     */
+    public boolean found() {
+        return this.collidable != null;
+    }
+
+    /**
+     * Returns the parametric time of the closest impact along the motion.
+     *
+     * @return the closest impact time, or Double.MAX_VALUE if no impact was found
+     */
+    public double time() {
+        return this.time;
+    }
+
+    /**
+     * Returns the closest impact found. The collision point is the contact point on
+     * the surface of the collidable, one radius away from the circle center along the normal.
+     *
+     * @return CollisionInfo describing the closest impact, or null if none was found
+     */
+    public CollisionInfo toCollisionInfo() {
+        if (this.collidable == null) {
+            return null;
+        }
+        Point point = new Point(this.x0 + this.dx * this.time - this.normalX * this.radius,
+                this.y0 + this.dy * this.time - this.normalY * this.radius);
+        return new CollisionInfo(point, this.collidable, this.time, this.normalX, this.normalY);
+    }
+
+    double startX() {
+        return this.x0;
+    }
+
+    double startY() {
+        return this.y0;
+    }
+
+    double deltaX() {
+        return this.dx;
+    }
+
+    double deltaY() {
+        return this.dy;
+    }
+
+    double radius() {
+        return this.radius;
+    }
+}
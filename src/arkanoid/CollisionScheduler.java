@@ -0,0 +1,394 @@
+package arkanoid;
+
+// 322613720 Stav Reuven
+
+import biuoop.DrawSurface;
+import geometry.Ball;
+import geometry.Collidable;
+import geometry.CollisionInfo;
+import geometry.Point;
+import geometry.SegmentHit;
+import geometry.Velocity;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * The CollisionScheduler class is an event-driven physics engine for balls.
+ * For every ball it predicts the time of the next collision once, and keeps the predictions in
+ * a priority queue ordered by time. Between collisions a ball moves analytically along a straight
+ * line, so a ball flying through open space costs no collision query until its event is due.
+ * A prediction only looks a limited horizon ahead; when the horizon runs out without a collision
+ * the ball is simply predicted again.
+ * Predictions are invalidated lazily: every ball has a version that is bumped whenever its
+ * prediction changes, and queued events carrying an old version are skipped. The scheduler listens
+ * to the game environment, so removing the block a ball is heading to, or moving the paddle into
+ * the path of a ball, makes the affected balls predict again.
+ * Time is measured in frames; the scheduler itself is a sprite that advances one frame per call.
+ */
+public class CollisionScheduler implements Sprite, EnvironmentListener, Stateful {
+    private static final double DEFAULT_HORIZON = 120;
+    private static final double SKIN = 0.001;
+    private static final int MAX_EVENTS_PER_BALL_PER_FRAME = 8;
+
+    private final GameEnvironment environment;
+    private final double horizon;
+    private final PriorityQueue<Event> events;
+    private final Map<Ball, Track> tracks;
+    private final List<Track> order;
+    private final SegmentHit scratch;
+    private double now;
+    private long sequence;
+    private long predictions;
+    private Track resolving;
+    private int spriteSlot = -1;
+
+    /**
+     * Constructs a scheduler for balls moving in the given game environment,
+     * with the default prediction horizon of 120 frames.
+     *
+     * @param environment the game environment holding the collidables
+     */
+    public CollisionScheduler(GameEnvironment environment) {
+        this(environment, DEFAULT_HORIZON);
+    }
+
+    /**
+     * Constructs a scheduler for balls moving in the given game environment.
+     *
+     * @param environment the game environment holding the collidables
+     * @param horizon     the number of frames a single prediction looks ahead
+     */
+    public CollisionScheduler(GameEnvironment environment, double horizon) {
+        this.environment = environment;
+        this.horizon = horizon;
+        this.events = new PriorityQueue<>((a, b) -> a.time != b.time
+                ? Double.compare(a.time, b.time) : Long.compare(a.sequence, b.sequence));
+        this.tracks = new IdentityHashMap<>();
+        this.order = new ArrayList<>();
+        this.scratch = new SegmentHit();
+        environment.addEnvironmentListener(this);
+    }
+
+    /**
+     * Adds a ball to the scheduler and predicts its first collision.
+     *
+     * @param ball the ball to add
+     */
+    public void add(Ball ball) {
+        Track track = new Track(ball);
+        track.originTime = this.now;
+        this.tracks.put(ball, track);
+        this.order.add(track);
+        predict(track);
+    }
+
+    /**
+     * Removes a ball from the scheduler, dropping its pending event.
+     *
+     * @param ball the ball to remove
+     */
+    public void remove(Ball ball) {
+        Track track = this.tracks.remove(ball);
+        if (track != null) {
+            track.version++;
+            this.order.remove(track);
+        }
+    }
+
+    /**
+     * Returns the number of collision queries made so far.
+     *
+     * @return the number of predictions
+     */
+    public long getPredictions() {
+        return this.predictions;
+    }
+
+    /**
+     * Advances the simulation by one frame, resolving every collision that falls within it,
+     * and moves the balls to their positions at the end of the frame.
+     * Only events that are still valid count against the budget of events per frame. If the budget
+     * runs out all the same, the clock still moves to the end of the frame, but a ball whose event
+     * is left pending stops at the time of that event instead of passing through it, and the event
+     * is resolved at its own time early in the next frame. The clock never goes backwards.
+     */
+    @Override
+    public void timePassed() {
+        double target = this.now + 1;
+        for (int i = 0; i < this.order.size(); i++) {
+            this.order.get(i).ball.beginStep();
+        }
+        int budget = MAX_EVENTS_PER_BALL_PER_FRAME * this.order.size();
+        while (budget > 0 && !this.events.isEmpty() && this.events.peek().time <= target) {
+            Event event = this.events.poll();
+            Track track = event.track;
+            if (event.version != track.version) {
+                continue;
+            }
+            budget--;
+            // An event left pending by the previous frame is already behind the clock
+            this.now = Math.max(this.now, event.time);
+            if (event.collision == null) {
+                // The horizon ran out without a collision
+                advance(track);
+                predict(track);
+            } else {
+                resolve(track, event);
+            }
+        }
+        this.now = target;
+        for (int i = 0; i < this.order.size(); i++) {
+            Track track = this.order.get(i);
+            double elapsed = track.timeAt(this.now) - track.originTime;
+            track.ball.setCenter(track.originX + track.dx * elapsed, track.originY + track.dy * elapsed);
+        }
+    }
+
+    @Override
+    public void drawOn(DrawSurface d) {
+        for (int i = 0; i < this.order.size(); i++) {
+            this.order.get(i).ball.drawOn(d);
+        }
+    }
+
+    @Override
+    public void capture(FrameSnapshot snapshot) {
+        for (int i = 0; i < this.order.size(); i++) {
+            this.order.get(i).ball.capture(snapshot);
+        }
+    }
+
+    @Override
+    public void drawOn(DrawSurface d, double alpha) {
+        for (int i = 0; i < this.order.size(); i++) {
+            this.order.get(i).ball.drawOn(d, alpha);
+        }
+    }
+
+    @Override
+    public int getSpriteSlot() {
+        return this.spriteSlot;
+    }
+
+    @Override
+    public void setSpriteSlot(int slot) {
+        this.spriteSlot = slot;
+    }
+
+    @Override
+    public void addToGame(Game g) {
+        g.addSprite(this);
+    }
+
+    @Override
+    public void writeState(StateSink out) {
+        // The balls are written by the game; the tracks are predicted again from them on restore
+        out.putDouble(this.now);
+    }
+
+    /**
+     * Restores the clock of the scheduler and predicts every ball again from its restored state.
+     * The game restores the balls first, so the predictions start from where the balls are now.
+     *
+     * @param in the source to read from
+     */
+    @Override
+    public void readState(StateSource in) {
+        this.now = in.getDouble();
+        this.events.clear();
+        for (int i = 0; i < this.order.size(); i++) {
+            Track track = this.order.get(i);
+            track.restart(this.now);
+            predict(track);
+        }
+    }
+
+    @Override
+    public void collidableAdded(Collidable c) {
+        repredictCrossing(c);
+    }
+
+    @Override
+    public void collidableRemoved(Collidable c) {
+        for (int i = 0; i < this.order.size(); i++) {
+            Track track = this.order.get(i);
+            if (track != this.resolving && track.target == c) {
+                advance(track);
+                predict(track);
+            }
+        }
+    }
+
+    @Override
+    public void collidableMoved(Collidable c) {
+        repredictCrossing(c);
+    }
+
+    /**
+     * Predicts again only the balls whose event hits the collidable inside the cleared region.
+     * Clearing part of a collidable only opens space, so every other prediction still holds.
+     */
+    @Override
+    public void regionCleared(Collidable c, double minX, double minY, double maxX, double maxY) {
+        for (int i = 0; i < this.order.size(); i++) {
+            Track track = this.order.get(i);
+            if (track == this.resolving || track.target != c) {
+                continue;
+            }
+            // At its event the ball touches the cleared region if its center is within reach of it
+            double elapsed = track.eventTime - track.originTime;
+            double x = track.originX + track.dx * elapsed;
+            double y = track.originY + track.dy * elapsed;
+            double reach = track.ball.getSize() + SKIN;
+            if (x >= minX - reach && x <= maxX + reach && y >= minY - reach && y <= maxY + reach) {
+                advance(track);
+                predict(track);
+            }
+        }
+    }
+
+    /**
+     * Predicts again every ball whose event targets the given collidable, or whose path up to
+     * its event now crosses the collidable earlier.
+     *
+     * @param c the collidable that appeared or moved
+     */
+    private void repredictCrossing(Collidable c) {
+        for (int i = 0; i < this.order.size(); i++) {
+            Track track = this.order.get(i);
+            if (track == this.resolving) {
+                continue;
+            }
+            boolean affected = track.target == c;
+            if (!affected) {
+                double time = track.timeAt(this.now);
+                double elapsed = time - track.originTime;
+                double span = track.eventTime - time;
+                affected = c.sweep(track.originX + track.dx * elapsed, track.originY + track.dy * elapsed,
+                        track.dx * span, track.dy * span, track.ball.getSize(), this.scratch);
+            }
+            if (affected) {
+                advance(track);
+                predict(track);
+            }
+        }
+    }
+
+    /**
+     * Moves the ball of a track to the time of its collision, bounces it, and predicts again.
+     *
+     * @param track the track whose event is due
+     * @param event the due event
+     */
+    private void resolve(Track track, Event event) {
+        CollisionInfo collision = event.collision;
+        double time = track.timeAt(this.now);
+        Point impact = track.positionAt(time);
+        track.ball.setCenter(new Point(impact.getX() + collision.normalX() * SKIN,
+                impact.getY() + collision.normalY() * SKIN));
+        this.resolving = track;
+        Velocity velocity = collision.collisionObject().hit(track.ball, collision, track.ball.getVelocity());
+        this.resolving = null;
+        if (this.tracks.get(track.ball) != track) {
+            // The ball was removed by a hit listener
+            return;
+        }
+        track.ball.setVelocity(velocity);
+        track.restart(time);
+        predict(track);
+    }
+
+    /**
+     * Moves the origin of a track to the current time, or to the time of its pending event if the
+     * event fell behind the clock, keeping its velocity.
+     *
+     * @param track the track to advance
+     */
+    private void advance(Track track) {
+        double time = track.timeAt(this.now);
+        track.ball.setCenter(track.positionAt(time));
+        track.restart(time);
+    }
+
+    /**
+     * Queries the game environment for the next collision of a track within the horizon
+     * and schedules it, invalidating any previous event of the track.
+     *
+     * @param track the track to predict
+     */
+    private void predict(Track track) {
+        this.predictions++;
+        track.version++;
+        Point start = track.ball.getCenter();
+        CollisionInfo collision = this.environment.getClosestCollision(start.getX(), start.getY(),
+                track.dx * this.horizon, track.dy * this.horizon, track.ball.getSize());
+        Event event = new Event();
+        event.track = track;
+        event.version = track.version;
+        event.sequence = this.sequence++;
+        event.collision = collision;
+        event.time = track.originTime + (collision == null ? this.horizon : collision.time() * this.horizon);
+        track.target = collision == null ? null : collision.collisionObject();
+        track.eventTime = event.time;
+        this.events.add(event);
+    }
+
+    /**
+     * The straight-line motion of a ball since its last collision.
+     */
+    private static class Track {
+        private final Ball ball;
+        private double originX;
+        private double originY;
+        private double originTime;
+        private double dx;
+        private double dy;
+        private double eventTime;
+        private Collidable target;
+        private int version;
+
+        Track(Ball ball) {
+            this.ball = ball;
+            this.originX = ball.getCenter().getX();
+            this.originY = ball.getCenter().getY();
+            this.dx = ball.getVelocity().getDx();
+            this.dy = ball.getVelocity().getDy();
+        }
+
+        void restart(double time) {
+            this.originX = this.ball.getCenter().getX();
+            this.originY = this.ball.getCenter().getY();
+            this.originTime = time;
+            this.dx = this.ball.getVelocity().getDx();
+            this.dy = this.ball.getVelocity().getDy();
+        }
+
+        /**
+         * Returns the time the track has reached when the clock shows the given time: the clock
+         * time, unless the pending event of the track is earlier, where the track waits for it.
+         */
+        double timeAt(double clock) {
+            return Math.min(clock, this.eventTime);
+        }
+
+        Point positionAt(double time) {
+            double elapsed = time - this.originTime;
+            return new Point(this.originX + this.dx * elapsed, this.originY + this.dy * elapsed);
+        }
+    }
+
+    /**
+     * A predicted collision of a ball, or the end of its prediction horizon.
+     */
+    private static class Event {
+        private Track track;
+        private int version;
+        private long sequence;
+        private double time;
+        private CollisionInfo collision;
+    }
+}
@@ -0,0 +1,48 @@
+package arkanoid;
+
+// 322613720 Stav Reuven
+
+import geometry.Collidable;
+
+/**
+ * The EnvironmentListener interface represents an object that is told whenever the
+ * set of collidables in a GameEnvironment, or the shape of one of them, changes.
+ */
+public interface EnvironmentListener {
+    /**
+     * Called after a collidable was added to the environment.
+     *
+     * @param c the collidable that was added
+     */
+    void collidableAdded(Collidable c);
+
+    /**
+     * Called after a collidable was removed from the environment.
+     *
+     * @param c the collidable that was removed
+     */
+    void collidableRemoved(Collidable c);
+
+    /**
+     * Called after the collision rectangle of a collidable changed.
+     *
+     * @param c the collidable that moved
+     */
+    void collidableMoved(Collidable c);
+
+    /**
+     * Called after part of a collidable stopped colliding while its collision rectangle stayed the
+     * same, such as a brick cleared from a brick wall. Clearing only opens space, so only motions
+     * that hit the collidable inside the cleared region can change. By default the change is
+     * handled as if the collidable moved.
+     *
+     * @param c    the collidable that changed
+     * @param minX the left edge of the cleared region
+     * @param minY the top edge of the cleared region
+     * @param maxX the right edge of the cleared region
+     * @param maxY the bottom edge of the cleared region
+     */
+    default void regionCleared(Collidable c, double minX, double minY, double maxX, double maxY) {
+        collidableMoved(c);
+    }
+}
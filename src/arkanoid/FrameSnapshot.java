@@ -0,0 +1,156 @@
+package arkanoid;
+
+// 322613720 Stav Reuven
+
+import biuoop.DrawSurface;
+
+import java.awt.Color;
+import java.util.Arrays;
+
+/**
+ * The FrameSnapshot class records what a frame looks like as a flat list of shapes, so the
+ * simulation thread can describe a frame and a render thread can draw it later.
+ * Shapes are kept in parallel arrays that are reused from frame to frame, so capturing a frame
+ * does not allocate once the arrays have grown to fit. A snapshot must not be changed once it
+ * has been published to the render thread.
+ */
+public class FrameSnapshot {
+    private static final byte FILL_RECTANGLE = 0;
+    private static final byte DRAW_RECTANGLE = 1;
+    private static final byte FILL_CIRCLE = 2;
+    private static final byte DRAW_TEXT = 3;
+    private static final int INITIAL_CAPACITY = 64;
+
+    private byte[] kinds;
+    private int[] values;
+    private Color[] colors;
+    private String[] texts;
+    private int size;
+
+    /**
+     * Constructs an empty snapshot.
+     */
+    public FrameSnapshot() {
+        this.kinds = new byte[INITIAL_CAPACITY];
+        this.values = new int[INITIAL_CAPACITY * 4];
+        this.colors = new Color[INITIAL_CAPACITY];
+        this.texts = new String[INITIAL_CAPACITY];
+    }
+
+    /**
+     * Empties the snapshot so a new frame can be recorded into it.
+     */
+    public void reset() {
+        Arrays.fill(this.texts, 0, this.size, null);
+        this.size = 0;
+    }
+
+    /**
+     * Returns the number of shapes recorded.
+     *
+     * @return the number of shapes
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Records a filled rectangle.
+     *
+     * @param x      the x-coordinate of the upper-left corner
+     * @param y      the y-coordinate of the upper-left corner
+     * @param width  the width of the rectangle
+     * @param height the height of the rectangle
+     * @param color  the color of the rectangle
+     */
+    public void fillRectangle(int x, int y, int width, int height, Color color) {
+        add(FILL_RECTANGLE, x, y, width, height, color, null);
+    }
+
+    /**
+     * Records the outline of a rectangle.
+     *
+     * @param x      the x-coordinate of the upper-left corner
+     * @param y      the y-coordinate of the upper-left corner
+     * @param width  the width of the rectangle
+     * @param height the height of the rectangle
+     * @param color  the color of the outline
+     */
+    public void drawRectangle(int x, int y, int width, int height, Color color) {
+        add(DRAW_RECTANGLE, x, y, width, height, color, null);
+    }
+
+    /**
+     * Records a filled circle.
+     *
+     * @param x      the x-coordinate of the center
+     * @param y      the y-coordinate of the center
+     * @param radius the radius of the circle
+     * @param color  the color of the circle
+     */
+    public void fillCircle(int x, int y, int radius, Color color) {
+        add(FILL_CIRCLE, x, y, radius, 0, color, null);
+    }
+
+    /**
+     * Records a line of text.
+     *
+     * @param x        the x-coordinate of the text
+     * @param y        the y-coordinate of the text
+     * @param text     the text
+     * @param fontSize the font size
+     * @param color    the color of the text
+     */
+    public void drawText(int x, int y, String text, int fontSize, Color color) {
+        add(DRAW_TEXT, x, y, fontSize, 0, color, text);
+    }
+
+    /**
+     * Draws the recorded shapes, in the order they were recorded, on the given DrawSurface.
+     *
+     * @param d the DrawSurface to draw on
+     */
+    public void drawOn(DrawSurface d) {
+        Color current = null;
+        for (int i = 0; i < this.size; i++) {
+            if (this.colors[i] != current) {
+                current = this.colors[i];
+                d.setColor(current);
+            }
+            int v = i * 4;
+            switch (this.kinds[i]) {
+                case FILL_RECTANGLE:
+                    d.fillRectangle(this.values[v], this.values[v + 1], this.values[v + 2], this.values[v + 3]);
+                    break;
+                case DRAW_RECTANGLE:
+                    d.drawRectangle(this.values[v], this.values[v + 1], this.values[v + 2], this.values[v + 3]);
+                    break;
+                case FILL_CIRCLE:
+                    d.fillCircle(this.values[v], this.values[v + 1], this.values[v + 2]);
+                    break;
+                default:
+                    d.drawText(this.values[v], this.values[v + 1], this.texts[i], this.values[v + 2]);
+                    break;
+            }
+        }
+    }
+
+    private void add(byte kind, int a, int b, int c, int e, Color color, String text) {
+        if (this.size == this.kinds.length) {
+            int capacity = this.size * 2;
+            this.kinds = Arrays.copyOf(this.kinds, capacity);
+            this.values = Arrays.copyOf(this.values, capacity * 4);
+            this.colors = Arrays.copyOf(this.colors, capacity);
+            this.texts = Arrays.copyOf(this.texts, capacity);
+        }
+        int v = this.size * 4;
+        this.kinds[this.size] = kind;
+        this.values[v] = a;
+        this.values[v + 1] = b;
+        this.values[v + 2] = c;
+        this.values[v + 3] = e;
+        this.colors[this.size] = color;
+        this.texts[this.size] = text;
+        this.size++;
+    }
+}
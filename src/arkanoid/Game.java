@@ -2,21 +2,31 @@ package arkanoid;
 // 322613720 Stav Reuven
 import biuoop.GUI;
 import biuoop.DrawSurface;
-import biuoop.Sleeper;
 import geometry.Point;
 import geometry.Paddle;
 import geometry.Block;
+import geometry.BlockField;
 import geometry.Collidable;
 import geometry.Rectangle;
 import geometry.Ball;
+import geometry.BallSystem;
 import geometry.Velocity;
 import listener.BallRemover;
 import listener.Counter;
+import listener.HitEventBus;
+import listener.ListenerTable;
 import listener.ScoreIndicator;
 import listener.ScoreTrackingListener;
 import listener.BlockRemover;
+import snapshot.SnapshotRing;
+import timing.FramePacer;
+import timing.FrameProfiler;
 
 import java.awt.Color;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.locks.LockSupport;
 
 /**
  * The Game class initializes and manages the game elements such as sprites, collidables,
@@ -24,24 +34,101 @@ import java.awt.Color;
  * blocks, balls, and a paddle, and runs the game animation loop.
  */
 public class Game {
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+    private static final int STEPS_PER_SECOND = 60;
+    private static final int FRAMES_PER_SECOND = 60;
+    private static final int MAX_CATCH_UP_STEPS = 5;
+
     private SpriteCollection sprites;
     private GameEnvironment environment;
-    private GUI gui;
+    private Screen screen;
+    private InputSource input;
     private Counter remainingBlocks;
     private Counter remainingBalls;
     private Counter scoreCounter;
+    private PhysicsMode physicsMode;
+    private CollisionScheduler scheduler;
+    private BallSystem ballSystem;
+    private double timeScale = 1;
+    private boolean pipelined;
+    private boolean floorClosed;
+    private volatile boolean simulationDone;
+    private volatile Throwable simulationFailure;
+    private final FrameProfiler profiler = new FrameProfiler();
+    private final HitEventBus hitEvents = new HitEventBus();
+    private final ListenerTable listenerTable = new ListenerTable();
+    private final List<StepListener> stepListeners = new ArrayList<>();
+    private final List<Ball> balls = new ArrayList<>();
+    private final List<BlockField> blockFields = new ArrayList<>();
+    private Paddle paddle;
+    private SnapshotRing rewindBuffer;
+    private final FramePacer framePacer = new FramePacer(NANOS_PER_SECOND / FRAMES_PER_SECOND);
 
     /**
      * Constructs a new Game object with default dimensions and initializes the sprites,
      * game environment, and GUI components.
      */
     public Game() {
+        this(new GUI("Arkanoid", 800, 600));
+    }
+
+    /**
+     * Constructs a game rendering into the given window and read from its keyboard.
+     *
+     * @param gui the window of the game
+     */
+    private Game(GUI gui) {
+        this(new GuiScreen(gui), new KeyboardInput(gui.getKeyboardSensor()));
+    }
+
+    /**
+     * Constructs a headless game, which opens no window and draws nothing.
+     * Run it with runHeadless().
+     *
+     * @param input the input source driving the paddle
+     */
+    public Game(InputSource input) {
+        this(null, input);
+    }
+
+    /**
+     * Constructs a game rendering into the given screen, or a headless game if the screen is null.
+     *
+     * @param screen the screen to render into, or null
+     * @param input  the input source driving the paddle
+     */
+    public Game(Screen screen, InputSource input) {
+        this.screen = screen;
+        this.input = input;
         this.sprites = new SpriteCollection();
         this.environment = new GameEnvironment();
-        this.gui = new GUI("Arkanoid", 800, 600);
+        this.environment.setProfiler(this.profiler);
         this.remainingBlocks = new Counter();
         this.remainingBalls = new Counter();
         this.scoreCounter = new Counter();
+        this.physicsMode = PhysicsMode.STEPPED;
+        this.hitEvents.subscribe(HitEventBus.BRICK_DESTROYED, new ScoreTrackingListener(this.scoreCounter));
+        this.hitEvents.subscribe(HitEventBus.BRICK_DESTROYED, new BlockRemover(this, this.remainingBlocks));
+    }
+
+    /**
+     * Selects how the balls of the game are advanced. Must be called before initialize().
+     *
+     * @param mode the physics mode to use
+     */
+    public void setPhysicsMode(PhysicsMode mode) {
+        this.physicsMode = mode;
+    }
+
+    /**
+     * Selects the spatial index the game environment keeps the collidables in, a UniformGrid unless
+     * selected otherwise. Must be called before initialize(), while the environment is still empty.
+     *
+     * @param type the type of the collision index to use
+     */
+    public void setCollisionIndex(CollisionIndexType type) {
+        this.environment = new GameEnvironment(type);
+        this.environment.setProfiler(this.profiler);
     }
 
     /**
@@ -62,73 +149,266 @@ public class Game {
         sprites.addSprite(s);
     }
 
+    /**
+     * Adds a ball to the game. In stepped mode the ball is a sprite of its own,
+     * in event-driven mode it is handed to the collision scheduler, and in ball system
+     * mode its state is copied into the ball system.
+     *
+     * @param b the ball to add
+     */
+    public void addBall(Ball b) {
+        if (this.scheduler != null) {
+            this.scheduler.add(b);
+        } else if (this.ballSystem != null) {
+            this.ballSystem.add(b);
+        } else {
+            addSprite(b);
+        }
+    }
+
+    /**
+     * Removes a ball from the game.
+     *
+     * @param b the ball to remove
+     */
+    public void removeBall(Ball b) {
+        if (this.scheduler != null) {
+            this.scheduler.remove(b);
+        } else {
+            removeSprite(b);
+        }
+    }
+
     /**
      * Initializes the game by creating walls, blocks, balls, paddle, and score indicator,
      * and adds them to the game.
      */
     public void initialize() {
-        // Creating and adding walls
-        Block wallLeft = new Block(new Rectangle(new Point(0, 0), 20, 600), Color.lightGray);
-        wallLeft.addToGame(this);
-        Block wallTop = new Block(new Rectangle(new Point(0, 0), 800, 20), Color.lightGray);
-        wallTop.addToGame(this);
-        Block wallRight = new Block(new Rectangle(new Point(780, 0), 20, 600), Color.lightGray);
-        wallRight.addToGame(this);
-        Block deathRegion = new Block(new Rectangle(new Point(0, 580), 800, 20), Color.white);
-        deathRegion.addToGame(this);
-        deathRegion.addHitListener(new BallRemover(this, remainingBalls));
+        initializeArena();
 
         // Creating and adding balls
         Ball ball1 = new Ball(5, new Point(420, 30), Color.BLACK, environment);
         ball1.setVelocity(Velocity.fromAngleAndSpeed(240, 5));
-        ball1.addToGame(this);
-        this.remainingBalls.increase(1);
+        spawnBall(ball1);
 
         Ball ball2 = new Ball(5, new Point(123, 35), Color.BLUE, environment);
         ball2.setVelocity(Velocity.fromAngleAndSpeed(324, 5));
-        ball2.addToGame(this);
-        this.remainingBalls.increase(1);
+        spawnBall(ball2);
 
         Ball ball3 = new Ball(5, new Point(152, 45), Color.BLUE, environment);
         ball3.setVelocity(Velocity.fromAngleAndSpeed(25, 5));
-        ball3.addToGame(this);
-        this.remainingBalls.increase(1);
+        spawnBall(ball3);
+
+        // Creating and adding blocks
+        addBlocks();
+    }
+
+    /**
+     * Initializes the parts of the game every level shares: the physics engine, the walls, the
+     * death region, the paddle and the score indicator. Balls and blocks are then added with
+     * spawnBall() and addBlockField(). Call either this or initialize(), once.
+     */
+    public void initializeArena() {
+        initializeArena(new Rectangle(new Point(350, 560), 100, 20), 8);
+    }
+
+    /**
+     * Initializes the parts of the game every level shares, like initializeArena(), with a paddle
+     * of the given place, size and speed.
+     *
+     * @param paddleBounds the rectangle of the paddle at the start
+     * @param paddleSpeed  the distance the paddle moves in a step
+     */
+    public void initializeArena(Rectangle paddleBounds, int paddleSpeed) {
+        // Creating and adding walls
+        Block wallLeft = new Block(new Rectangle(new Point(0, 0), 20, 600), Color.lightGray);
+        wallLeft.addToGame(this);
+        Block wallTop = new Block(new Rectangle(new Point(0, 0), 800, 20), Color.lightGray);
+        wallTop.addToGame(this);
+        Block wallRight = new Block(new Rectangle(new Point(780, 0), 20, 600), Color.lightGray);
+        wallRight.addToGame(this);
+        if (this.floorClosed) {
+            Block floor = new Block(new Rectangle(new Point(0, 580), 800, 20), Color.lightGray);
+            floor.addToGame(this);
+        } else {
+            Block deathRegion = new Block(new Rectangle(new Point(0, 580), 800, 20), Color.white);
+            deathRegion.addToGame(this);
+            deathRegion.addHitListener(new BallRemover(this, remainingBalls));
+        }
 
         // Creating and adding paddle
-        biuoop.KeyboardSensor keyboard = gui.getKeyboardSensor();
-        Paddle paddle = new Paddle(new Rectangle(new Point(350, 560), 100, 20), Color.ORANGE, 8, keyboard);
-        paddle.addToGame(this);
+        this.paddle = new Paddle(paddleBounds, Color.ORANGE, paddleSpeed, this.input);
+        this.paddle.setLimits(wallLeft.getCollisionRectangle().getMaxX(), wallRight.getCollisionRectangle().getMinX());
+        this.paddle.addToGame(this);
 
         // Creating and adding score indicator
         ScoreIndicator scoreIndicator = new ScoreIndicator(this.scoreCounter);
         scoreIndicator.addToGame(this);
 
-        // Creating and adding blocks
-        addBlocks();
+        // The sprite moving the balls comes after the paddle, as the balls themselves do in stepped
+        // mode, so in every mode the balls meet the paddle where it moved to in the same step
+        if (this.physicsMode == PhysicsMode.EVENT_DRIVEN) {
+            this.scheduler = new CollisionScheduler(this.environment);
+            this.scheduler.addToGame(this);
+        } else if (this.physicsMode == PhysicsMode.BALL_SYSTEM
+                || this.physicsMode == PhysicsMode.PARALLEL_BALL_SYSTEM) {
+            this.ballSystem = new BallSystem(this.environment);
+            if (this.physicsMode == PhysicsMode.PARALLEL_BALL_SYSTEM) {
+                this.ballSystem.setPool(ForkJoinPool.commonPool());
+            }
+            this.ballSystem.addToGame(this);
+        }
+    }
+
+    /**
+     * Empties the game so another level can be set up in it, with initializeArena() or
+     * initialize(), as if the game were new. The sprite collection, the environment with its
+     * collision index and the counters are cleared rather than replaced, so their storage is reused.
+     * The physics mode, the hit event bus and the step listeners are kept, and so is the rewind
+     * buffer, emptied. Must not be called while the game runs.
+     */
+    public void reset() {
+        this.sprites.clear();
+        this.environment.clear();
+        restore(this.remainingBlocks, 0);
+        restore(this.remainingBalls, 0);
+        restore(this.scoreCounter, 0);
+        this.balls.clear();
+        this.blockFields.clear();
+        this.paddle = null;
+        this.scheduler = null;
+        this.ballSystem = null;
+        if (this.rewindBuffer != null) {
+            this.rewindBuffer.clear();
+        }
+    }
+
+    /**
+     * Returns the score of the game.
+     *
+     * @return the score
+     */
+    public int getScore() {
+        return this.scoreCounter.getValue();
+    }
+
+    /**
+     * Sets the score of the game, for a level that goes on from the score of a previous one.
+     *
+     * @param score the score
+     */
+    public void setScore(int score) {
+        restore(this.scoreCounter, score);
+    }
+
+    /**
+     * Returns whether every block of the game was destroyed.
+     *
+     * @return true if the level was cleared, false otherwise
+     */
+    public boolean isCleared() {
+        return this.remainingBlocks.getValue() <= 0;
+    }
+
+    /**
+     * Returns the rectangle of the paddle, where it stands now.
+     *
+     * @return the paddle bounds, or null before the arena is initialized
+     */
+    public Rectangle getPaddleBounds() {
+        return this.paddle == null ? null : this.paddle.getCollisionRectangle();
+    }
+
+    /**
+     * Returns the x-coordinate of the ball in play nearest the floor, the one a player would go
+     * after. Scripted paddles read it between steps.
+     *
+     * @return the x-coordinate of the lowest ball, or NaN if no ball is in play
+     */
+    public double getLowestBallX() {
+        double lowestX = Double.NaN;
+        double lowestY = Double.NEGATIVE_INFINITY;
+        if (this.ballSystem != null) {
+            for (int slot = 0; slot < this.ballSystem.size(); slot++) {
+                if (this.ballSystem.getY(slot) > lowestY) {
+                    lowestY = this.ballSystem.getY(slot);
+                    lowestX = this.ballSystem.getX(slot);
+                }
+            }
+            return lowestX;
+        }
+        for (int i = 0; i < this.balls.size(); i++) {
+            Ball ball = this.balls.get(i);
+            if (ball.isInGame() && ball.getCenter().getY() > lowestY) {
+                lowestY = ball.getCenter().getY();
+                lowestX = ball.getCenter().getX();
+            }
+        }
+        return lowestX;
+    }
+
+    /**
+     * Adds a ball to the game and counts it among the balls in play.
+     *
+     * @param b the ball to add, built on the environment of this game
+     */
+    public void spawnBall(Ball b) {
+        if (this.ballSystem == null) {
+            // A ball system copies the ball and keeps the state of its balls itself
+            this.balls.add(b);
+        }
+        b.addToGame(this);
+        this.remainingBalls.increase(1);
+    }
+
+    /**
+     * Adds a brick wall to the game: its cells count among the blocks to destroy, and destroyed
+     * cells score points and are removed through the hit event bus.
+     *
+     * @param field the brick wall to add
+     */
+    public void addBlockField(BlockField field) {
+        field.addToGame(this);
+        this.blockFields.add(field);
+        this.remainingBlocks.increase(field.getLiveCount());
+    }
+
+    /**
+     * Returns the bus the hits of this game are published to. Its events are dispatched at the
+     * end of every physics step.
+     *
+     * @return the hit event bus of the game
+     */
+    public HitEventBus getHitEvents() {
+        return this.hitEvents;
+    }
+
+    /**
+     * Returns the environment holding the collidables of the game, on which balls are built.
+     *
+     * @return the game environment
+     */
+    public GameEnvironment getEnvironment() {
+        return this.environment;
     }
 
     /**
      * Helper method to add blocks of different colors to the game.
      */
     private void addBlocks() {
-        ScoreTrackingListener score = new ScoreTrackingListener(scoreCounter);
-        BlockRemover blockRemover = new BlockRemover(this, remainingBlocks);
         int startX = 169;
         int startY = 100;
         int blockWidth = 51;
         int blockHeight = 20;
         Color[] blockColors = {Color.GRAY, Color.RED, Color.YELLOW, Color.BLUE, Color.PINK, Color.GREEN};
 
+        BlockField field = new BlockField(startX, startY, blockWidth, blockHeight, 12, blockColors.length);
         for (int row = 0; row < blockColors.length; row++) {
             for (int col = row; col < 12; col++) {
-                Block block = new Block(new Rectangle(new Point(startX + col * blockWidth, startY + row * blockHeight),
-                        blockWidth, blockHeight), blockColors[row]);
-                block.addToGame(this);
-                block.addHitListener(blockRemover);
-                block.addHitListener(score);
-                this.remainingBlocks.increase(1);
+                field.setCell(col, row, blockColors[row]);
             }
         }
+        addBlockField(field);
     }
 
     /**
@@ -140,6 +420,29 @@ public class Game {
         this.environment.remove(c);
     }
 
+    /**
+     * Notifies the game environment that a collidable object has moved.
+     *
+     * @param c the collidable object that moved
+     */
+    public void updateCollidable(Collidable c) {
+        this.environment.update(c);
+    }
+
+    /**
+     * Notifies the game environment that part of a collidable stopped colliding, such as a brick
+     * cleared from a brick wall, while its collision rectangle stayed the same.
+     *
+     * @param c    the collidable that changed
+     * @param minX the left edge of the cleared region
+     * @param minY the top edge of the cleared region
+     * @param maxX the right edge of the cleared region
+     * @param maxY the bottom edge of the cleared region
+     */
+    public void regionCleared(Collidable c, double minX, double minY, double maxX, double maxY) {
+        this.environment.regionCleared(c, minX, minY, maxX, maxY);
+    }
+
     /**
      * Removes a sprite object from the game sprites collection.
      *
@@ -149,31 +452,385 @@ public class Game {
         this.sprites.remove(s);
     }
 
+    /**
+     * Sets how fast game time passes compared to real time: 1 plays at normal speed, 2 fast-forwards
+     * at twice the speed and 0.5 plays in slow motion. Physics always advances in the same fixed
+     * steps; only the number of steps per second of real time changes.
+     *
+     * @param scale the time scale, greater than zero
+     */
+    public void setTimeScale(double scale) {
+        this.timeScale = scale;
+    }
+
+    /**
+     * Selects whether the bottom of the arena is a wall that balls bounce off instead of the death
+     * region, so no ball is ever lost. Stress tests use it to keep their load for the whole run.
+     * Must be called before initialize().
+     *
+     * @param closed true to close the floor, false for the normal death region
+     */
+    public void setFloorClosed(boolean closed) {
+        this.floorClosed = closed;
+    }
+
+    /**
+     * Selects whether run() simulates and renders on two separate threads.
+     *
+     * @param pipelined true to run the simulation on its own thread, false to run everything on one
+     */
+    public void setPipelined(boolean pipelined) {
+        this.pipelined = pipelined;
+    }
+
     /**
      * Runs the game animation loop, continuously updating and drawing the game components
      * until either all blocks are destroyed or all balls are lost.
+     * Physics advances in fixed steps of 1/60 of a second of game time, independently of how
+     * often frames are drawn: real time (multiplied by the time scale) is accumulated, as many
+     * steps as fit are taken, and the frame is drawn interpolated between the last two steps.
+     * After a stall only a few steps are caught up and the rest of the backlog is dropped,
+     * so the game slows down briefly instead of freezing while it catches up.
+     * Frames are presented on the deadlines of a FramePacer, see getFramePacer().
+     * The window is closed when the game ends. A headless game is simulated as fast as possible instead.
      */
     public void run() {
-        Sleeper sleeper = new Sleeper();
-        int framesPerSecond = 60;
-        int millisecondsPerFrame = 1000 / framesPerSecond;
+        if (this.screen == null) {
+            runHeadless(Long.MAX_VALUE);
+            return;
+        }
+        play();
+        this.screen.close();
+    }
+
+    /**
+     * Plays the game like run(), but leaves the window open when the game ends, so another level
+     * can be played in it.
+     */
+    public void play() {
+        if (this.screen == null) {
+            runHeadless(Long.MAX_VALUE);
+            return;
+        }
+        if (this.pipelined) {
+            runPipelined();
+            return;
+        }
+        long stepNanos = NANOS_PER_SECOND / STEPS_PER_SECOND;
+        double accumulator = 0;
+        long previousTime = System.nanoTime();
+        this.framePacer.start();
         while (this.remainingBlocks.getValue() > 0 && this.remainingBalls.getValue() > 0) {
             if (this.remainingBlocks.getValue() == 0) {
                 this.scoreCounter.increase(100);
             }
-            long startTime = System.currentTimeMillis(); // timing
-            DrawSurface d = gui.getDrawSurface();
-            this.sprites.drawAllOn(d);
-            gui.show(d);
-            this.sprites.notifyAllTimePassed();
-            // timing
-            long usedTime = System.currentTimeMillis() - startTime;
-            long milliSecondLeftToSleep = millisecondsPerFrame - usedTime;
-            if (milliSecondLeftToSleep > 0) {
-                sleeper.sleepFor(milliSecondLeftToSleep);
+            long frameStart = System.nanoTime();
+            accumulator += (frameStart - previousTime) * this.timeScale;
+            previousTime = frameStart;
+
+            int steps = 0;
+            while (accumulator >= stepNanos && steps < MAX_CATCH_UP_STEPS && !isOver()) {
+                step();
+                accumulator -= stepNanos;
+                steps++;
+            }
+            if (steps == MAX_CATCH_UP_STEPS && accumulator >= stepNanos) {
+                // Too far behind: drop the backlog rather than spiral
+                accumulator = accumulator % stepNanos;
+            }
+
+            long drawStart = this.profiler.start();
+            DrawSurface d = this.screen.getDrawSurface();
+            this.sprites.drawAllOn(d, accumulator / stepNanos);
+            this.profiler.stop(FrameProfiler.Phase.DRAW, drawStart);
+            long presentStart = this.profiler.start();
+            this.screen.show(d);
+            this.profiler.stop(FrameProfiler.Phase.PRESENT, presentStart);
+            this.profiler.endFrame();
+            this.framePacer.awaitNextFrame();
+        }
+    }
+
+    /**
+     * Runs the game with the simulation and the rendering overlapped on two threads.
+     * A simulation thread steps physics on the same fixed timestep as run() and, after each batch
+     * of steps, captures the sprites into a FrameSnapshot published through a triple buffer.
+     * The calling thread renders the latest published snapshot at the display rate. Neither thread
+     * waits for the other, so each can use close to a whole frame; frames are drawn as captured,
+     * without interpolation. An exception that ends the simulation is rethrown on the calling
+     * thread once the simulation thread has stopped.
+     */
+    private void runPipelined() {
+        TripleBuffer<FrameSnapshot> buffer = new TripleBuffer<>(new FrameSnapshot(), new FrameSnapshot(),
+                new FrameSnapshot());
+        this.simulationDone = false;
+        this.simulationFailure = null;
+        Thread simulation = new Thread(() -> simulate(buffer), "simulation");
+        simulation.start();
+
+        this.framePacer.start();
+        boolean lastFrame = false;
+        while (!lastFrame) {
+            // Read the flag first, so the final snapshot is still drawn
+            lastFrame = this.simulationDone;
+            FrameSnapshot snapshot = buffer.takeLatest();
+            if (snapshot != null) {
+                long drawStart = this.profiler.start();
+                DrawSurface d = this.screen.getDrawSurface();
+                snapshot.drawOn(d);
+                this.profiler.stop(FrameProfiler.Phase.DRAW, drawStart);
+                long presentStart = this.profiler.start();
+                this.screen.show(d);
+                this.profiler.stop(FrameProfiler.Phase.PRESENT, presentStart);
+                this.profiler.endFrame();
+            }
+            this.framePacer.awaitNextFrame();
+        }
+        try {
+            simulation.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // Rethrow what ended the simulation, as run() would have thrown it on this thread
+        Throwable failure = this.simulationFailure;
+        if (failure instanceof RuntimeException) {
+            throw (RuntimeException) failure;
+        }
+        if (failure instanceof Error) {
+            throw (Error) failure;
+        }
+    }
+
+    /**
+     * The loop of the simulation thread of runPipelined().
+     *
+     * @param buffer the buffer to publish frame snapshots into
+     */
+    private void simulate(TripleBuffer<FrameSnapshot> buffer) {
+        try {
+            long stepNanos = NANOS_PER_SECOND / STEPS_PER_SECOND;
+            double accumulator = 0;
+            long previousTime = System.nanoTime();
+            publish(buffer);
+            while (!isOver()) {
+                long now = System.nanoTime();
+                accumulator += (now - previousTime) * this.timeScale;
+                previousTime = now;
+
+                int steps = 0;
+                while (accumulator >= stepNanos && steps < MAX_CATCH_UP_STEPS && !isOver()) {
+                    step();
+                    accumulator -= stepNanos;
+                    steps++;
+                }
+                if (steps == MAX_CATCH_UP_STEPS && accumulator >= stepNanos) {
+                    accumulator = accumulator % stepNanos;
+                }
+                if (steps > 0) {
+                    publish(buffer);
+                }
+                // Wait until the next step is due
+                LockSupport.parkNanos((long) ((stepNanos - accumulator) / this.timeScale));
+            }
+        } catch (RuntimeException | Error e) {
+            // Set before the done flag, so the render thread sees it once it stops
+            this.simulationFailure = e;
+        } finally {
+            this.simulationDone = true;
+        }
+    }
+
+    private void publish(TripleBuffer<FrameSnapshot> buffer) {
+        FrameSnapshot snapshot = buffer.back();
+        snapshot.reset();
+        this.sprites.captureAll(snapshot);
+        buffer.publish();
+    }
+
+    /**
+     * Returns the pacer that holds run() to the display rate, whose jitter histogram tells how
+     * precisely frames were presented.
+     *
+     * @return the frame pacer of the game
+     */
+    public FramePacer getFramePacer() {
+        return this.framePacer;
+    }
+
+    /**
+     * Returns the table the blocks of this game intern their hit listener sets in, so blocks with
+     * the same listeners share one set. Like the game itself, it is only used by the thread that
+     * sets up and steps the game.
+     *
+     * @return the listener table of the game
+     */
+    public ListenerTable getListenerTable() {
+        return this.listenerTable;
+    }
+
+    /**
+     * Returns the profiler timing the phases of the frames of this game. It is disabled until
+     * enabled with FrameProfiler.setEnabled().
+     *
+     * @return the frame profiler of the game
+     */
+    public FrameProfiler getProfiler() {
+        return this.profiler;
+    }
+
+    /**
+     * Adds a listener that is told after every physics step of the game.
+     *
+     * @param listener the listener to add
+     */
+    public void addStepListener(StepListener listener) {
+        this.stepListeners.add(listener);
+    }
+
+    /**
+     * Writes the simulation state of the game between two steps: the counters, the paddle, every
+     * ball spawned and whether it is still in play, the clock of the event scheduler and the brick
+     * walls. Two games of the same level in the same physics mode that write the same values are in
+     * the same state. The sprites and the collision index follow from these and are not written.
+     *
+     * @param out the sink to write to
+     */
+    public void writeState(StateSink out) {
+        out.putInt(this.remainingBlocks.getValue());
+        out.putInt(this.remainingBalls.getValue());
+        out.putInt(this.scoreCounter.getValue());
+        this.paddle.writeState(out);
+        if (this.ballSystem != null) {
+            this.ballSystem.writeState(out);
+        } else {
+            out.putInt(this.balls.size());
+            for (int i = 0; i < this.balls.size(); i++) {
+                Ball ball = this.balls.get(i);
+                out.putInt(ball.isInGame() ? 1 : 0);
+                ball.writeState(out);
+            }
+        }
+        if (this.scheduler != null) {
+            this.scheduler.writeState(out);
+        }
+        for (int i = 0; i < this.blockFields.size(); i++) {
+            this.blockFields.get(i).writeState(out);
+        }
+    }
+
+    /**
+     * Restores a state written by writeState() of this game, or of a game set up the same way.
+     * Balls lost since are put back into play, and the collision index is updated to the restored
+     * paddle and brick walls. In event-driven mode the collisions of every ball are predicted again
+     * from the restored state, so play goes on from it, but not necessarily bit for bit as it went
+     * on the first time.
+     *
+     * @param in the source to read from
+     */
+    public void readState(StateSource in) {
+        restore(this.remainingBlocks, in.getInt());
+        restore(this.remainingBalls, in.getInt());
+        restore(this.scoreCounter, in.getInt());
+        this.paddle.readState(in);
+        if (this.ballSystem != null) {
+            this.ballSystem.readState(in);
+        } else {
+            int count = in.getInt();
+            if (count != this.balls.size()) {
+                throw new IllegalArgumentException("state of a game with " + count + " balls, not "
+                        + this.balls.size());
+            }
+            for (int i = 0; i < count; i++) {
+                Ball ball = this.balls.get(i);
+                boolean inGame = in.getInt() != 0;
+                ball.readState(in);
+                if (inGame && !ball.isInGame()) {
+                    ball.addToGame(this);
+                } else if (!inGame && ball.isInGame()) {
+                    ball.removeFromGame(this);
+                }
             }
         }
-        this.gui.close();
+        if (this.scheduler != null) {
+            this.scheduler.readState(in);
+        }
+        for (int i = 0; i < this.blockFields.size(); i++) {
+            this.blockFields.get(i).readState(in);
+        }
+    }
+
+    private static void restore(Counter counter, int value) {
+        counter.increase(value - counter.getValue());
+    }
+
+    /**
+     * Keeps the last steps of the game in a rewind buffer: every step is captured into it, and
+     * while the input source asks to rewind, each step restores the previous capture instead of
+     * advancing, so holding the rewind key plays the game backwards.
+     *
+     * @param buffer the buffer to capture into, or null to stop capturing
+     */
+    public void setRewindBuffer(SnapshotRing buffer) {
+        this.rewindBuffer = buffer;
+    }
+
+    /**
+     * Advances the game by one physics step of 1/60 of a second of game time: every sprite is told
+     * that time passed, the hit events of the step are dispatched, and the step listeners are told.
+     * While rewinding, see setRewindBuffer(), the step goes back to the previous captured state instead,
+     * and the step listeners are told of that step too.
+     * The run methods call it; drivers that pace the game themselves, such as replays, call it directly.
+     */
+    public void step() {
+        if (this.rewindBuffer != null && this.input.isRewindPressed() && this.rewindBuffer.rewind(this)) {
+            notifyStepListeners();
+            return;
+        }
+        long start = this.profiler.start();
+        this.sprites.notifyAllTimePassed();
+        this.profiler.stop(FrameProfiler.Phase.UPDATE, start);
+        long dispatchStart = this.profiler.start();
+        this.hitEvents.dispatch();
+        this.profiler.stop(FrameProfiler.Phase.LISTENERS, dispatchStart);
+        notifyStepListeners();
+        if (this.rewindBuffer != null) {
+            this.rewindBuffer.capture(this);
+        }
+    }
+
+    private void notifyStepListeners() {
+        for (int i = 0; i < this.stepListeners.size(); i++) {
+            this.stepListeners.get(i).stepCompleted(this);
+        }
+    }
+
+    /**
+     * Returns whether the game is over, because all blocks are destroyed or all balls are lost.
+     *
+     * @return true if the game is over, false otherwise
+     */
+    public boolean isOver() {
+        return this.remainingBlocks.getValue() <= 0 || this.remainingBalls.getValue() <= 0;
+    }
+
+    /**
+     * Simulates the game flat out, without drawing or sleeping, until all blocks are destroyed,
+     * all balls are lost, or the given number of frames has passed.
+     *
+     * @param maxFrames the largest number of frames to simulate
+     * @return the outcome of the game and the simulation speed
+     */
+    public SimulationResult runHeadless(long maxFrames) {
+        long frames = 0;
+        long start = System.nanoTime();
+        while (frames < maxFrames && !isOver()) {
+            step();
+            this.profiler.endFrame();
+            frames++;
+        }
+        long elapsed = System.nanoTime() - start;
+        return new SimulationResult(frames, elapsed, this.scoreCounter.getValue(),
+                this.remainingBlocks.getValue(), this.remainingBalls.getValue());
     }
 }
 
@@ -5,24 +5,84 @@ package arkanoid;
 import geometry.Collidable;
 import geometry.CollisionInfo;
 import geometry.Line;
-import geometry.Point;
+import timing.FrameProfiler;
 
-import java.util.List;
 import java.util.ArrayList;
+import java.util.List;
 
 /**
  * The GameEnvironment class represents the collection of collidable objects
  * within the game. It manages adding collidables and detecting collisions
  * between them and a trajectory line.
+ * Collidables are kept in a collision index (a uniform grid by default, or a dynamic
+ * AABB tree when many collidables move), so a collision query only looks at the
+ * collidables lying along the trajectory.
  */
 public class GameEnvironment {
-    private List<Collidable> collidables;
+    /**
+     * The largest radius of a ball the environment can move, the widest circle its default index
+     * is built to sweep.
+     */
+    public static final int MAX_BALL_RADIUS = 10;
+
+    private static final double DEFAULT_CELL_SIZE = 40;
+
+    private CollisionIndex index;
+    private List<EnvironmentListener> listeners;
+    private CollisionQuery query;
+    private FrameProfiler profiler;
+    private long queryCount;
 
     /**
-     * Constructs a new GameEnvironment with an empty collection of collidables.
+     * Constructs a new GameEnvironment with an empty collection of collidables,
+     * indexed over the default 800x600 playing area.
      */
     public GameEnvironment() {
-        this.collidables = new ArrayList<>();
+        this(800, 600, DEFAULT_CELL_SIZE);
+    }
+
+    /**
+     * Constructs a new GameEnvironment with an empty collection of collidables,
+     * indexed over a playing area of the given size, for balls up to MAX_BALL_RADIUS.
+     *
+     * @param width    the width of the playing area
+     * @param height   the height of the playing area
+     * @param cellSize the side length of a grid cell
+     */
+    public GameEnvironment(double width, double height, double cellSize) {
+        this(new UniformGrid(0, 0, width, height, cellSize, MAX_BALL_RADIUS));
+    }
+
+    /**
+     * Constructs a new GameEnvironment with an empty collection of collidables,
+     * kept in an index of the given type over the default 800x600 playing area.
+     *
+     * @param type the type of the collision index backing the environment
+     */
+    public GameEnvironment(CollisionIndexType type) {
+        this(type == CollisionIndexType.AABB_TREE ? new AabbTree()
+                : new UniformGrid(0, 0, 800, 600, DEFAULT_CELL_SIZE, MAX_BALL_RADIUS));
+    }
+
+    /**
+     * Constructs a new GameEnvironment with an empty collection of collidables,
+     * kept in the given collision index.
+     *
+     * @param index the collision index backing the environment
+     */
+    public GameEnvironment(CollisionIndex index) {
+        this.index = index;
+        this.listeners = new ArrayList<>();
+        this.query = new CollisionQuery();
+    }
+
+    /**
+     * Registers a listener to be told about changes to the collidables in the environment.
+     *
+     * @param l the listener to add
+     */
+    public void addEnvironmentListener(EnvironmentListener l) {
+        this.listeners.add(l);
     }
 
     /**
@@ -31,7 +91,39 @@ public class GameEnvironment {
      * @param c the collidable object to add
      */
     public void addCollidable(Collidable c) {
-        this.collidables.add(c);
+        this.index.add(c);
+        for (int i = 0; i < this.listeners.size(); i++) {
+            this.listeners.get(i).collidableAdded(c);
+        }
+    }
+
+    /**
+     * Notifies the game environment that the collision rectangle of a collidable has changed,
+     * so it can be re-indexed. Must be called by collidables that move.
+     *
+     * @param c the collidable that moved
+     */
+    public void update(Collidable c) {
+        this.index.update(c);
+        for (int i = 0; i < this.listeners.size(); i++) {
+            this.listeners.get(i).collidableMoved(c);
+        }
+    }
+
+    /**
+     * Notifies the game environment that part of a collidable stopped colliding, its collision
+     * rectangle unchanged, so the index is left as it is and only the listeners are told.
+     *
+     * @param c    the collidable that changed
+     * @param minX the left edge of the cleared region
+     * @param minY the top edge of the cleared region
+     * @param maxX the right edge of the cleared region
+     * @param maxY the bottom edge of the cleared region
+     */
+    public void regionCleared(Collidable c, double minX, double minY, double maxX, double maxY) {
+        for (int i = 0; i < this.listeners.size(); i++) {
+            this.listeners.get(i).regionCleared(c, minX, minY, maxX, maxY);
+        }
     }
 
     /**
@@ -43,29 +135,73 @@ public class GameEnvironment {
      *         or null if no collision will occur
      */
     public CollisionInfo getClosestCollision(Line trajectory) {
-        double minDistance = Double.MAX_VALUE;
-        Point closestPoint = null;
-        Collidable closestCollidable = null;
-        List<Collidable> copy = new ArrayList<>(this.collidables);
-
-        // Iterate through all collidables to find the closest collision
-        for (Collidable collidable : copy) {
-            List<Point> intersectionPoints = collidable.getCollisionRectangle().intersectionPoints(trajectory);
-            for (Point point : intersectionPoints) {
-                double distance = trajectory.start().distance(point);
-                if (distance < minDistance) {
-                    minDistance = distance;
-                    closestCollidable = collidable;
-                    closestPoint = point;
-                }
-            }
-        }
+        double x0 = trajectory.start().getX();
+        double y0 = trajectory.start().getY();
+        return getClosestCollision(x0, y0, trajectory.end().getX() - x0, trajectory.end().getY() - y0, 0);
+    }
 
-        // Return CollisionInfo with closest collision point and collidable
-        if (closestCollidable == null) {
-            return null;
+    /**
+     * Finds the first collidable hit by a circle whose center moves from (x0, y0)
+     * to (x0 + dx, y0 + dy) (continuous collision detection).
+     *
+     * @param x0     the x-coordinate of the center at the start of the motion
+     * @param y0     the y-coordinate of the center at the start of the motion
+     * @param dx     the x-component of the motion
+     * @param dy     the y-component of the motion
+     * @param radius the radius of the circle
+     * @return CollisionInfo object describing the contact point, time of impact and contact normal,
+     *         or null if no collision will occur
+     */
+    public CollisionInfo getClosestCollision(double x0, double y0, double dx, double dy, double radius) {
+        long start = this.profiler == null ? 0 : this.profiler.start();
+        this.queryCount++;
+        this.query.reset(x0, y0, dx, dy, radius);
+        this.index.query(this.query);
+        CollisionInfo collision = this.query.toCollisionInfo();
+        if (this.profiler != null) {
+            this.profiler.stop(FrameProfiler.Phase.COLLISION, start);
         }
-        return new CollisionInfo(closestPoint, closestCollidable);
+        return collision;
+    }
+
+    /**
+     * Returns how many times getClosestCollision was called. Queries run through
+     * query(CollisionQuery) are not counted.
+     *
+     * @return the number of collision queries so far
+     */
+    public long getQueryCount() {
+        return this.queryCount;
+    }
+
+    /**
+     * Sets the profiler that times the queries of getClosestCollision. Queries run through
+     * query(CollisionQuery), possibly on several threads, are not timed.
+     *
+     * @param profiler the profiler, or null to time nothing
+     */
+    public void setProfiler(FrameProfiler profiler) {
+        this.profiler = profiler;
+    }
+
+    /**
+     * Answers a swept-circle query owned by the caller. Unlike getClosestCollision, this keeps
+     * no state in the environment, so several threads may run their own queries at once as long
+     * as no collidable is added, moved or removed meanwhile.
+     *
+     * @param q the query to answer, already reset to the motion to test
+     */
+    public void query(CollisionQuery q) {
+        this.index.query(q);
+    }
+
+    /**
+     * Removes every collidable and every listener from the environment, keeping the storage of its
+     * index, so it can hold another level.
+     */
+    public void clear() {
+        this.index.clear();
+        this.listeners.clear();
     }
 
     /**
@@ -74,6 +210,9 @@ public class GameEnvironment {
      * @param c the collidable object to remove
      */
     public void remove(Collidable c) {
-        this.collidables.remove(c);
+        this.index.remove(c);
+        for (int i = 0; i < this.listeners.size(); i++) {
+            this.listeners.get(i).collidableRemoved(c);
+        }
     }
 }
@@ -0,0 +1,37 @@
+package arkanoid;
+
+// 322613720 Stav Reuven
+
+import biuoop.DrawSurface;
+import biuoop.GUI;
+
+/**
+ * The GuiScreen class is a Screen rendering into a biuoop window.
+ */
+public class GuiScreen implements Screen {
+    private GUI gui;
+
+    /**
+     * Constructs a screen rendering into the given window.
+     *
+     * @param gui the window to render into
+     */
+    public GuiScreen(GUI gui) {
+        this.gui = gui;
+    }
+
+    @Override
+    public DrawSurface getDrawSurface() {
+        return this.gui.getDrawSurface();
+    }
+
+    @Override
+    public void show(DrawSurface d) {
+        this.gui.show(d);
+    }
+
+    @Override
+    public void close() {
+        this.gui.close();
+    }
+}
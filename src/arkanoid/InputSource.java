@@ -0,0 +1,34 @@
+package arkanoid;
+
+// 322613720 Stav Reuven
+
+/**
+ * The InputSource interface is where the paddle reads the player's input from.
+ * The game reads a real keyboard through a KeyboardInput, while headless games can be driven
+ * by scripted or simulated players.
+ */
+public interface InputSource {
+    /**
+     * Returns whether the player is asking the paddle to move left.
+     *
+     * @return true if the left input is pressed, false otherwise
+     */
+    boolean isLeftPressed();
+
+    /**
+     * Returns whether the player is asking the paddle to move right.
+     *
+     * @return true if the right input is pressed, false otherwise
+     */
+    boolean isRightPressed();
+
+    /**
+     * Returns whether the player is asking to rewind the game. Sources that cannot rewind keep
+     * the default, which never asks.
+     *
+     * @return true if the rewind input is pressed, false otherwise
+     */
+    default boolean isRewindPressed() {
+        return false;
+    }
+}
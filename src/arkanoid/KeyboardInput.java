@@ -0,0 +1,39 @@
+package arkanoid;
+
+// 322613720 Stav Reuven
+
+import biuoop.KeyboardSensor;
+
+/**
+ * The KeyboardInput class is an InputSource reading the arrow keys of a biuoop keyboard sensor,
+ * and the R key for rewinding.
+ */
+public class KeyboardInput implements InputSource {
+    private static final String REWIND_KEY = "r";
+
+    private KeyboardSensor keyboard;
+
+    /**
+     * Constructs an input source reading the given keyboard sensor.
+     *
+     * @param keyboard the keyboard sensor to read
+     */
+    public KeyboardInput(KeyboardSensor keyboard) {
+        this.keyboard = keyboard;
+    }
+
+    @Override
+    public boolean isLeftPressed() {
+        return this.keyboard.isPressed(KeyboardSensor.LEFT_KEY);
+    }
+
+    @Override
+    public boolean isRightPressed() {
+        return this.keyboard.isPressed(KeyboardSensor.RIGHT_KEY);
+    }
+
+    @Override
+    public boolean isRewindPressed() {
+        return this.keyboard.isPressed(REWIND_KEY);
+    }
+}
@@ -0,0 +1,32 @@
+package arkanoid;
+
+// 322613720 Stav Reuven
+
+/**
+ * The PhysicsMode enum lists the ways a Game can advance its balls.
+ */
+public enum PhysicsMode {
+    /**
+     * Every ball is a sprite that queries the game environment on every frame.
+     */
+    STEPPED,
+
+    /**
+     * Balls move analytically between predicted collisions kept in a priority queue,
+     * and the game environment is only queried when a prediction runs out.
+     */
+    EVENT_DRIVEN,
+
+    /**
+     * Balls are stored as parallel primitive arrays in a single BallSystem sprite,
+     * which steps all of them in one loop.
+     */
+    BALL_SYSTEM,
+
+    /**
+     * Like BALL_SYSTEM, but balls flying freely are moved in parallel on the common fork/join pool.
+     * Collisions are still resolved on the game thread in slot order, so the game plays out exactly
+     * as in BALL_SYSTEM.
+     */
+    PARALLEL_BALL_SYSTEM
+}
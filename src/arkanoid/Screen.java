@@ -0,0 +1,30 @@
+package arkanoid;
+
+// 322613720 Stav Reuven
+
+import biuoop.DrawSurface;
+
+/**
+ * The Screen interface is where a game renders its frames. The game normally renders into a
+ * biuoop window through a GuiScreen; a headless game has no screen and draws nothing.
+ */
+public interface Screen {
+    /**
+     * Returns a surface to draw the next frame on.
+     *
+     * @return the surface for the next frame
+     */
+    DrawSurface getDrawSurface();
+
+    /**
+     * Shows a frame drawn on a surface returned by getDrawSurface().
+     *
+     * @param d the surface holding the frame
+     */
+    void show(DrawSurface d);
+
+    /**
+     * Closes the screen once the game is over.
+     */
+    void close();
+}
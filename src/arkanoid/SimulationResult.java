@@ -0,0 +1,91 @@
+package arkanoid;
+
+// 322613720 Stav Reuven
+
+/**
+ * The SimulationResult class describes how a headless game ended and how fast it was simulated.
+ */
+public class SimulationResult {
+    private final long frames;
+    private final long elapsedNanos;
+    private final int score;
+    private final int remainingBlocks;
+    private final int remainingBalls;
+
+    /**
+     * Constructs a result.
+     *
+     * @param frames          the number of frames simulated
+     * @param elapsedNanos    the wall-clock time the simulation took, in nanoseconds
+     * @param score           the final score
+     * @param remainingBlocks the number of blocks left at the end
+     * @param remainingBalls  the number of balls left at the end
+     */
+    public SimulationResult(long frames, long elapsedNanos, int score, int remainingBlocks, int remainingBalls) {
+        this.frames = frames;
+        this.elapsedNanos = elapsedNanos;
+        this.score = score;
+        this.remainingBlocks = remainingBlocks;
+        this.remainingBalls = remainingBalls;
+    }
+
+    /**
+     * Returns the number of frames simulated.
+     *
+     * @return the number of frames
+     */
+    public long getFrames() {
+        return this.frames;
+    }
+
+    /**
+     * Returns the wall-clock time the simulation took.
+     *
+     * @return the elapsed time in nanoseconds
+     */
+    public long getElapsedNanos() {
+        return this.elapsedNanos;
+    }
+
+    /**
+     * Returns the number of frames simulated per second of wall-clock time.
+     *
+     * @return the simulated frames per second
+     */
+    public double getFramesPerSecond() {
+        return this.elapsedNanos == 0 ? 0 : this.frames * 1e9 / this.elapsedNanos;
+    }
+
+    /**
+     * Returns the final score.
+     *
+     * @return the score
+     */
+    public int getScore() {
+        return this.score;
+    }
+
+    /**
+     * Returns the number of blocks left at the end of the game.
+     *
+     * @return the remaining blocks
+     */
+    public int getRemainingBlocks() {
+        return this.remainingBlocks;
+    }
+
+    /**
+     * Returns the number of balls left at the end of the game.
+     *
+     * @return the remaining balls
+     */
+    public int getRemainingBalls() {
+        return this.remainingBalls;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("frames=%d score=%d blocks=%d balls=%d fps=%.0f",
+                this.frames, this.score, this.remainingBlocks, this.remainingBalls, getFramesPerSecond());
+    }
+}
@@ -15,12 +15,48 @@ public interface Sprite {
      */
     void drawOn(DrawSurface d);
 
+    /**
+     * Draws the sprite between its state before and after the last unit of time.
+     * The game loop steps physics at a fixed rate and renders at its own rate, so a frame is
+     * usually drawn part way between two physics steps. Sprites that move override this to
+     * interpolate their position; by default the current state is drawn.
+     *
+     * @param d     the DrawSurface on which the sprite is drawn
+     * @param alpha how far the frame lies between the previous state (0) and the current one (1)
+     */
+    default void drawOn(DrawSurface d, double alpha) {
+        drawOn(d);
+    }
+
+    /**
+     * Records how the sprite currently looks into a frame snapshot, for a render thread to
+     * draw later. Must record the same shapes drawOn(d) would draw.
+     *
+     * @param snapshot the snapshot of the frame being captured
+     */
+    void capture(FrameSnapshot snapshot);
+
     /**
      * Notifies the sprite that a unit of time has passed.
      * This method is called repeatedly in a game loop to update the sprite's state.
      */
     void timePassed();
 
+    /**
+     * Returns the slot of the sprite in the SpriteCollection holding it, as set by setSpriteSlot().
+     *
+     * @return the slot of the sprite, or -1 if it was never added to a collection
+     */
+    int getSpriteSlot();
+
+    /**
+     * Remembers the slot of the sprite in the SpriteCollection holding it. Only the collection
+     * calls it, so a sprite needs no more than a field to implement it.
+     *
+     * @param slot the slot of the sprite, or -1 once it is removed
+     */
+    void setSpriteSlot(int slot);
+
     /**
      * Adds the sprite to the specified game.
      *
@@ -4,41 +4,65 @@ package arkanoid;
 
 import biuoop.DrawSurface;
 
-import java.util.List;
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
 
 /**
  * The SpriteCollection class represents a collection of sprites.
  * It manages adding sprites, updating their state over time, and drawing them on a DrawSurface.
+ * Every sprite remembers its own slot in the list (see Sprite.setSpriteSlot()), so a sprite is
+ * removed in O(1), with no lookup, by moving the last sprite into its slot. That changes the order
+ * of the moved sprite: sprites are notified and drawn in the order they were added only until one
+ * is removed, after which the last one is drawn in the removed one's place. A sprite belongs to one
+ * collection at a time. Sprites added or removed while the collection notifies its sprites
+ * are buffered and applied once the whole frame has been notified, so the list never has to be
+ * copied to be iterated safely.
  */
 public class SpriteCollection {
     private List<Sprite> sprites;
+    private List<Sprite> pending;
+    private BitSet pendingRemoval;
+    private boolean notifying;
 
     /**
      * Constructs a new SpriteCollection with an empty list of sprites.
      */
     public SpriteCollection() {
         this.sprites = new ArrayList<>();
+        this.pending = new ArrayList<>();
+        this.pendingRemoval = new BitSet();
     }
 
     /**
-     * Adds a sprite to the collection.
+     * Adds a sprite to the collection. A sprite that is already in the collection is not added again.
+     * While the sprites are being notified, the sprite is added at the end of the frame.
      *
      * @param s the sprite to add
      */
     public void addSprite(Sprite s) {
-        this.sprites.add(s);
+        if (this.notifying) {
+            this.pending.add(s);
+            return;
+        }
+        if (!contains(s)) {
+            s.setSpriteSlot(this.sprites.size());
+            this.sprites.add(s);
+        }
     }
 
     /**
      * Notifies all sprites in the collection that a unit of time has passed.
-     * Calls the timePassed() method on each sprite.
+     * Calls the timePassed() method on each sprite, then applies the additions and removals
+     * made meanwhile.
      */
     public void notifyAllTimePassed() {
-        List<Sprite> copy = new ArrayList<>(this.sprites);
-        for (Sprite s : copy) {
-            s.timePassed();
+        this.notifying = true;
+        for (int i = 0; i < this.sprites.size(); i++) {
+            this.sprites.get(i).timePassed();
         }
+        this.notifying = false;
+        applyPending();
     }
 
     /**
@@ -48,17 +72,101 @@ public class SpriteCollection {
      * @param d the DrawSurface on which to draw the sprites
      */
     public void drawAllOn(DrawSurface d) {
-        for (Sprite s : this.sprites) {
-            s.drawOn(d);
+        for (int i = 0; i < this.sprites.size(); i++) {
+            this.sprites.get(i).drawOn(d);
+        }
+    }
+
+    /**
+     * Draws all sprites in the collection on the given DrawSurface, interpolated between
+     * their previous and current states.
+     *
+     * @param d     the DrawSurface on which to draw the sprites
+     * @param alpha how far the frame lies between the previous state (0) and the current one (1)
+     */
+    public void drawAllOn(DrawSurface d, double alpha) {
+        for (int i = 0; i < this.sprites.size(); i++) {
+            this.sprites.get(i).drawOn(d, alpha);
         }
     }
+
+    /**
+     * Records how all sprites in the collection currently look into a frame snapshot.
+     *
+     * @param snapshot the snapshot of the frame being captured
+     */
+    public void captureAll(FrameSnapshot snapshot) {
+        for (int i = 0; i < this.sprites.size(); i++) {
+            this.sprites.get(i).capture(snapshot);
+        }
+    }
+
     /**
-     * Removes a sprite from the collection.
+     * Removes a sprite from the collection by moving the last sprite into its slot.
+     * While the sprites are being notified, the sprite is removed at the end of the frame.
      *
      * @param s the sprite to remove
      */
     public void remove(Sprite s) {
-        this.sprites.remove(s);
+        if (this.notifying) {
+            this.pendingRemoval.set(this.pending.size());
+            this.pending.add(s);
+            return;
+        }
+        if (!contains(s)) {
+            return;
+        }
+        int slot = s.getSpriteSlot();
+        s.setSpriteSlot(-1);
+        Sprite last = this.sprites.remove(this.sprites.size() - 1);
+        if (last != s) {
+            this.sprites.set(slot, last);
+            last.setSpriteSlot(slot);
+        }
+    }
+
+    /**
+     * Removes every sprite from the collection, keeping the storage of its lists.
+     * Must not be called while the sprites are being notified.
+     */
+    public void clear() {
+        for (int i = 0; i < this.sprites.size(); i++) {
+            this.sprites.get(i).setSpriteSlot(-1);
+        }
+        this.sprites.clear();
+        this.pending.clear();
+        this.pendingRemoval.clear();
+    }
+
+    /**
+     * Returns the number of sprites in the collection.
+     *
+     * @return the number of sprites
+     */
+    public int size() {
+        return this.sprites.size();
+    }
+
+    /**
+     * Returns whether a sprite is in the collection, by checking the slot it remembers.
+     */
+    private boolean contains(Sprite s) {
+        int slot = s.getSpriteSlot();
+        return slot >= 0 && slot < this.sprites.size() && this.sprites.get(slot) == s;
     }
-}
 
+    /**
+     * Applies the buffered additions and removals in the order they were made.
+     */
+    private void applyPending() {
+        for (int i = 0; i < this.pending.size(); i++) {
+            if (this.pendingRemoval.get(i)) {
+                remove(this.pending.get(i));
+            } else {
+                addSprite(this.pending.get(i));
+            }
+        }
+        this.pending.clear();
+        this.pendingRemoval.clear();
+    }
+}
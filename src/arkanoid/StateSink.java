@@ -0,0 +1,40 @@
+package arkanoid;
+
+// 322613720 Stav Reuven
+
+import java.awt.Color;
+
+/**
+ * The StateSink interface receives the simulation state of a game as a flat stream of primitive
+ * values, written by Stateful objects. A sink can hash the values, store them, or compare them.
+ */
+public interface StateSink {
+    /**
+     * Receives an int value.
+     *
+     * @param value the value
+     */
+    void putInt(int value);
+
+    /**
+     * Receives a long value.
+     *
+     * @param value the value
+     */
+    void putLong(long value);
+
+    /**
+     * Receives a double value, exactly as stored, including the sign of zero.
+     *
+     * @param value the value
+     */
+    void putDouble(double value);
+
+    /**
+     * Receives a color. The game compares colors by identity, so a sink that is read back must give
+     * back the same Color instance.
+     *
+     * @param color the color
+     */
+    void putColor(Color color);
+}
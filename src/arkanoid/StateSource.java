@@ -0,0 +1,39 @@
+package arkanoid;
+
+// 322613720 Stav Reuven
+
+import java.awt.Color;
+
+/**
+ * The StateSource interface gives back, in the same order, the primitive values a StateSink
+ * received, so Stateful objects can restore the state they wrote.
+ */
+public interface StateSource {
+    /**
+     * Reads the next int value.
+     *
+     * @return the value
+     */
+    int getInt();
+
+    /**
+     * Reads the next long value.
+     *
+     * @return the value
+     */
+    long getLong();
+
+    /**
+     * Reads the next double value.
+     *
+     * @return the value
+     */
+    double getDouble();
+
+    /**
+     * Reads the next color, as the same instance that was written.
+     *
+     * @return the color
+     */
+    Color getColor();
+}
@@ -0,0 +1,26 @@
+package arkanoid;
+
+// 322613720 Stav Reuven
+
+/**
+ * The Stateful interface represents a part of the game whose state changes during play, such as
+ * a ball, the paddle or a brick wall. It can write that state, as primitive values, to a StateSink,
+ * and restore it from a StateSource. Two games that write the same values are in the same state.
+ * Only the state that changes during play is written, so state is restored into the same object,
+ * or an object set up the same way.
+ */
+public interface Stateful {
+    /**
+     * Writes the current state of the object to a sink, always in the same order.
+     *
+     * @param out the sink to write to
+     */
+    void writeState(StateSink out);
+
+    /**
+     * Restores the state written by writeState(), reading the values in the same order.
+     *
+     * @param in the source to read from
+     */
+    void readState(StateSource in);
+}
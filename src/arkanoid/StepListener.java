@@ -0,0 +1,16 @@
+package arkanoid;
+
+// 322613720 Stav Reuven
+
+/**
+ * The StepListener interface represents an object that is told after every physics step of a game.
+ */
+public interface StepListener {
+    /**
+     * Called once a physics step of the game is complete, after the hit events of the step were
+     * dispatched.
+     *
+     * @param game the game that took the step
+     */
+    void stepCompleted(Game game);
+}
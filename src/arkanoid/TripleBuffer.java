@@ -0,0 +1,72 @@
+package arkanoid;
+
+// 322613720 Stav Reuven
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The TripleBuffer class hands the latest of a stream of values from one producer thread to one
+ * consumer thread without locking. The producer fills a back buffer and publishes it, the consumer
+ * takes the most recently published one, and a third buffer in between lets each side swap at any
+ * time: neither thread ever waits for the other, and a value is never changed while it is read.
+ * Values the consumer was too slow to take are skipped.
+ *
+ * @param <T> the type of the buffers
+ */
+public class TripleBuffer<T> {
+    private static final int INDEX_MASK = 3;
+    private static final int FRESH = 4;
+
+    private final Object[] buffers;
+    private final AtomicInteger middle;
+    private int back;
+    private int front;
+
+    /**
+     * Constructs a triple buffer over three distinct buffers.
+     *
+     * @param first  the first buffer, initially written by the producer
+     * @param second the second buffer, initially held between the threads
+     * @param third  the third buffer, initially held by the consumer
+     */
+    public TripleBuffer(T first, T second, T third) {
+        this.buffers = new Object[]{first, second, third};
+        this.back = 0;
+        this.middle = new AtomicInteger(1);
+        this.front = 2;
+    }
+
+    /**
+     * Returns the buffer the producer may write into. Only the producer thread may call this.
+     *
+     * @return the back buffer
+     */
+    @SuppressWarnings("unchecked")
+    public T back() {
+        return (T) this.buffers[this.back];
+    }
+
+    /**
+     * Publishes the back buffer to the consumer and gives the producer a new back buffer.
+     * Only the producer thread may call this.
+     */
+    public void publish() {
+        this.back = this.middle.getAndSet(this.back | FRESH) & INDEX_MASK;
+    }
+
+    /**
+     * Returns the most recently published buffer, or null if nothing was published since the
+     * last call. Only the consumer thread may call this, and it may read the returned buffer
+     * until its next call.
+     *
+     * @return the newly published buffer, or null
+     */
+    @SuppressWarnings("unchecked")
+    public T takeLatest() {
+        if ((this.middle.get() & FRESH) == 0) {
+            return null;
+        }
+        this.front = this.middle.getAndSet(this.front) & INDEX_MASK;
+        return (T) this.buffers[this.front];
+    }
+}
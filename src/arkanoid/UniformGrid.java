@@ -0,0 +1,291 @@
+package arkanoid;
+
+// 322613720 Stav Reuven
+
+import geometry.Collidable;
+import geometry.Rectangle;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The UniformGrid class is a broadphase index that buckets collidables into square cells
+ * covering the playing area. A trajectory query walks only the cells that the trajectory
+ * line passes through (DDA traversal) and stops at the first cell that yields a hit,
+ * so the cost of a query depends on the length of the path and not on the size of the level.
+ * Collidables reaching outside the covered area are clamped into the border cells, and are
+ * also tested directly by trajectories that leave the covered area.
+ * Collidables are bucketed with their rectangle grown by the largest supported sweep radius,
+ * so a swept circle only needs to walk the cells its center passes through.
+ */
+public class UniformGrid implements CollisionIndex {
+    private static final double DEFAULT_MAX_RADIUS = 10;
+
+    private final double originX;
+    private final double originY;
+    private final double cellSize;
+    private final double maxRadius;
+    private final int columns;
+    private final int rows;
+    private final List<List<Collidable>> cells;
+    private final Map<Collidable, Entry> entries;
+    private final List<Collidable> outside;
+
+    /**
+     * Constructs an empty grid covering the given area, supporting sweep radii up to 10.
+     *
+     * @param originX  the x-coordinate of the upper-left corner of the covered area
+     * @param originY  the y-coordinate of the upper-left corner of the covered area
+     * @param width    the width of the covered area
+     * @param height   the height of the covered area
+     * @param cellSize the side length of a single square cell
+     */
+    public UniformGrid(double originX, double originY, double width, double height, double cellSize) {
+        this(originX, originY, width, height, cellSize, DEFAULT_MAX_RADIUS);
+    }
+
+    /**
+     * Constructs an empty grid covering the given area.
+     *
+     * @param originX   the x-coordinate of the upper-left corner of the covered area
+     * @param originY   the y-coordinate of the upper-left corner of the covered area
+     * @param width     the width of the covered area
+     * @param height    the height of the covered area
+     * @param cellSize  the side length of a single square cell
+     * @param maxRadius the largest circle radius that queries may sweep
+     */
+    public UniformGrid(double originX, double originY, double width, double height, double cellSize,
+                       double maxRadius) {
+        this.originX = originX;
+        this.originY = originY;
+        this.cellSize = cellSize;
+        this.maxRadius = maxRadius;
+        this.columns = Math.max(1, (int) Math.ceil(width / cellSize));
+        this.rows = Math.max(1, (int) Math.ceil(height / cellSize));
+        this.cells = new ArrayList<>(this.columns * this.rows);
+        for (int i = 0; i < this.columns * this.rows; i++) {
+            this.cells.add(new ArrayList<>());
+        }
+        this.entries = new IdentityHashMap<>();
+        this.outside = new ArrayList<>();
+    }
+
+    /**
+     * Inserts a collidable into every cell its collision rectangle overlaps.
+     *
+     * @param c the collidable to insert
+     */
+    @Override
+    public void add(Collidable c) {
+        Entry entry = new Entry();
+        this.entries.put(c, entry);
+        bucket(c, entry);
+    }
+
+    /**
+     * Removes a collidable from all the cells that hold it.
+     *
+     * @param c the collidable to remove
+     */
+    @Override
+    public void remove(Collidable c) {
+        Entry entry = this.entries.remove(c);
+        if (entry != null) {
+            unbucket(c, entry);
+        }
+    }
+
+    /**
+     * Re-buckets a collidable whose collision rectangle may have changed since it was inserted.
+     * Nothing is done if the collidable still covers the same cells.
+     *
+     * @param c the collidable that moved
+     */
+    @Override
+    public void update(Collidable c) {
+        Entry entry = this.entries.get(c);
+        if (entry == null) {
+            return;
+        }
+        Rectangle rect = c.getCollisionRectangle();
+        if (column(rect.getMinX() - this.maxRadius) == entry.minColumn
+                && row(rect.getMinY() - this.maxRadius) == entry.minRow
+                && column(rect.getMaxX() + this.maxRadius) == entry.maxColumn
+                && row(rect.getMaxY() + this.maxRadius) == entry.maxRow) {
+            return;
+        }
+        unbucket(c, entry);
+        bucket(c, entry);
+    }
+
+    /**
+     * Empties every cell, keeping the cell lists and their capacity.
+     */
+    @Override
+    public void clear() {
+        for (int i = 0; i < this.cells.size(); i++) {
+            this.cells.get(i).clear();
+        }
+        this.entries.clear();
+        this.outside.clear();
+    }
+
+    /**
+     * Returns the largest circle radius that queries may sweep.
+     *
+     * @return the largest sweep radius
+     */
+    public double getMaxRadius() {
+        return this.maxRadius;
+    }
+
+    /**
+     * Answers a swept-circle query by walking the cells the circle center passes through.
+     * Collidables are only bucketed as far out as the largest sweep radius of the grid, so a wider
+     * circle would miss collidables next to its path.
+     *
+     * @param query the query to answer
+     * @throws IllegalArgumentException if the radius of the query exceeds the largest sweep radius
+     */
+    @Override
+    public void query(CollisionQuery query) {
+        if (query.radius() > this.maxRadius) {
+            throw new IllegalArgumentException("sweep radius " + query.radius()
+                    + " exceeds the largest radius of the grid, " + this.maxRadius);
+        }
+        double x0 = query.startX();
+        double y0 = query.startY();
+        double dx = query.deltaX();
+        double dy = query.deltaY();
+
+        // Clip the trajectory to the covered area (slab method)
+        double enter = 0;
+        double exit = 1;
+        double maxX = this.originX + this.columns * this.cellSize;
+        double maxY = this.originY + this.rows * this.cellSize;
+        if (dx == 0) {
+            if (x0 < this.originX || x0 > maxX) {
+                exit = -1;
+            }
+        } else {
+            double t1 = (this.originX - x0) / dx;
+            double t2 = (maxX - x0) / dx;
+            enter = Math.max(enter, Math.min(t1, t2));
+            exit = Math.min(exit, Math.max(t1, t2));
+        }
+        if (dy == 0) {
+            if (y0 < this.originY || y0 > maxY) {
+                exit = -1;
+            }
+        } else {
+            double t1 = (this.originY - y0) / dy;
+            double t2 = (maxY - y0) / dy;
+            enter = Math.max(enter, Math.min(t1, t2));
+            exit = Math.min(exit, Math.max(t1, t2));
+        }
+        boolean entersGrid = enter <= exit;
+
+        if (!entersGrid || enter > 0 || exit < 1) {
+            // Part of the trajectory lies outside the grid, where only the clamped entries can be hit
+            for (int i = 0; i < this.outside.size(); i++) {
+                query.test(this.outside.get(i));
+            }
+        }
+        if (!entersGrid) {
+            return;
+        }
+
+        int column = column(x0 + dx * enter);
+        int row = row(y0 + dy * enter);
+        int stepColumn = dx > 0 ? 1 : -1;
+        int stepRow = dy > 0 ? 1 : -1;
+        double deltaX = dx == 0 ? Double.MAX_VALUE : Math.abs(this.cellSize / dx);
+        double deltaY = dy == 0 ? Double.MAX_VALUE : Math.abs(this.cellSize / dy);
+        double nextX = dx == 0 ? Double.MAX_VALUE
+                : (this.originX + (column + (dx > 0 ? 1 : 0)) * this.cellSize - x0) / dx;
+        double nextY = dy == 0 ? Double.MAX_VALUE
+                : (this.originY + (row + (dy > 0 ? 1 : 0)) * this.cellSize - y0) / dy;
+
+        while (true) {
+            List<Collidable> cell = this.cells.get(row * this.columns + column);
+            for (int i = 0; i < cell.size(); i++) {
+                query.test(cell.get(i));
+            }
+            // A hit inside the current cell cannot be beaten by anything further along the line
+            double cellExit = Math.min(Math.min(nextX, nextY), exit);
+            if (query.time() <= cellExit) {
+                break;
+            }
+            if (cellExit >= exit) {
+                break;
+            }
+            if (nextX < nextY) {
+                column += stepColumn;
+                nextX += deltaX;
+            } else {
+                row += stepRow;
+                nextY += deltaY;
+            }
+            if (column < 0 || column >= this.columns || row < 0 || row >= this.rows) {
+                break;
+            }
+        }
+    }
+
+    private void bucket(Collidable c, Entry entry) {
+        Rectangle rect = c.getCollisionRectangle();
+        double minX = rect.getMinX() - this.maxRadius;
+        double minY = rect.getMinY() - this.maxRadius;
+        double maxX = rect.getMaxX() + this.maxRadius;
+        double maxY = rect.getMaxY() + this.maxRadius;
+        entry.minColumn = column(minX);
+        entry.minRow = row(minY);
+        entry.maxColumn = column(maxX);
+        entry.maxRow = row(maxY);
+        entry.outside = minX < this.originX || minY < this.originY
+                || maxX > this.originX + this.columns * this.cellSize
+                || maxY > this.originY + this.rows * this.cellSize;
+        if (entry.outside) {
+            this.outside.add(c);
+        }
+        for (int row = entry.minRow; row <= entry.maxRow; row++) {
+            for (int column = entry.minColumn; column <= entry.maxColumn; column++) {
+                this.cells.get(row * this.columns + column).add(c);
+            }
+        }
+    }
+
+    private void unbucket(Collidable c, Entry entry) {
+        if (entry.outside) {
+            this.outside.remove(c);
+        }
+        for (int row = entry.minRow; row <= entry.maxRow; row++) {
+            for (int column = entry.minColumn; column <= entry.maxColumn; column++) {
+                this.cells.get(row * this.columns + column).remove(c);
+            }
+        }
+    }
+
+    private int column(double x) {
+        int column = (int) Math.floor((x - this.originX) / this.cellSize);
+        return Math.max(0, Math.min(this.columns - 1, column));
+    }
+
+    private int row(double y) {
+        int row = (int) Math.floor((y - this.originY) / this.cellSize);
+        return Math.max(0, Math.min(this.rows - 1, row));
+    }
+
+    /**
+     * The range of cells a collidable was bucketed into.
+     */
+    private static class Entry {
+        private int minColumn;
+        private int minRow;
+        private int maxColumn;
+        private int maxRow;
+        private boolean outside;
+    }
+}
@@ -1,8 +1,12 @@
 package geometry;
 // 322613720 Stav Reuven
+import arkanoid.FrameSnapshot;
 import arkanoid.Game;
 import arkanoid.GameEnvironment;
 import arkanoid.Sprite;
+import arkanoid.StateSink;
+import arkanoid.StateSource;
+import arkanoid.Stateful;
 import biuoop.DrawSurface;
 import java.awt.Color;
 
@@ -10,12 +14,19 @@ import java.awt.Color;
  * The Ball class represents a ball with a center point, radius, color, and velocity.
  * It can move, draw itself on a DrawSurface, and detect collisions with a frame.
  */
-public class Ball implements Sprite {
+public class Ball implements Sprite, Stateful {
+    static final int MAX_BOUNCES_PER_STEP = 4;
+
     private final int radius;
-    private Point center;
+    private double x;
+    private double y;
+    private double previousX;
+    private double previousY;
     private Color color;
     private Velocity v;
     private GameEnvironment gameEnvironment;
+    private boolean inGame;
+    private int spriteSlot = -1;
     private double epsilon = 0.001;
 
     /**
@@ -28,7 +39,10 @@ public class Ball implements Sprite {
      */
     public Ball(int radius, Point center, Color color, GameEnvironment gameEnvironment) {
         this.radius = radius;
-        this.center = center;
+        this.x = center.getX();
+        this.y = center.getY();
+        this.previousX = this.x;
+        this.previousY = this.y;
         this.color = color;
         this.gameEnvironment = gameEnvironment;
     }
@@ -41,7 +55,43 @@ public class Ball implements Sprite {
     @Override
     public void drawOn(DrawSurface d) {
         d.setColor(color);
-        d.fillCircle((int) center.getX(), (int) center.getY(), radius);
+        d.fillCircle((int) this.x, (int) this.y, radius);
+    }
+
+    /**
+     * Draws the ball between its position before and after the last step.
+     *
+     * @param d     the DrawSurface to draw on
+     * @param alpha how far the frame lies between the previous position (0) and the current one (1)
+     */
+    @Override
+    public void drawOn(DrawSurface d, double alpha) {
+        d.setColor(color);
+        d.fillCircle((int) (this.previousX + (this.x - this.previousX) * alpha),
+                (int) (this.previousY + (this.y - this.previousY) * alpha), radius);
+    }
+
+    @Override
+    public void capture(FrameSnapshot snapshot) {
+        snapshot.fillCircle((int) this.x, (int) this.y, this.radius, this.color);
+    }
+
+    @Override
+    public void writeState(StateSink out) {
+        out.putDouble(this.x);
+        out.putDouble(this.y);
+        out.putDouble(this.v.getDx());
+        out.putDouble(this.v.getDy());
+        out.putColor(this.color);
+    }
+
+    @Override
+    public void readState(StateSource in) {
+        setCenter(in.getDouble(), in.getDouble());
+        this.previousX = this.x;
+        this.previousY = this.y;
+        this.v = new Velocity(in.getDouble(), in.getDouble());
+        this.color = in.getColor();
     }
 
     /**
@@ -53,6 +103,16 @@ public class Ball implements Sprite {
         moveOneStep();
     }
 
+    @Override
+    public int getSpriteSlot() {
+        return this.spriteSlot;
+    }
+
+    @Override
+    public void setSpriteSlot(int slot) {
+        this.spriteSlot = slot;
+    }
+
     /**
      * Adds the ball to the game by adding it as a sprite.
      *
@@ -60,32 +120,45 @@ public class Ball implements Sprite {
      */
     @Override
     public void addToGame(Game g) {
-        g.addSprite(this);
+        this.inGame = true;
+        g.addBall(this);
     }
 
     /**
      * Moves the ball one step according to its current velocity.
-     * Handles collisions with collidable objects in the game environment.
-     * Adjusts position and velocity of the ball after collision.
+     * The whole circle is swept along the step (continuous collision detection), so a fast ball
+     * cannot tunnel through thin blocks or corners. On a collision the ball is moved to the time
+     * of impact, bounces, and keeps moving for the rest of the step, possibly bouncing again,
+     * unless the hit removed it from the game.
      */
     public void moveOneStep() {
-        Point end = new Point(this.center.getX() + this.v.getDx(), this.center.getY() + this.v.getDy());
-        Line trajectory = new Line(this.center, end);
+        beginStep();
+        double remaining = 1;
+        for (int bounce = 0; bounce < MAX_BOUNCES_PER_STEP && remaining > 0; bounce++) {
+            double dx = this.v.getDx() * remaining;
+            double dy = this.v.getDy() * remaining;
 
-        // Check for collisions with the game environment
-        CollisionInfo collisionInfo = this.gameEnvironment.getClosestCollision(trajectory);
-        if (collisionInfo == null) {
-            this.center = this.v.applyToPoint(this.center);
-        } else {
-            Point collisionPoint = collisionInfo.collisionPoint();
-            Collidable collidable = collisionInfo.collisionObject();
+            // Check for collisions with the game environment
+            CollisionInfo collisionInfo = this.gameEnvironment.getClosestCollision(this.x, this.y, dx, dy,
+                    this.radius);
+            if (collisionInfo == null) {
+                this.x += dx;
+                this.y += dy;
+                return;
+            }
+            double time = collisionInfo.time();
 
-            // Adjust position slightly before the collision point to avoid sticking
-            this.center = new Point(collisionPoint.getX() - this.v.getDx() * epsilon,
-                    collisionPoint.getY() - this.v.getDy() * epsilon);
+            // Move to the time of impact, slightly off the surface to avoid sticking
+            this.x += dx * time + collisionInfo.normalX() * epsilon;
+            this.y += dy * time + collisionInfo.normalY() * epsilon;
 
             // Handle the collision and update the velocity
-            this.v = collidable.hit(this, collisionPoint, this.v);
+            this.v = collisionInfo.collisionObject().hit(this, collisionInfo, this.v);
+            if (!this.inGame) {
+                // Removed by the hit, for example by the death region: the ball moves no further
+                return;
+            }
+            remaining *= 1 - time;
         }
     }
 
@@ -98,6 +171,53 @@ public class Ball implements Sprite {
         this.v = v;
     }
 
+    /**
+     * Returns the velocity of the ball.
+     *
+     * @return the current velocity of the ball
+     */
+    public Velocity getVelocity() {
+        return this.v;
+    }
+
+    /**
+     * Returns the center point of the ball.
+     *
+     * @return the center point of the ball
+     */
+    public Point getCenter() {
+        return new Point(this.x, this.y);
+    }
+
+    /**
+     * Moves the center of the ball to the given point, without checking for collisions.
+     *
+     * @param center the new center point
+     */
+    public void setCenter(Point center) {
+        setCenter(center.getX(), center.getY());
+    }
+
+    /**
+     * Moves the center of the ball to the given coordinates, without checking for collisions.
+     *
+     * @param centerX the x-coordinate of the new center
+     * @param centerY the y-coordinate of the new center
+     */
+    public void setCenter(double centerX, double centerY) {
+        this.x = centerX;
+        this.y = centerY;
+    }
+
+    /**
+     * Remembers the current position as the start of a step, so frames drawn during the step
+     * are interpolated from it. Called by moveOneStep(), and by engines that move balls themselves.
+     */
+    public void beginStep() {
+        this.previousX = this.x;
+        this.previousY = this.y;
+    }
+
     /**
      * Returns the size (radius) of the ball.
      *
@@ -131,7 +251,17 @@ public class Ball implements Sprite {
      * @param g the game to remove the ball from
      */
     public void removeFromGame(Game g) {
-        g.removeSprite(this);
+        this.inGame = false;
+        g.removeBall(this);
+    }
+
+    /**
+     * Returns whether the ball was added to a game and has not been removed from it since.
+     *
+     * @return true if the ball is in a game, false otherwise
+     */
+    public boolean isInGame() {
+        return this.inGame;
     }
 }
 
@@ -0,0 +1,490 @@
+package geometry;
+// 322613720 Stav Reuven
+import arkanoid.CollisionQuery;
+import arkanoid.FrameSnapshot;
+import arkanoid.Game;
+import arkanoid.GameEnvironment;
+import arkanoid.Sprite;
+import arkanoid.StateSink;
+import arkanoid.StateSource;
+import arkanoid.Stateful;
+import biuoop.DrawSurface;
+
+import java.awt.Color;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * The BallSystem class stores many balls as a structure of arrays: positions, velocities, radii
+ * and colour indices live in parallel primitive arrays instead of one object per ball.
+ * All the balls are moved in one tight loop by stepAll(), with the same swept collision handling
+ * as Ball.moveOneStep(), and the whole system is a single sprite of the game.
+ * Collidables and hit listeners still see a Ball: a single cursor ball is bound to the slot being
+ * resolved. Removing it (for example by a BallRemover) marks the slot, and at the end of the step
+ * every marked slot is removed in O(1) by moving the last ball into it.
+ * Balls are always resolved in slot order, which makes a parallel step give exactly the same
+ * result as a serial one: with a ForkJoinPool set, balls are first moved in chunks on the pool
+ * against the unchanged environment, and only the balls that hit something are set aside in
+ * per-chunk buffers. Those are then resolved on the calling thread in slot order, with fresh
+ * queries, so hit listeners run on one thread and see the same world a serial step would.
+ * This relies on hits only ever removing collidables: a ball that misses everything in the
+ * unchanged environment would miss in the serial order too.
+ * Resolving a hit allocates nothing of its own: the velocity handed to the collidable, and the
+ * velocity and center the cursor returns, are scratch objects reused from hit to hit.
+ */
+public class BallSystem implements Sprite, Stateful {
+    private static final int INITIAL_CAPACITY = 64;
+    private static final double EPSILON = 0.001;
+    private static final int CHUNK_SIZE = 2048;
+
+    private final GameEnvironment gameEnvironment;
+    private final List<Color> palette;
+    private final Map<Color, Integer> paletteIndices;
+    private final Velocity velocity;
+    private final Cursor cursor;
+    private double[] x;
+    private double[] y;
+    private double[] dx;
+    private double[] dy;
+    private int[] radius;
+    private int[] colorIndex;
+    private int size;
+    private boolean cursorRemoved;
+    private int[] removed;
+    private int removedCount;
+    private ForkJoinPool pool;
+    private Chunk[] chunks;
+    private int spriteSlot = -1;
+
+    /**
+     * Constructs an empty ball system whose balls collide with the given game environment.
+     *
+     * @param gameEnvironment the game environment containing collidables
+     */
+    public BallSystem(GameEnvironment gameEnvironment) {
+        this.gameEnvironment = gameEnvironment;
+        this.palette = new ArrayList<>();
+        this.paletteIndices = new HashMap<>();
+        this.velocity = new Velocity(0, 0);
+        this.cursor = new Cursor(gameEnvironment);
+        this.x = new double[INITIAL_CAPACITY];
+        this.y = new double[INITIAL_CAPACITY];
+        this.dx = new double[INITIAL_CAPACITY];
+        this.dy = new double[INITIAL_CAPACITY];
+        this.radius = new int[INITIAL_CAPACITY];
+        this.colorIndex = new int[INITIAL_CAPACITY];
+        this.removed = new int[INITIAL_CAPACITY];
+        this.chunks = new Chunk[0];
+    }
+
+    /**
+     * Sets the pool used to step the balls in parallel, or null to step them on the game thread.
+     *
+     * @param pool the fork/join pool to step on, or null
+     */
+    public void setPool(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Adds a ball to the system.
+     *
+     * @param centerX the x-coordinate of the ball center
+     * @param centerY the y-coordinate of the ball center
+     * @param v       the velocity of the ball
+     * @param r       the radius of the ball
+     * @param color   the color of the ball
+     */
+    public void add(double centerX, double centerY, Velocity v, int r, Color color) {
+        ensureCapacity(this.size + 1);
+        int slot = this.size++;
+        this.x[slot] = centerX;
+        this.y[slot] = centerY;
+        this.dx[slot] = v.getDx();
+        this.dy[slot] = v.getDy();
+        this.radius[slot] = r;
+        this.colorIndex[slot] = colorIndex(color);
+    }
+
+    private void ensureCapacity(int count) {
+        if (count > this.x.length) {
+            int capacity = Math.max(count, this.x.length * 2);
+            this.x = Arrays.copyOf(this.x, capacity);
+            this.y = Arrays.copyOf(this.y, capacity);
+            this.dx = Arrays.copyOf(this.dx, capacity);
+            this.dy = Arrays.copyOf(this.dy, capacity);
+            this.radius = Arrays.copyOf(this.radius, capacity);
+            this.colorIndex = Arrays.copyOf(this.colorIndex, capacity);
+        }
+    }
+
+    /**
+     * Adds the state of a ball object to the system.
+     *
+     * @param ball the ball to copy
+     */
+    public void add(Ball ball) {
+        add(ball.getCenter().getX(), ball.getCenter().getY(), ball.getVelocity(), ball.getSize(), ball.getColor());
+    }
+
+    /**
+     * Removes the ball in the given slot by moving the last ball into it.
+     *
+     * @param slot the slot of the ball to remove
+     */
+    public void remove(int slot) {
+        int last = --this.size;
+        this.x[slot] = this.x[last];
+        this.y[slot] = this.y[last];
+        this.dx[slot] = this.dx[last];
+        this.dy[slot] = this.dy[last];
+        this.radius[slot] = this.radius[last];
+        this.colorIndex[slot] = this.colorIndex[last];
+    }
+
+    /**
+     * Returns the number of balls in the system.
+     *
+     * @return the number of balls
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Returns the x-coordinate of the center of the ball in a slot.
+     *
+     * @param slot the slot of the ball, below size()
+     * @return the x-coordinate of the ball center
+     */
+    public double getX(int slot) {
+        return this.x[slot];
+    }
+
+    /**
+     * Returns the y-coordinate of the center of the ball in a slot.
+     *
+     * @param slot the slot of the ball, below size()
+     * @return the y-coordinate of the ball center
+     */
+    public double getY(int slot) {
+        return this.y[slot];
+    }
+
+    /**
+     * Moves every ball one step according to its velocity, resolving collisions on the way.
+     */
+    public void stepAll() {
+        for (int slot = 0; slot < this.size; slot++) {
+            if (step(slot)) {
+                markRemoved(slot);
+            }
+        }
+        removeMarked();
+    }
+
+    /**
+     * Moves every ball one step on the given pool. The result is identical to stepAll().
+     *
+     * @param forkJoinPool the pool to run the free-flight phase on
+     */
+    public void stepAllParallel(ForkJoinPool forkJoinPool) {
+        int chunkCount = (this.size + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        if (this.chunks.length < chunkCount) {
+            Chunk[] grown = Arrays.copyOf(this.chunks, chunkCount);
+            for (int i = this.chunks.length; i < chunkCount; i++) {
+                grown[i] = new Chunk();
+            }
+            this.chunks = grown;
+        }
+        forkJoinPool.invoke(new FlightTask(0, chunkCount));
+
+        // Resolve the set aside balls in slot order, exactly as a serial step would
+        for (int c = 0; c < chunkCount; c++) {
+            Chunk chunk = this.chunks[c];
+            for (int i = 0; i < chunk.pendingCount; i++) {
+                int slot = chunk.pending[i];
+                if (step(slot)) {
+                    markRemoved(slot);
+                }
+            }
+        }
+        removeMarked();
+    }
+
+    /**
+     * Moves the balls of one chunk whose whole step is free of collisions, and sets aside the others.
+     * Only reads the environment and writes the slots of the chunk.
+     *
+     * @param chunkIndex the index of the chunk
+     */
+    private void fly(int chunkIndex) {
+        Chunk chunk = this.chunks[chunkIndex];
+        chunk.pendingCount = 0;
+        int end = Math.min(this.size, (chunkIndex + 1) * CHUNK_SIZE);
+        for (int slot = chunkIndex * CHUNK_SIZE; slot < end; slot++) {
+            chunk.query.reset(this.x[slot], this.y[slot], this.dx[slot], this.dy[slot], this.radius[slot]);
+            this.gameEnvironment.query(chunk.query);
+            if (chunk.query.found()) {
+                chunk.add(slot);
+            } else {
+                this.x[slot] += this.dx[slot];
+                this.y[slot] += this.dy[slot];
+            }
+        }
+    }
+
+    private void markRemoved(int slot) {
+        if (this.removedCount == this.removed.length) {
+            this.removed = Arrays.copyOf(this.removed, this.removedCount * 2);
+        }
+        this.removed[this.removedCount++] = slot;
+    }
+
+    /**
+     * Removes the marked slots, from the highest to the lowest, so every slot moved into a removed
+     * one holds a live ball.
+     */
+    private void removeMarked() {
+        for (int i = this.removedCount - 1; i >= 0; i--) {
+            remove(this.removed[i]);
+        }
+        this.removedCount = 0;
+    }
+
+    /**
+     * Moves the ball in the given slot one step, sweeping its circle against the game environment.
+     *
+     * @param slot the slot of the ball to move
+     * @return true if the ball was removed from the game while resolving a collision
+     */
+    private boolean step(int slot) {
+        double remaining = 1;
+        for (int bounce = 0; bounce < Ball.MAX_BOUNCES_PER_STEP && remaining > 0; bounce++) {
+            double stepX = this.dx[slot] * remaining;
+            double stepY = this.dy[slot] * remaining;
+            CollisionInfo collisionInfo = this.gameEnvironment.getClosestCollision(this.x[slot], this.y[slot],
+                    stepX, stepY, this.radius[slot]);
+            if (collisionInfo == null) {
+                this.x[slot] += stepX;
+                this.y[slot] += stepY;
+                return false;
+            }
+            double time = collisionInfo.time();
+            this.x[slot] += stepX * time + collisionInfo.normalX() * EPSILON;
+            this.y[slot] += stepY * time + collisionInfo.normalY() * EPSILON;
+
+            this.cursor.slot = slot;
+            this.cursorRemoved = false;
+            this.velocity.setDx(this.dx[slot]);
+            this.velocity.setDy(this.dy[slot]);
+            Velocity v = collisionInfo.collisionObject().hit(this.cursor, collisionInfo, this.velocity);
+            if (this.cursorRemoved) {
+                return true;
+            }
+            this.dx[slot] = v.getDx();
+            this.dy[slot] = v.getDy();
+            remaining *= 1 - time;
+        }
+        return false;
+    }
+
+    @Override
+    public void drawOn(DrawSurface d) {
+        int currentColor = -1;
+        for (int slot = 0; slot < this.size; slot++) {
+            if (this.colorIndex[slot] != currentColor) {
+                currentColor = this.colorIndex[slot];
+                d.setColor(this.palette.get(currentColor));
+            }
+            d.fillCircle((int) this.x[slot], (int) this.y[slot], this.radius[slot]);
+        }
+    }
+
+    @Override
+    public void capture(FrameSnapshot snapshot) {
+        for (int slot = 0; slot < this.size; slot++) {
+            snapshot.fillCircle((int) this.x[slot], (int) this.y[slot], this.radius[slot],
+                    this.palette.get(this.colorIndex[slot]));
+        }
+    }
+
+    @Override
+    public void timePassed() {
+        if (this.pool != null) {
+            stepAllParallel(this.pool);
+        } else {
+            stepAll();
+        }
+    }
+
+    @Override
+    public int getSpriteSlot() {
+        return this.spriteSlot;
+    }
+
+    @Override
+    public void setSpriteSlot(int slot) {
+        this.spriteSlot = slot;
+    }
+
+    @Override
+    public void addToGame(Game g) {
+        g.addSprite(this);
+    }
+
+    @Override
+    public void writeState(StateSink out) {
+        out.putInt(this.size);
+        for (int slot = 0; slot < this.size; slot++) {
+            out.putDouble(this.x[slot]);
+            out.putDouble(this.y[slot]);
+            out.putDouble(this.dx[slot]);
+            out.putDouble(this.dy[slot]);
+            out.putInt(this.radius[slot]);
+            out.putColor(this.palette.get(this.colorIndex[slot]));
+        }
+    }
+
+    @Override
+    public void readState(StateSource in) {
+        this.size = 0;
+        int count = in.getInt();
+        ensureCapacity(count);
+        for (int slot = 0; slot < count; slot++) {
+            this.x[slot] = in.getDouble();
+            this.y[slot] = in.getDouble();
+            this.dx[slot] = in.getDouble();
+            this.dy[slot] = in.getDouble();
+            this.radius[slot] = in.getInt();
+            this.colorIndex[slot] = colorIndex(in.getColor());
+        }
+        this.size = count;
+    }
+
+    private int colorIndex(Color color) {
+        Integer index = this.paletteIndices.get(color);
+        if (index == null) {
+            index = this.palette.size();
+            this.palette.add(color);
+            this.paletteIndices.put(color, index);
+        }
+        return index;
+    }
+
+    /**
+     * The ball handed to collidables and hit listeners, bound to the slot being resolved.
+     * Its velocity and center are scratch objects, refreshed from the slot on every call and only
+     * valid until the next one.
+     */
+    private final class Cursor extends Ball {
+        private final Velocity velocity = new Velocity(0, 0);
+        private final Point center = new Point(0, 0);
+        private int slot;
+
+        Cursor(GameEnvironment gameEnvironment) {
+            super(0, new Point(0, 0), Color.BLACK, gameEnvironment);
+        }
+
+        @Override
+        public Velocity getVelocity() {
+            this.velocity.setDx(dx[this.slot]);
+            this.velocity.setDy(dy[this.slot]);
+            return this.velocity;
+        }
+
+        @Override
+        public void setVelocity(Velocity v) {
+            dx[this.slot] = v.getDx();
+            dy[this.slot] = v.getDy();
+        }
+
+        @Override
+        public Point getCenter() {
+            this.center.setX(x[this.slot]);
+            this.center.setY(y[this.slot]);
+            return this.center;
+        }
+
+        @Override
+        public void setCenter(Point center) {
+            setCenter(center.getX(), center.getY());
+        }
+
+        @Override
+        public void setCenter(double centerX, double centerY) {
+            x[this.slot] = centerX;
+            y[this.slot] = centerY;
+        }
+
+        @Override
+        public int getSize() {
+            return radius[this.slot];
+        }
+
+        @Override
+        public Color getColor() {
+            return palette.get(colorIndex[this.slot]);
+        }
+
+        @Override
+        public void setColor(Color color) {
+            colorIndex[this.slot] = colorIndex(color);
+        }
+
+        @Override
+        public void removeFromGame(Game g) {
+            cursorRemoved = true;
+        }
+
+        @Override
+        public boolean isInGame() {
+            return !cursorRemoved;
+        }
+    }
+
+    /**
+     * The scratch state of one chunk of slots during a parallel step.
+     */
+    private static final class Chunk {
+        private final CollisionQuery query = new CollisionQuery();
+        private int[] pending = new int[CHUNK_SIZE];
+        private int pendingCount;
+
+        void add(int slot) {
+            this.pending[this.pendingCount++] = slot;
+        }
+    }
+
+    /**
+     * Runs the free-flight phase over a range of chunks, splitting it across the pool.
+     */
+    private final class FlightTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int from;
+        private final int to;
+
+        FlightTask(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (this.to - this.from <= 1) {
+                for (int c = this.from; c < this.to; c++) {
+                    fly(c);
+                }
+                return;
+            }
+            int middle = (this.from + this.to) >>> 1;
+            invokeAll(new FlightTask(this.from, middle), new FlightTask(middle, this.to));
+        }
+    }
+}
@@ -1,14 +1,15 @@
 package geometry;
 // 322613720 Stav Reuven
+import arkanoid.FrameSnapshot;
 import arkanoid.Game;
 import arkanoid.Sprite;
 import biuoop.DrawSurface;
 import listener.HitListener;
 import listener.HitNotifier;
+import listener.ListenerSet;
+import listener.ListenerTable;
 
 import java.awt.Color;
-import java.util.ArrayList;
-import java.util.List;
 
 /**
  * The Block class represents a block in a game. It implements both the Collidable and Sprite interfaces.
@@ -18,7 +19,10 @@ import java.util.List;
 public class Block implements Collidable, Sprite, HitNotifier {
     private Rectangle rectangle;
     private Color color;
-    private List<HitListener> hitListeners;
+    private ListenerSet hitListeners;
+    private ListenerTable listenerTable;
+    private boolean inGame;
+    private int spriteSlot = -1;
 
     /**
      * Constructs a block with the specified rectangle shape and color.
@@ -29,7 +33,7 @@ public class Block implements Collidable, Sprite, HitNotifier {
     public Block(Rectangle rectangle, Color color) {
         this.rectangle = rectangle;
         this.color = color;
-        this.hitListeners = new ArrayList<>();
+        this.hitListeners = ListenerSet.empty();
     }
 
     /**
@@ -56,26 +60,26 @@ public class Block implements Collidable, Sprite, HitNotifier {
     }
 
     @Override
-    public Velocity hit(Ball hitter, Point collisionPoint, Velocity currentVelocity) {
+    public Velocity hit(Ball hitter, CollisionInfo collision, Velocity currentVelocity) {
         if (!ballColorMatch(hitter) && this.color != Color.LIGHT_GRAY) {
             this.notifyHit(hitter);
             hitter.setColor(this.color);
         }
-        if (collisionPoint.getX() == rectangle.getLowerLeft().getX()
-                || collisionPoint.getX() == rectangle.getUpperRight().getX()) {
-            return new Velocity(-currentVelocity.getDx(), currentVelocity.getDy());
+        double normalX = collision.normalX();
+        double normalY = collision.normalY();
+        if (normalX == 0 && normalY == 0) {
+            return new Velocity(-currentVelocity.getDx(), -currentVelocity.getDy());
         }
-        if (collisionPoint.getY() == rectangle.getUpperLeft().getY()
-                || collisionPoint.getY() == rectangle.getLowerRight().getY()) {
-            return new Velocity(currentVelocity.getDx(), -currentVelocity.getDy());
-        }
-        return new Velocity(-currentVelocity.getDx(), -currentVelocity.getDy());
+        // Reflect the velocity about the contact normal
+        double dot = currentVelocity.getDx() * normalX + currentVelocity.getDy() * normalY;
+        return new Velocity(currentVelocity.getDx() - 2 * dot * normalX,
+                currentVelocity.getDy() - 2 * dot * normalY);
     }
 
     @Override
     public void drawOn(DrawSurface d) {
-        int x = (int) this.rectangle.getUpperLeft().getX();
-        int y = (int) this.rectangle.getUpperLeft().getY();
+        int x = (int) this.rectangle.getMinX();
+        int y = (int) this.rectangle.getMinY();
         int width = (int) this.rectangle.getWidth() - 1;
         int height = (int) this.rectangle.getHeight() - 1;
 
@@ -85,13 +89,36 @@ public class Block implements Collidable, Sprite, HitNotifier {
         d.fillRectangle(x, y, width, height);
     }
 
+    @Override
+    public void capture(FrameSnapshot snapshot) {
+        int x = (int) this.rectangle.getMinX();
+        int y = (int) this.rectangle.getMinY();
+        int width = (int) this.rectangle.getWidth() - 1;
+        int height = (int) this.rectangle.getHeight() - 1;
+        snapshot.drawRectangle(x, y, width, height, Color.BLACK);
+        snapshot.fillRectangle(x, y, width, height, this.color);
+    }
+
     @Override
     public void timePassed() {
         // Block does not change over time in this implementation
     }
 
+    @Override
+    public int getSpriteSlot() {
+        return this.spriteSlot;
+    }
+
+    @Override
+    public void setSpriteSlot(int slot) {
+        this.spriteSlot = slot;
+    }
+
     @Override
     public void addToGame(Game g) {
+        this.listenerTable = g.getListenerTable();
+        this.hitListeners = this.listenerTable.intern(this.hitListeners);
+        this.inGame = true;
         g.addSprite(this);
         g.addCollidable(this);
     }
@@ -112,18 +139,32 @@ public class Block implements Collidable, Sprite, HitNotifier {
      * @param g the game to remove the block from
      */
     public void removeFromGame(Game g) {
+        this.inGame = false;
         g.removeCollidable(this);
         g.removeSprite(this);
     }
 
+    /**
+     * Returns whether the block was added to a game and has not been removed from it since.
+     *
+     * @return true if the block is in a game, false otherwise
+     */
+    public boolean isInGame() {
+        return this.inGame;
+    }
+
     @Override
     public void addHitListener(HitListener hl) {
-        this.hitListeners.add(hl);
+        this.hitListeners = intern(this.hitListeners.with(hl));
     }
 
     @Override
     public void removeHitListener(HitListener hl) {
-        this.hitListeners.remove(hl);
+        this.hitListeners = intern(this.hitListeners.without(hl));
+    }
+
+    private ListenerSet intern(ListenerSet set) {
+        return this.listenerTable == null ? set : this.listenerTable.intern(set);
     }
 
     /**
@@ -132,12 +173,8 @@ public class Block implements Collidable, Sprite, HitNotifier {
      * @param hitter the ball that hit the block
      */
     private void notifyHit(Ball hitter) {
-        // Make a copy of the hitListeners before iterating over them.
-        List<HitListener> listeners = new ArrayList<>(this.hitListeners);
-        // Notify all listeners about a hit event:
-        for (HitListener hl : listeners) {
-            hl.hitEvent(this, hitter);
-        }
+        // The set is immutable, so listeners added or removed meanwhile wait for the next hit
+        this.hitListeners.notifyHit(this, hitter);
     }
 }
 
@@ -0,0 +1,546 @@
+package geometry;
+// 322613720 Stav Reuven
+import arkanoid.FrameSnapshot;
+import arkanoid.Game;
+import arkanoid.Sprite;
+import arkanoid.StateSink;
+import arkanoid.StateSource;
+import arkanoid.Stateful;
+import biuoop.DrawSurface;
+import listener.HitEventBus;
+import listener.HitListener;
+import listener.HitNotifier;
+import listener.ListenerSet;
+import listener.ListenerTable;
+
+import java.awt.Color;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * The BlockField class is a whole regular grid of blocks stored as a tile map. Instead of one
+ * Block object per brick, every cell keeps a colour index and a number of hit points in compact
+ * arrays, and a bitset records which cells still hold a block. The field is a single collidable
+ * and a single sprite, so the game environment and the sprite collection see one object however
+ * many bricks it holds.
+ * A swept circle is tested only against the live cells near the cells its center passes through,
+ * found by walking the grid along the motion, and removing a brick only clears its bit.
+ * Hits are published to the hit event bus of the game, as BRICK_HIT while the brick has hit points
+ * left and BRICK_DESTROYED when it loses its last one. From then on the brick no longer collides,
+ * and it is removed from the field when a subscriber removes it at the end of the step.
+ * Hit listeners registered on the field itself are still called at once when a brick is destroyed.
+ * Both receive a Block: a single view block is bound to the cell being hit, and removing that view
+ * from the game removes the cell.
+ */
+public class BlockField implements Collidable, Sprite, HitNotifier, Stateful {
+    private static final double EPSILON = 0.001;
+
+    private final double originX;
+    private final double originY;
+    private final double cellWidth;
+    private final double cellHeight;
+    private final int columns;
+    private final int rows;
+    private final Rectangle bounds;
+    private final byte[] colorIndex;
+    private final byte[] hitPoints;
+    private final BitSet alive;
+    private final List<Color> palette;
+    private ListenerSet hitListeners;
+    private ListenerTable listenerTable;
+    private final CellView view;
+    private Game game;
+    private HitEventBus events;
+    private int liveCount;
+    private int spriteSlot = -1;
+
+    /**
+     * Constructs an empty field of cells.
+     *
+     * @param originX    the x-coordinate of the upper-left corner of the field
+     * @param originY    the y-coordinate of the upper-left corner of the field
+     * @param cellWidth  the width of a single cell
+     * @param cellHeight the height of a single cell
+     * @param columns    the number of columns
+     * @param rows       the number of rows
+     */
+    public BlockField(double originX, double originY, double cellWidth, double cellHeight, int columns, int rows) {
+        this.originX = originX;
+        this.originY = originY;
+        this.cellWidth = cellWidth;
+        this.cellHeight = cellHeight;
+        this.columns = columns;
+        this.rows = rows;
+        this.bounds = new Rectangle(originX, originY, columns * cellWidth, rows * cellHeight);
+        this.colorIndex = new byte[columns * rows];
+        this.hitPoints = new byte[columns * rows];
+        this.alive = new BitSet(columns * rows);
+        this.palette = new ArrayList<>();
+        this.hitListeners = ListenerSet.empty();
+        this.view = new CellView();
+    }
+
+    /**
+     * Places a block in a cell, replacing whatever the cell held before.
+     *
+     * @param column    the column of the cell
+     * @param row       the row of the cell
+     * @param color     the color of the block, one of at most 256 distinct colors in the field
+     * @param hitPoints the number of hits the block takes before it is reported as hit, 1 to 127
+     */
+    public void setCell(int column, int row, Color color, int hitPoints) {
+        if (hitPoints < 1 || hitPoints > Byte.MAX_VALUE) {
+            throw new IllegalArgumentException("hit points out of range: " + hitPoints);
+        }
+        int cell = row * this.columns + column;
+        this.colorIndex[cell] = (byte) colorIndex(color);
+        this.hitPoints[cell] = (byte) hitPoints;
+        if (!this.alive.get(cell)) {
+            this.alive.set(cell);
+            this.liveCount++;
+        }
+    }
+
+    /**
+     * Replaces the contents of the whole field at once with packed cell data, such as a compiled
+     * level image. The data is copied in bulk, so no cell is looked at on its own. Call it before
+     * the field is added to a game.
+     *
+     * @param colors       the palette the color indices refer to, at most 256 colors
+     * @param colorIndices the palette index of every cell, row by row, as unsigned bytes
+     * @param hitPoints    the hit points of every cell, row by row
+     * @param aliveBits    the live cells as a bit set, in the little-endian layout of BitSet.valueOf()
+     * @param liveCount    the number of live cells
+     */
+    public void load(List<Color> colors, ByteBuffer colorIndices, ByteBuffer hitPoints, ByteBuffer aliveBits,
+                     int liveCount) {
+        int cells = this.columns * this.rows;
+        if (colors.size() > 256 || colorIndices.remaining() != cells || hitPoints.remaining() != cells) {
+            throw new IllegalArgumentException("cell data does not fit a " + this.columns + "x" + this.rows + " field");
+        }
+        this.palette.clear();
+        this.palette.addAll(colors);
+        colorIndices.duplicate().get(this.colorIndex);
+        hitPoints.duplicate().get(this.hitPoints);
+        this.alive.clear();
+        this.alive.or(BitSet.valueOf(aliveBits));
+        this.liveCount = liveCount;
+    }
+
+    /**
+     * Places a block that breaks on the first hit in a cell.
+     *
+     * @param column the column of the cell
+     * @param row    the row of the cell
+     * @param color  the color of the block
+     */
+    public void setCell(int column, int row, Color color) {
+        setCell(column, row, color, 1);
+    }
+
+    /**
+     * Empties a cell.
+     *
+     * @param column the column of the cell
+     * @param row    the row of the cell
+     */
+    public void clearCell(int column, int row) {
+        kill(row * this.columns + column);
+    }
+
+    /**
+     * Returns whether a cell holds a block.
+     *
+     * @param column the column of the cell
+     * @param row    the row of the cell
+     * @return true if the cell holds a block, false otherwise
+     */
+    public boolean isAlive(int column, int row) {
+        return this.alive.get(row * this.columns + column);
+    }
+
+    /**
+     * Returns the number of cells holding a block.
+     *
+     * @return the number of live cells
+     */
+    public int getLiveCount() {
+        return this.liveCount;
+    }
+
+    @Override
+    public Rectangle getCollisionRectangle() {
+        return this.bounds;
+    }
+
+    @Override
+    public boolean sweep(double x0, double y0, double dx, double dy, double radius, SegmentHit hit) {
+        if (this.liveCount == 0) {
+            return false;
+        }
+
+        // Clip the motion of the center to the field grown by the radius (slab method)
+        double enter = 0;
+        double exit = 1;
+        double minX = this.originX - radius;
+        double minY = this.originY - radius;
+        double maxX = this.originX + this.columns * this.cellWidth + radius;
+        double maxY = this.originY + this.rows * this.cellHeight + radius;
+        if (dx == 0) {
+            if (x0 < minX || x0 > maxX) {
+                return false;
+            }
+        } else {
+            double t1 = (minX - x0) / dx;
+            double t2 = (maxX - x0) / dx;
+            enter = Math.max(enter, Math.min(t1, t2));
+            exit = Math.min(exit, Math.max(t1, t2));
+        }
+        if (dy == 0) {
+            if (y0 < minY || y0 > maxY) {
+                return false;
+            }
+        } else {
+            double t1 = (minY - y0) / dy;
+            double t2 = (maxY - y0) / dy;
+            enter = Math.max(enter, Math.min(t1, t2));
+            exit = Math.min(exit, Math.max(t1, t2));
+        }
+        if (enter > exit) {
+            return false;
+        }
+
+        // Walk the cells the center passes through, testing the cells within the radius of each one
+        int reachColumns = (int) Math.ceil(radius / this.cellWidth);
+        int reachRows = (int) Math.ceil(radius / this.cellHeight);
+        int column = (int) Math.floor((x0 + dx * enter - this.originX) / this.cellWidth);
+        int row = (int) Math.floor((y0 + dy * enter - this.originY) / this.cellHeight);
+        int stepColumn = dx > 0 ? 1 : -1;
+        int stepRow = dy > 0 ? 1 : -1;
+        double deltaX = dx == 0 ? Double.MAX_VALUE : Math.abs(this.cellWidth / dx);
+        double deltaY = dy == 0 ? Double.MAX_VALUE : Math.abs(this.cellHeight / dy);
+        double nextX = dx == 0 ? Double.MAX_VALUE
+                : (this.originX + (column + (dx > 0 ? 1 : 0)) * this.cellWidth - x0) / dx;
+        double nextY = dy == 0 ? Double.MAX_VALUE
+                : (this.originY + (row + (dy > 0 ? 1 : 0)) * this.cellHeight - y0) / dy;
+
+        double bestTime = Double.MAX_VALUE;
+        double bestNormalX = 0;
+        double bestNormalY = 0;
+        while (true) {
+            int firstRow = Math.max(0, row - reachRows);
+            int lastRow = Math.min(this.rows - 1, row + reachRows);
+            int firstColumn = Math.max(0, column - reachColumns);
+            int lastColumn = Math.min(this.columns - 1, column + reachColumns);
+            for (int r = firstRow; r <= lastRow; r++) {
+                double top = this.originY + r * this.cellHeight;
+                for (int c = firstColumn; c <= lastColumn; c++) {
+                    if (!isSolid(r * this.columns + c)) {
+                        continue;
+                    }
+                    double left = this.originX + c * this.cellWidth;
+                    if (GeometryKernel.sweepCircleBox(left, top, left + this.cellWidth, top + this.cellHeight,
+                            x0, y0, dx, dy, radius, hit) && hit.getTime() < bestTime) {
+                        bestTime = hit.getTime();
+                        bestNormalX = hit.getNormalX();
+                        bestNormalY = hit.getNormalY();
+                    }
+                }
+            }
+            // Any later contact happens while the center is in a later cell
+            double cellExit = Math.min(Math.min(nextX, nextY), exit);
+            if (bestTime <= cellExit || cellExit >= exit) {
+                break;
+            }
+            if (nextX < nextY) {
+                column += stepColumn;
+                nextX += deltaX;
+            } else {
+                row += stepRow;
+                nextY += deltaY;
+            }
+        }
+        if (bestTime == Double.MAX_VALUE) {
+            return false;
+        }
+        hit.set(bestTime, bestNormalX, bestNormalY);
+        return true;
+    }
+
+    @Override
+    public Velocity hit(Ball hitter, CollisionInfo collision, Velocity currentVelocity) {
+        // The hit cell lies just behind the contact point, against the normal
+        Point contact = collision.collisionPoint();
+        int cell = cellAt(contact.getX() - collision.normalX() * EPSILON,
+                contact.getY() - collision.normalY() * EPSILON);
+        if (cell < 0 || !isSolid(cell)) {
+            // The brick is gone since the hit was predicted: there is nothing to bounce off
+            return currentVelocity;
+        }
+        Color color = this.palette.get(this.colorIndex[cell] & 0xFF);
+        if (color != hitter.getColor() && color != Color.LIGHT_GRAY) {
+            this.hitPoints[cell]--;
+            boolean destroyed = this.hitPoints[cell] == 0;
+            if (this.events != null) {
+                this.events.publish(destroyed ? HitEventBus.BRICK_DESTROYED : HitEventBus.BRICK_HIT, this,
+                        cell, contact.getX() + collision.normalX() * hitter.getSize(),
+                        contact.getY() + collision.normalY() * hitter.getSize());
+            }
+            if (destroyed) {
+                notifyHit(cell, hitter);
+            }
+            hitter.setColor(color);
+        }
+        double normalX = collision.normalX();
+        double normalY = collision.normalY();
+        if (normalX == 0 && normalY == 0) {
+            return new Velocity(-currentVelocity.getDx(), -currentVelocity.getDy());
+        }
+        // Reflect the velocity about the contact normal
+        double dot = currentVelocity.getDx() * normalX + currentVelocity.getDy() * normalY;
+        return new Velocity(currentVelocity.getDx() - 2 * dot * normalX,
+                currentVelocity.getDy() - 2 * dot * normalY);
+    }
+
+    @Override
+    public void drawOn(DrawSurface d) {
+        int width = (int) this.cellWidth - 1;
+        int height = (int) this.cellHeight - 1;
+        for (int cell = this.alive.nextSetBit(0); cell >= 0; cell = this.alive.nextSetBit(cell + 1)) {
+            int x = (int) (this.originX + (cell % this.columns) * this.cellWidth);
+            int y = (int) (this.originY + (cell / this.columns) * this.cellHeight);
+            d.setColor(Color.BLACK);
+            d.drawRectangle(x, y, width, height);
+            d.setColor(this.palette.get(this.colorIndex[cell] & 0xFF));
+            d.fillRectangle(x, y, width, height);
+        }
+    }
+
+    @Override
+    public void capture(FrameSnapshot snapshot) {
+        int width = (int) this.cellWidth - 1;
+        int height = (int) this.cellHeight - 1;
+        for (int cell = this.alive.nextSetBit(0); cell >= 0; cell = this.alive.nextSetBit(cell + 1)) {
+            int x = (int) (this.originX + (cell % this.columns) * this.cellWidth);
+            int y = (int) (this.originY + (cell / this.columns) * this.cellHeight);
+            snapshot.drawRectangle(x, y, width, height, Color.BLACK);
+            snapshot.fillRectangle(x, y, width, height, this.palette.get(this.colorIndex[cell] & 0xFF));
+        }
+    }
+
+    @Override
+    public void timePassed() {
+        // The field does not change over time
+    }
+
+    @Override
+    public int getSpriteSlot() {
+        return this.spriteSlot;
+    }
+
+    @Override
+    public void setSpriteSlot(int slot) {
+        this.spriteSlot = slot;
+    }
+
+    @Override
+    public void addToGame(Game g) {
+        this.game = g;
+        this.events = g.getHitEvents();
+        this.listenerTable = g.getListenerTable();
+        this.hitListeners = this.listenerTable.intern(this.hitListeners);
+        g.addSprite(this);
+        g.addCollidable(this);
+    }
+
+    @Override
+    public void writeState(StateSink out) {
+        out.putInt(this.liveCount);
+        // Every cell as a byte, its hit points with the top bit set if it is alive, eight to a long
+        long packed = 0;
+        for (int cell = 0; cell < this.hitPoints.length; cell++) {
+            packed = packed << 8 | this.hitPoints[cell] | (this.alive.get(cell) ? 0x80 : 0);
+            if ((cell & 7) == 7) {
+                out.putLong(packed);
+                packed = 0;
+            }
+        }
+        if (this.hitPoints.length % 8 != 0) {
+            out.putLong(packed);
+        }
+    }
+
+    @Override
+    public void readState(StateSource in) {
+        this.liveCount = in.getInt();
+        long packed = 0;
+        for (int cell = 0; cell < this.hitPoints.length; cell++) {
+            if ((cell & 7) == 0) {
+                packed = in.getLong();
+                // A last, partial long holds its cells in its low bytes
+                int cellsInLong = Math.min(8, this.hitPoints.length - cell);
+                packed <<= (8 - cellsInLong) * 8;
+            }
+            int value = (int) (packed >>> 56);
+            packed <<= 8;
+            this.hitPoints[cell] = (byte) (value & 0x7F);
+            this.alive.set(cell, (value & 0x80) != 0);
+        }
+        if (this.game != null) {
+            this.game.updateCollidable(this);
+        }
+    }
+
+    /**
+     * Removes the whole field from the game.
+     *
+     * @param g the game to remove the field from
+     */
+    public void removeFromGame(Game g) {
+        g.removeCollidable(this);
+        g.removeSprite(this);
+    }
+
+    /**
+     * Adds a listener that is notified when any block of the field is hit.
+     *
+     * @param hl the HitListener to add
+     */
+    @Override
+    public void addHitListener(HitListener hl) {
+        this.hitListeners = intern(this.hitListeners.with(hl));
+    }
+
+    @Override
+    public void removeHitListener(HitListener hl) {
+        this.hitListeners = intern(this.hitListeners.without(hl));
+    }
+
+    private ListenerSet intern(ListenerSet set) {
+        return this.listenerTable == null ? set : this.listenerTable.intern(set);
+    }
+
+    /**
+     * Returns the view block bound to a cell, as hit listeners receive it. The same view is
+     * rebound by every call.
+     *
+     * @param cell the index of the cell
+     * @return the view of the cell
+     */
+    public Block cellView(int cell) {
+        this.view.bind(cell);
+        return this.view;
+    }
+
+    /**
+     * Returns whether a cell holds a block that balls bounce off: one that still has hit points.
+     *
+     * @param cell the index of the cell
+     * @return true if the cell collides, false otherwise
+     */
+    private boolean isSolid(int cell) {
+        return this.hitPoints[cell] > 0 && this.alive.get(cell);
+    }
+
+    /**
+     * Returns the cell containing a point, or -1 if the point lies outside the field.
+     *
+     * @param x the x-coordinate of the point
+     * @param y the y-coordinate of the point
+     * @return the index of the cell, or -1
+     */
+    private int cellAt(double x, double y) {
+        int column = (int) Math.floor((x - this.originX) / this.cellWidth);
+        int row = (int) Math.floor((y - this.originY) / this.cellHeight);
+        if (column < 0 || column >= this.columns || row < 0 || row >= this.rows) {
+            return -1;
+        }
+        return row * this.columns + column;
+    }
+
+    /**
+     * Empties a cell and tells the game environment which region of the field stopped colliding,
+     * so only the balls headed for that cell need to look for their next collision again.
+     *
+     * @param cell the index of the cell
+     */
+    private void kill(int cell) {
+        if (!this.alive.get(cell)) {
+            return;
+        }
+        this.alive.clear(cell);
+        this.liveCount--;
+        if (this.game != null) {
+            double left = this.originX + (cell % this.columns) * this.cellWidth;
+            double top = this.originY + (cell / this.columns) * this.cellHeight;
+            this.game.regionCleared(this, left, top, left + this.cellWidth, top + this.cellHeight);
+        }
+    }
+
+    /**
+     * Notifies all registered HitListeners about a hit on a cell, passing the view bound to it.
+     *
+     * @param cell   the index of the cell that was hit
+     * @param hitter the ball that hit the cell
+     */
+    private void notifyHit(int cell, Ball hitter) {
+        if (this.hitListeners.isEmpty()) {
+            return;
+        }
+        this.view.bind(cell);
+        // The set is immutable, so listeners added or removed meanwhile wait for the next hit
+        this.hitListeners.notifyHit(this.view, hitter);
+    }
+
+    private int colorIndex(Color color) {
+        int index = this.palette.indexOf(color);
+        if (index < 0) {
+            if (this.palette.size() > 0xFF) {
+                throw new IllegalArgumentException("too many colors in the field");
+            }
+            index = this.palette.size();
+            this.palette.add(color);
+        }
+        return index;
+    }
+
+    /**
+     * The block handed to hit listeners, bound to the cell being hit.
+     * Listeners are registered on the whole field, so removing one from a single cell does nothing.
+     */
+    private final class CellView extends Block {
+        private int cell;
+
+        CellView() {
+            super(new Rectangle(0, 0, cellWidth, cellHeight), Color.BLACK);
+        }
+
+        void bind(int boundCell) {
+            this.cell = boundCell;
+            getCollisionRectangle().moveTo(originX + (boundCell % columns) * cellWidth,
+                    originY + (boundCell / columns) * cellHeight);
+        }
+
+        @Override
+        public void removeFromGame(Game g) {
+            kill(this.cell);
+        }
+
+        @Override
+        public boolean isInGame() {
+            return alive.get(this.cell);
+        }
+
+        @Override
+        public void addHitListener(HitListener hl) {
+            BlockField.this.addHitListener(hl);
+        }
+
+        @Override
+        public void removeHitListener(HitListener hl) {
+            // Listeners belong to the whole field
+        }
+    }
+}
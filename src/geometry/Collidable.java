@@ -13,16 +13,35 @@ public interface Collidable {
     Rectangle getCollisionRectangle();
 
     /**
-     * Notifies the object that a collision occurred at the specified collision point
+     * Notifies the object that a collision occurred, described by the given collision info,
      * with a given velocity. Returns the new velocity expected after the collision,
      * based on the force the object inflicted on the colliding object.
      *
      * @param hitter the ball that hit the collidable object
-     * @param collisionPoint  the point where the collision occurred
+     * @param collision       the collision point and the normal of the edge that was hit
      * @param currentVelocity the current velocity of the colliding object
      * @return the new velocity expected after the collision
      */
-    Velocity hit(Ball hitter, Point collisionPoint, Velocity currentVelocity);
+    Velocity hit(Ball hitter, CollisionInfo collision, Velocity currentVelocity);
+
+    /**
+     * Sweeps a circle whose center moves from (x0, y0) to (x0 + dx, y0 + dy) against the object,
+     * and writes the time and normal of the first impact into the given hit.
+     * By default the circle is swept against the collision rectangle; objects made of several
+     * parts, such as a BlockField, test only the parts that are actually there.
+     * Implementations must not allocate or keep state, since queries may run on several threads.
+     *
+     * @param x0     the x-coordinate of the circle center at the start of the motion
+     * @param y0     the y-coordinate of the circle center at the start of the motion
+     * @param dx     the x-component of the motion
+     * @param dy     the y-component of the motion
+     * @param radius the radius of the circle, 0 for a plain segment
+     * @param hit    the hit to fill in
+     * @return true if the circle hits the object during the motion, false otherwise
+     */
+    default boolean sweep(double x0, double y0, double dx, double dy, double radius, SegmentHit hit) {
+        return getCollisionRectangle().intersectSegment(x0, y0, dx, dy, radius, hit);
+    }
 }
 
 
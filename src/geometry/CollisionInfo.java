@@ -3,11 +3,15 @@ package geometry;
 
 /**
  * The CollisionInfo class represents information about a collision between two objects.
- * It encapsulates the collision point and the collidable object involved in the collision.
+ * It encapsulates the collision point, the collidable object involved in the collision,
+ * the time of impact along the queried trajectory, and the outward normal at the contact.
  */
 public class CollisionInfo {
     private Point collisionPoint;
     private Collidable collisionObject;
+    private double time;
+    private double normalX;
+    private double normalY;
 
     /**
      * Constructs a CollisionInfo object with the specified collision point and collidable object.
@@ -20,6 +24,24 @@ public class CollisionInfo {
         this.collisionObject = collisionObject;
     }
 
+    /**
+     * Constructs a CollisionInfo object with the specified collision point, collidable object,
+     * time of impact, and contact normal.
+     *
+     * @param collisionPoint  the point at which the collision occurs
+     * @param collisionObject the collidable object involved in the collision
+     * @param time            the time of impact, as a fraction of the queried trajectory
+     * @param normalX         the x-component of the unit contact normal
+     * @param normalY         the y-component of the unit contact normal
+     */
+    public CollisionInfo(Point collisionPoint, Collidable collisionObject, double time,
+                         double normalX, double normalY) {
+        this(collisionPoint, collisionObject);
+        this.time = time;
+        this.normalX = normalX;
+        this.normalY = normalY;
+    }
+
     /**
      * Returns the point at which the collision occurs.
      *
@@ -37,4 +59,35 @@ public class CollisionInfo {
     public Collidable collisionObject() {
         return collisionObject;
     }
+
+    /**
+     * Returns the time of impact along the queried trajectory.
+     *
+     * @return the time of impact, between 0 (trajectory start) and 1 (trajectory end)
+     */
+    public double time() {
+        return time;
+    }
+
+    /**
+     * Returns the x-component of the unit outward normal at the contact.
+     * Both normal components are 0 when the contact normal is unknown.
+     *
+     * @return -1 for a left edge, 1 for a right edge, 0 for a top or bottom edge,
+     *         or a value in between for a corner
+     */
+    public double normalX() {
+        return normalX;
+    }
+
+    /**
+     * Returns the y-component of the unit outward normal at the contact.
+     * Both normal components are 0 when the contact normal is unknown.
+     *
+     * @return -1 for a top edge, 1 for a bottom edge, 0 for a left or right edge,
+     *         or a value in between for a corner
+     */
+    public double normalY() {
+        return normalY;
+    }
 }
@@ -0,0 +1,187 @@
+package geometry;
+// 322613720 Stav Reuven
+/**
+ * The GeometryKernel class holds the geometry used on every frame as static methods on primitive
+ * coordinates. None of them allocates, so the hot paths of the game (moving balls, sweeping them
+ * against rectangles and cells, bouncing off the paddle) can run without creating Point, Line or
+ * Velocity objects. Distances are compared squared wherever only their order matters.
+ */
+public final class GeometryKernel {
+
+    private GeometryKernel() {
+    }
+
+    /**
+     * Returns the squared distance between two points.
+     *
+     * @param x1 the x-coordinate of the first point
+     * @param y1 the y-coordinate of the first point
+     * @param x2 the x-coordinate of the second point
+     * @param y2 the y-coordinate of the second point
+     * @return the squared distance between the points
+     */
+    public static double distanceSquared(double x1, double y1, double x2, double y2) {
+        double dx = x2 - x1;
+        double dy = y2 - y1;
+        return dx * dx + dy * dy;
+    }
+
+    /**
+     * Returns the distance between two points.
+     *
+     * @param x1 the x-coordinate of the first point
+     * @param y1 the y-coordinate of the first point
+     * @param x2 the x-coordinate of the second point
+     * @param y2 the y-coordinate of the second point
+     * @return the distance between the points
+     */
+    public static double distance(double x1, double y1, double x2, double y2) {
+        return Math.sqrt(distanceSquared(x1, y1, x2, y2));
+    }
+
+    /**
+     * Returns the length of a vector.
+     *
+     * @param dx the x-component of the vector
+     * @param dy the y-component of the vector
+     * @return the length of the vector
+     */
+    public static double length(double dx, double dy) {
+        return Math.sqrt(dx * dx + dy * dy);
+    }
+
+    /**
+     * Returns the z-component of the cross product of two vectors, which is zero when they are parallel.
+     *
+     * @param ax the x-component of the first vector
+     * @param ay the y-component of the first vector
+     * @param bx the x-component of the second vector
+     * @param by the y-component of the second vector
+     * @return the cross product of the vectors
+     */
+    public static double cross(double ax, double ay, double bx, double by) {
+        return ax * by - ay * bx;
+    }
+
+    /**
+     * Sweeps a circle whose center moves from (x0, y0) to (x0 + dx, y0 + dy) against an axis-aligned
+     * box given by its edges, and finds the time of impact. This is a segment test against the
+     * Minkowski sum of the box and the circle: the box grown by the radius on every side, with its
+     * corners rounded. On a hit, the parametric time of impact and the unit outward normal at the
+     * contact are written into the given hit; the normal is axis-aligned for an edge contact and
+     * points from the corner towards the circle center for a corner contact. A plain segment that
+     * enters the box exactly through a corner gets a diagonal normal.
+     * A circle that starts overlapping the box does not hit it.
+     *
+     * @param left   the x-coordinate of the left edge of the box
+     * @param top    the y-coordinate of the top edge of the box
+     * @param right  the x-coordinate of the right edge of the box
+     * @param bottom the y-coordinate of the bottom edge of the box
+     * @param x0     the x-coordinate of the circle center at the start of the motion
+     * @param y0     the y-coordinate of the circle center at the start of the motion
+     * @param dx     the x-component of the motion
+     * @param dy     the y-component of the motion
+     * @param radius the radius of the circle, 0 for a plain segment test
+     * @param hit    the hit to fill in, left untouched when there is no hit
+     * @return true if the circle hits the box during the motion, false otherwise
+     */
+    public static boolean sweepCircleBox(double left, double top, double right, double bottom,
+                                         double x0, double y0, double dx, double dy, double radius,
+                                         SegmentHit hit) {
+        double minX = left - radius;
+        double minY = top - radius;
+        double maxX = right + radius;
+        double maxY = bottom + radius;
+        double enterX;
+        double exitX;
+        if (dx == 0) {
+            if (x0 < minX || x0 > maxX) {
+                return false;
+            }
+            enterX = Double.NEGATIVE_INFINITY;
+            exitX = Double.POSITIVE_INFINITY;
+        } else {
+            enterX = ((dx > 0 ? minX : maxX) - x0) / dx;
+            exitX = ((dx > 0 ? maxX : minX) - x0) / dx;
+        }
+        double enterY;
+        double exitY;
+        if (dy == 0) {
+            if (y0 < minY || y0 > maxY) {
+                return false;
+            }
+            enterY = Double.NEGATIVE_INFINITY;
+            exitY = Double.POSITIVE_INFINITY;
+        } else {
+            enterY = ((dy > 0 ? minY : maxY) - y0) / dy;
+            exitY = ((dy > 0 ? maxY : minY) - y0) / dy;
+        }
+        double enter = Math.max(enterX, enterY);
+        double exit = Math.min(exitX, exitY);
+        if (enter > exit || enter > 1 || exit < 0) {
+            return false;
+        }
+        if (enter < 0) {
+            // Starting in the grown box overlaps the box, unless the center is next to a corner, where
+            // the grown box is rounded off: the circle may still reach the corner later in the motion
+            if (radius > 0 && (x0 < left || x0 > right) && (y0 < top || y0 > bottom)) {
+                return sweepCirclePoint(x0, y0, dx, dy, x0 < left ? left : right, y0 < top ? top : bottom,
+                        radius, hit);
+            }
+            return false;
+        }
+
+        if (radius > 0) {
+            // Entering the grown box next to a corner means the contact is with the rounded corner
+            double px = x0 + dx * enter;
+            double py = y0 + dy * enter;
+            double cornerX = px < left ? left : (px > right ? right : px);
+            double cornerY = py < top ? top : (py > bottom ? bottom : py);
+            if (cornerX != px && cornerY != py) {
+                return sweepCirclePoint(x0, y0, dx, dy, cornerX, cornerY, radius, hit);
+            }
+        }
+
+        double normalX = enterX == enter ? -Math.signum(dx) : 0;
+        double normalY = enterY == enter ? -Math.signum(dy) : 0;
+        if (normalX != 0 && normalY != 0) {
+            normalX *= Math.sqrt(0.5);
+            normalY *= Math.sqrt(0.5);
+        }
+        hit.set(enter, normalX, normalY);
+        return true;
+    }
+
+    /**
+     * Sweeps a circle against a single point, such as the corner of a box.
+     *
+     * @param x0     the x-coordinate of the circle center at the start of the motion
+     * @param y0     the y-coordinate of the circle center at the start of the motion
+     * @param dx     the x-component of the motion
+     * @param dy     the y-component of the motion
+     * @param px     the x-coordinate of the point
+     * @param py     the y-coordinate of the point
+     * @param radius the radius of the circle
+     * @param hit    the hit to fill in, left untouched when there is no hit
+     * @return true if the circle touches the point during the motion, false otherwise
+     */
+    public static boolean sweepCirclePoint(double x0, double y0, double dx, double dy,
+                                           double px, double py, double radius, SegmentHit hit) {
+        // Solve |p0 + d * t - p| = radius for the smallest t
+        double fx = x0 - px;
+        double fy = y0 - py;
+        double a = dx * dx + dy * dy;
+        double b = fx * dx + fy * dy;
+        double c = fx * fx + fy * fy - radius * radius;
+        double discriminant = b * b - a * c;
+        if (a == 0 || discriminant < 0) {
+            return false;
+        }
+        double t = (-b - Math.sqrt(discriminant)) / a;
+        if (t < 0 || t > 1) {
+            return false;
+        }
+        hit.set(t, (fx + dx * t) / radius, (fy + dy * t) / radius);
+        return true;
+    }
+}
@@ -119,10 +119,6 @@ public class Line {
      * @return the intersection point if the lines intersect, null otherwise
      */
     public Point intersectionWith(Line other) {
-        // If the lines are exactly the same, return null (considered no intersection)
-        if (this.equals(other)) {
-            return null;
-        }
         // Get the coordinates of the start and end points of both lines
         double x1 = this.start.getX();
         double y1 = this.start.getY();
@@ -133,11 +129,18 @@ public class Line {
         double x4 = other.end.getX();
         double y4 = other.end.getY();
 
-        // Calculate the denominator of the intersection formulas
-        double denominator = (y4 - y3) * (x2 - x1) - (x4 - x3) * (y2 - y1);
+        // Calculate the denominator of the intersection formulas, which is zero for parallel lines
+        double denominator = GeometryKernel.cross(x2 - x1, y2 - y1, x4 - x3, y4 - y3);
+
+        // If the lines are the same, return null (considered no intersection). Lines whose ends are
+        // equal within epsilon have directions within 2 * epsilon on each axis, so their cross
+        // product is within this bound, and most pairs are told apart without comparing ends
+        if (Math.abs(denominator) <= 2 * epsilon * (Math.abs(x2 - x1) + Math.abs(y2 - y1)) && this.equals(other)) {
+            return null;
+        }
 
         // If the lines have the same slope (are parallel), handle special cases
-        if (this.sameSlope(other)) {
+        if (denominator == 0) {
             // If the start points of both lines are the same
             if (this.start.equals(other.start)) {
                 return new Point(this.start.getX(), this.start.getY());
@@ -188,7 +191,7 @@ public class Line {
         double y3 = other.start.getY();
         double x4 = other.end.getX();
         double y4 = other.end.getY();
-        return 0 == (y4 - y3) * (x2 - x1) - (x4 - x3) * (y2 - y1);
+        return 0 == GeometryKernel.cross(x2 - x1, y2 - y1, x4 - x3, y4 - y3);
     }
 
     /**
@@ -237,43 +240,27 @@ public class Line {
      * @return the closest intersection point to the start of the line, or null if there is no intersection
      */
     public Point closestIntersectionToStartOfLine(Rectangle rect) {
-        Line top = new Line(rect.getUpperLeft(), rect.getUpperRight());
-        Line bottom = new Line(rect.getLowerLeft(), rect.getLowerRight());
-        Line left = new Line(rect.getLowerLeft(), rect.getUpperLeft());
-        Line right = new Line(rect.getLowerRight(), rect.getUpperRight());
-        Point p1 = null, p2 = null, p3 = null, p4 = null, p5 = null;
-        if (this.isIntersecting(top)) {
-            p1 = this.intersectionWith(top);
-        }
-        if (this.isIntersecting(bottom)) {
-            p2 = this.intersectionWith(bottom);
-        }
-        if (this.isIntersecting(left)) {
-            p3 = this.intersectionWith(left);
-        }
-        if (this.isIntersecting(right)) {
-            p4 = this.intersectionWith(right);
-        }
-        if (p1 == null && p2 == null && p3 == null && p4 == null) {
-            return null;
-        }
-        double distance = Double.MAX_VALUE;
-        if ((p1 != null) && (this.start.distance(p1) < distance)) {
-            distance = this.start.distance(p1);
-            p5 = p1;
-        }
-        if ((p2 != null) && (this.start.distance(p2) < distance)) {
-            distance = this.start.distance(p2);
-            p5 = p2;
-        }
-        if ((p3 != null) && (this.start.distance(p3) < distance)) {
-            distance = this.start.distance(p3);
-            p5 = p3;
-        }
-        if ((p4 != null) && (this.start.distance(p4) < distance)) {
-            p5 = p4;
+        // Top, bottom, left and right, each kept only if strictly closer than those before it
+        Point closest = closerIntersection(null, new Line(rect.getUpperLeft(), rect.getUpperRight()));
+        closest = closerIntersection(closest, new Line(rect.getLowerLeft(), rect.getLowerRight()));
+        closest = closerIntersection(closest, new Line(rect.getLowerLeft(), rect.getUpperLeft()));
+        return closerIntersection(closest, new Line(rect.getLowerRight(), rect.getUpperRight()));
+    }
+
+    /**
+     * Returns the intersection with an edge if it is closer to the start of this line than the
+     * closest point found so far.
+     *
+     * @param closest the closest point found so far, or null if there is none
+     * @param edge    the edge to intersect
+     * @return the intersection with the edge if it is strictly closer, the given point otherwise
+     */
+    private Point closerIntersection(Point closest, Line edge) {
+        Point p = this.intersectionWith(edge);
+        // Squared distances order the points the same way as distances
+        if (p != null && (closest == null || this.start.distanceSquared(p) < this.start.distanceSquared(closest))) {
+            return p;
         }
-        return p5;
+        return closest;
     }
 }
-
@@ -1,8 +1,14 @@
 package geometry;
 // 322613720 Stav Reuven
 
+import arkanoid.FrameSnapshot;
 import arkanoid.Game;
+import arkanoid.InputSource;
+import arkanoid.KeyboardInput;
 import arkanoid.Sprite;
+import arkanoid.StateSink;
+import arkanoid.StateSource;
+import arkanoid.Stateful;
 import biuoop.DrawSurface;
 import biuoop.KeyboardSensor;
 
@@ -14,11 +20,16 @@ import java.awt.Color;
  * horizontally based on user input, detect collisions with the ball, and draw itself
  * on a DrawSurface.
  */
-public class Paddle implements Sprite, Collidable {
-    private KeyboardSensor keyboard;
+public class Paddle implements Sprite, Collidable, Stateful {
+    private InputSource input;
     private Rectangle rectangle;
     private Color color;
     private int velocity;
+    private Game game;
+    private double previousX;
+    private double leftLimit = 20;
+    private double rightLimit = 780;
+    private int spriteSlot = -1;
 
     /**
      * Constructs a new Paddle with the specified rectangle, color, velocity, and keyboard sensor.
@@ -29,52 +40,112 @@ public class Paddle implements Sprite, Collidable {
      * @param keyboard  the keyboard sensor for user input
      */
     public Paddle(Rectangle rectangle, Color color, int velocity, KeyboardSensor keyboard) {
+        this(rectangle, color, velocity, new KeyboardInput(keyboard));
+    }
+
+    /**
+     * Constructs a new Paddle driven by the given input source.
+     *
+     * @param rectangle the rectangle representing the paddle's position and size
+     * @param color     the color of the paddle
+     * @param velocity  the movement speed of the paddle
+     * @param input     the input source moving the paddle
+     */
+    public Paddle(Rectangle rectangle, Color color, int velocity, InputSource input) {
         this.rectangle = rectangle;
         this.color = color;
         this.velocity = velocity;
-        this.keyboard = keyboard;
+        this.input = input;
+        this.previousX = rectangle.getMinX();
+    }
+
+    /**
+     * Sets the inner faces of the side walls, between which the paddle moves and wraps around.
+     * They are x=20 and x=780 unless set, the walls of the default arena.
+     *
+     * @param left  the x-coordinate of the inner face of the left wall
+     * @param right the x-coordinate of the inner face of the right wall
+     */
+    public void setLimits(double left, double right) {
+        this.leftLimit = left;
+        this.rightLimit = right;
     }
 
     /**
      * Moves the paddle to the left by the defined velocity, ensuring it stays within the game bounds.
+     * A paddle already touching the left wall wraps around to the right wall, at the same height.
      */
     public void moveLeft() {
-        if (this.rectangle.getUpperLeft().getX() > 20) {
-            this.rectangle = new Rectangle(new Point(this.rectangle.getUpperLeft().getX() - this.velocity,
-                    this.rectangle.getUpperLeft().getY()), this.rectangle.getWidth(), this.rectangle.getHeight());
+        if (this.rectangle.getMinX() > this.leftLimit) {
+            this.rectangle.moveTo(this.rectangle.getMinX() - this.velocity, this.rectangle.getMinY());
         } else {
-            this.rectangle = new Rectangle((new Point(680, 560)),
-                    this.rectangle.getWidth(), this.rectangle.getHeight());
+            this.rectangle.moveTo(this.rightLimit - this.rectangle.getWidth(), this.rectangle.getMinY());
         }
     }
 
     /**
      * Moves the paddle to the right by the defined velocity, ensuring it stays within the game bounds.
+     * A paddle already touching the right wall wraps around to the left wall, at the same height.
      */
     public void moveRight() {
-        if (rectangle.getUpperRight().getX() < 780) {
-            this.rectangle = new Rectangle(new Point(this.rectangle.getUpperLeft().getX() + this.velocity,
-                    this.rectangle.getUpperLeft().getY()), this.rectangle.getWidth(), this.rectangle.getHeight());
+        if (this.rectangle.getMaxX() < this.rightLimit) {
+            this.rectangle.moveTo(this.rectangle.getMinX() + this.velocity, this.rectangle.getMinY());
         } else {
-            this.rectangle = new Rectangle((new Point(20, 560)),
-                    this.rectangle.getWidth(), this.rectangle.getHeight());
+            this.rectangle.moveTo(this.leftLimit, this.rectangle.getMinY());
         }
     }
 
 
     @Override
     public void timePassed() {
-        if (keyboard.isPressed(KeyboardSensor.LEFT_KEY)) {
+        double beforeX = this.rectangle.getMinX();
+        double beforeY = this.rectangle.getMinY();
+        this.previousX = beforeX;
+        if (this.input.isLeftPressed()) {
             this.moveLeft();
         }
-        if (keyboard.isPressed(KeyboardSensor.RIGHT_KEY)) {
+        if (this.input.isRightPressed()) {
             this.moveRight();
         }
+        // Let the game environment re-index the paddle at its new position
+        if ((this.rectangle.getMinX() != beforeX || this.rectangle.getMinY() != beforeY) && this.game != null) {
+            this.game.updateCollidable(this);
+        }
     }
     @Override
     public void drawOn(DrawSurface d) {
-        int x = (int) this.rectangle.getUpperLeft().getX();
-        int y = (int) this.rectangle.getUpperLeft().getY();
+        drawAt(d, this.rectangle.getMinX());
+    }
+
+    /**
+     * Draws the paddle between its position before and after the last step.
+     * A paddle that wrapped around to the other side is drawn where it is now.
+     *
+     * @param d     the DrawSurface to draw on
+     * @param alpha how far the frame lies between the previous position (0) and the current one (1)
+     */
+    @Override
+    public void drawOn(DrawSurface d, double alpha) {
+        double x = this.rectangle.getMinX();
+        if (Math.abs(x - this.previousX) <= this.velocity) {
+            x = this.previousX + (x - this.previousX) * alpha;
+        }
+        drawAt(d, x);
+    }
+
+    @Override
+    public void capture(FrameSnapshot snapshot) {
+        int x = (int) this.rectangle.getMinX();
+        int y = (int) this.rectangle.getMinY();
+        int width = (int) this.rectangle.getWidth();
+        int height = (int) this.rectangle.getHeight();
+        snapshot.drawRectangle(x, y, width, height, Color.BLACK);
+        snapshot.fillRectangle(x, y, width, height, this.color);
+    }
+
+    private void drawAt(DrawSurface d, double left) {
+        int x = (int) left;
+        int y = (int) this.rectangle.getMinY();
         int width = (int) this.rectangle.getWidth();
         int height = (int) this.rectangle.getHeight();
 
@@ -91,20 +162,18 @@ public class Paddle implements Sprite, Collidable {
 
 
     @Override
-    public Velocity hit(Ball hitter, Point collisionPoint, Velocity currentVelocity) {
+    public Velocity hit(Ball hitter, CollisionInfo collision, Velocity currentVelocity) {
         double regionWidth = this.rectangle.getWidth() / 5;
-        double hitX = collisionPoint.getX() - this.rectangle.getUpperLeft().getX();
+        double hitX = collision.collisionPoint().getX() - this.rectangle.getMinX();
         double speed = currentVelocity.getVelocity();
 
         // Check for side collisions
-        if (collisionPoint.getX() == rectangle.getLowerLeft().getX()
-                || collisionPoint.getX() == rectangle.getUpperRight().getX()) {
+        if (Math.abs(collision.normalX()) > Math.abs(collision.normalY())) {
             return new Velocity(-currentVelocity.getDx(), currentVelocity.getDy());
         }
 
         // Check for top or bottom collisions
-        if (collisionPoint.getY() == rectangle.getUpperLeft().getY()
-                || collisionPoint.getY() == rectangle.getLowerRight().getY()) {
+        if (collision.normalY() != 0) {
             if (hitX < regionWidth) {
                 return Velocity.fromAngleAndSpeed(210, speed);
             } else if (hitX < 2 * regionWidth) {
@@ -122,6 +191,30 @@ public class Paddle implements Sprite, Collidable {
         return new Velocity(-currentVelocity.getDx(), -currentVelocity.getDy());
     }
 
+    @Override
+    public void writeState(StateSink out) {
+        out.putDouble(this.rectangle.getMinX());
+    }
+
+    @Override
+    public void readState(StateSource in) {
+        this.rectangle.moveTo(in.getDouble(), this.rectangle.getMinY());
+        this.previousX = this.rectangle.getMinX();
+        if (this.game != null) {
+            this.game.updateCollidable(this);
+        }
+    }
+
+    @Override
+    public int getSpriteSlot() {
+        return this.spriteSlot;
+    }
+
+    @Override
+    public void setSpriteSlot(int slot) {
+        this.spriteSlot = slot;
+    }
+
     /**
      * Adds the paddle to the game, adding it as both a sprite and a collidable object.
      *
@@ -129,6 +222,7 @@ public class Paddle implements Sprite, Collidable {
      */
     @Override
     public void addToGame(Game g) {
+        this.game = g;
         g.addSprite(this);
         g.addCollidable(this);
     }
@@ -29,7 +29,18 @@ public class Point {
      * @return the distance between this point and the other point
      */
     public double distance(Point other) {
-        return Math.sqrt(Math.pow(this.x - other.x, 2) + Math.pow(this.y - other.y, 2));
+        return GeometryKernel.distance(this.x, this.y, other.x, other.y);
+    }
+
+    /**
+     * Calculates the squared distance from this point to another point, which is cheaper than
+     * the distance and orders points the same way.
+     *
+     * @param other the other point
+     * @return the squared distance between this point and the other point
+     */
+    public double distanceSquared(Point other) {
+        return GeometryKernel.distanceSquared(this.x, this.y, other.x, other.y);
     }
 
     /**
@@ -8,7 +8,8 @@ import java.util.ArrayList;
  * It provides methods to calculate intersection points with a line and retrieve dimensions of the rectangle.
  */
 public class Rectangle {
-    private Point upperLeft;
+    private double x;
+    private double y;
     private double width;
     private double height;
 
@@ -20,7 +21,20 @@ public class Rectangle {
      * @param height    the height of the rectangle
      */
     public Rectangle(Point upperLeft, double width, double height) {
-        this.upperLeft = upperLeft;
+        this(upperLeft.getX(), upperLeft.getY(), width, height);
+    }
+
+    /**
+     * Constructs a rectangle with the specified upper-left corner coordinates, width, and height.
+     *
+     * @param x      the x-coordinate of the upper-left corner
+     * @param y      the y-coordinate of the upper-left corner
+     * @param width  the width of the rectangle
+     * @param height the height of the rectangle
+     */
+    public Rectangle(double x, double y, double width, double height) {
+        this.x = x;
+        this.y = y;
         this.width = width;
         this.height = height;
     }
@@ -34,28 +48,112 @@ public class Rectangle {
      */
     public List<Point> intersectionPoints(Line line) {
         List<Point> intersectionPoints = new ArrayList<>();
+        Point upperLeft = getUpperLeft();
+        Point upperRight = getUpperRight();
+        Point lowerLeft = getLowerLeft();
+        Point lowerRight = getLowerRight();
 
-        Line top = new Line(getUpperLeft(), getUpperRight());
-        if (top.isIntersecting(line)) {
-            intersectionPoints.add(top.intersectionWith(line));
-        }
+        addIntersection(new Line(upperLeft, upperRight), line, intersectionPoints);
+        addIntersection(new Line(upperLeft, lowerLeft), line, intersectionPoints);
+        addIntersection(new Line(upperRight, lowerRight), line, intersectionPoints);
+        addIntersection(new Line(lowerRight, lowerLeft), line, intersectionPoints);
 
-        Line left = new Line(getUpperLeft(), getLowerLeft());
-        if (left.isIntersecting(line)) {
-            intersectionPoints.add(left.intersectionWith(line));
-        }
+        return intersectionPoints;
+    }
 
-        Line right = new Line(getUpperRight(), getLowerRight());
-        if (right.isIntersecting(line)) {
-            intersectionPoints.add(right.intersectionWith(line));
+    private static void addIntersection(Line edge, Line line, List<Point> intersectionPoints) {
+        Point p = edge.intersectionWith(line);
+        if (p != null) {
+            intersectionPoints.add(p);
         }
+    }
 
-        Line bottom = new Line(getLowerRight(), getLowerLeft());
-        if (bottom.isIntersecting(line)) {
-            intersectionPoints.add(bottom.intersectionWith(line));
-        }
+    /**
+     * Intersects the segment from (x0, y0) to (x0 + dx, y0 + dy) with this rectangle using
+     * the slab method. On a hit, the parametric entry time and the outward normal of the
+     * entered edge are written into the given hit. When the segment enters exactly through
+     * a corner, the normal points diagonally out of that corner.
+     * A segment that starts inside the rectangle does not hit it. This method does not allocate.
+     *
+     * @param x0  the x-coordinate of the segment start
+     * @param y0  the y-coordinate of the segment start
+     * @param dx  the x-component of the segment
+     * @param dy  the y-component of the segment
+     * @param hit the hit to fill in, left untouched when there is no hit
+     * @return true if the segment enters the rectangle, false otherwise
+     */
+    public boolean intersectSegment(double x0, double y0, double dx, double dy, SegmentHit hit) {
+        return intersectSegment(x0, y0, dx, dy, 0, hit);
+    }
 
-        return intersectionPoints;
+    /**
+     * Sweeps a circle of the given radius whose center moves from (x0, y0) to (x0 + dx, y0 + dy)
+     * against this rectangle, and finds the time of impact. This is a segment test against the
+     * Minkowski sum of the rectangle and the circle: the rectangle grown by the radius on every
+     * side, with its corners rounded. On a hit, the parametric time of impact and the unit
+     * outward normal at the contact are written into the given hit; the normal is axis-aligned
+     * for an edge contact and points from the corner towards the circle center for a corner contact.
+     * A circle that starts overlapping the rectangle does not hit it. This method does not allocate.
+     *
+     * @param x0     the x-coordinate of the circle center at the start of the motion
+     * @param y0     the y-coordinate of the circle center at the start of the motion
+     * @param dx     the x-component of the motion
+     * @param dy     the y-component of the motion
+     * @param radius the radius of the circle, 0 for a plain segment test
+     * @param hit    the hit to fill in, left untouched when there is no hit
+     * @return true if the circle hits the rectangle during the motion, false otherwise
+     */
+    public boolean intersectSegment(double x0, double y0, double dx, double dy, double radius, SegmentHit hit) {
+        return GeometryKernel.sweepCircleBox(this.x, this.y, this.x + this.width, this.y + this.height,
+                x0, y0, dx, dy, radius, hit);
+    }
+
+    /**
+     * Moves the rectangle so its upper-left corner is at the given coordinates, keeping its size.
+     * Lets a moving object such as the paddle reuse its rectangle instead of creating one per move.
+     *
+     * @param upperLeftX the new x-coordinate of the upper-left corner
+     * @param upperLeftY the new y-coordinate of the upper-left corner
+     */
+    public void moveTo(double upperLeftX, double upperLeftY) {
+        this.x = upperLeftX;
+        this.y = upperLeftY;
+    }
+
+    /**
+     * Returns the smallest x-coordinate of the rectangle.
+     *
+     * @return the x-coordinate of the left edge
+     */
+    public double getMinX() {
+        return this.x;
+    }
+
+    /**
+     * Returns the smallest y-coordinate of the rectangle.
+     *
+     * @return the y-coordinate of the top edge
+     */
+    public double getMinY() {
+        return this.y;
+    }
+
+    /**
+     * Returns the largest x-coordinate of the rectangle.
+     *
+     * @return the x-coordinate of the right edge
+     */
+    public double getMaxX() {
+        return this.x + this.width;
+    }
+
+    /**
+     * Returns the largest y-coordinate of the rectangle.
+     *
+     * @return the y-coordinate of the bottom edge
+     */
+    public double getMaxY() {
+        return this.y + this.height;
     }
 
     /**
@@ -82,7 +180,7 @@ public class Rectangle {
      * @return the upper-left point of the rectangle
      */
     public Point getUpperLeft() {
-        return new Point(this.upperLeft.getX(), this.upperLeft.getY());
+        return new Point(this.x, this.y);
     }
 
     /**
@@ -91,7 +189,7 @@ public class Rectangle {
      * @return the lower-left point of the rectangle
      */
     public Point getLowerLeft() {
-        return new Point(this.upperLeft.getX(), this.upperLeft.getY() + height);
+        return new Point(this.x, this.y + this.height);
     }
 
     /**
@@ -100,7 +198,7 @@ public class Rectangle {
      * @return the upper-right point of the rectangle
      */
     public Point getUpperRight() {
-        return new Point(this.upperLeft.getX() + width, upperLeft.getY());
+        return new Point(this.x + this.width, this.y);
     }
 
     /**
@@ -109,7 +207,7 @@ public class Rectangle {
      * @return the lower-right point of the rectangle
      */
     public Point getLowerRight() {
-        return new Point(this.upperLeft.getX() + width, upperLeft.getY() + height);
+        return new Point(this.x + this.width, this.y + this.height);
     }
 }
 
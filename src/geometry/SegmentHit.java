@@ -0,0 +1,53 @@
+package geometry;
+// 322613720 Stav Reuven
+
+/**
+ * The SegmentHit class holds the result of a segment-versus-rectangle test: the parametric
+ * time at which the segment enters the rectangle and the unit outward normal at the contact.
+ * It is mutable so that a caller can reuse one instance for many tests without allocating.
+ */
+public class SegmentHit {
+    private double time;
+    private double normalX;
+    private double normalY;
+
+    /**
+     * Sets the result of a test.
+     *
+     * @param time    the parametric entry time, between 0 (segment start) and 1 (segment end)
+     * @param normalX the x-component of the contact normal
+     * @param normalY the y-component of the contact normal
+     */
+    public void set(double time, double normalX, double normalY) {
+        this.time = time;
+        this.normalX = normalX;
+        this.normalY = normalY;
+    }
+
+    /**
+     * Returns the parametric entry time along the segment.
+     *
+     * @return the entry time, between 0 and 1
+     */
+    public double getTime() {
+        return this.time;
+    }
+
+    /**
+     * Returns the x-component of the contact normal.
+     *
+     * @return -1 for the left edge, 1 for the right edge, 0 for the top and bottom edges
+     */
+    public double getNormalX() {
+        return this.normalX;
+    }
+
+    /**
+     * Returns the y-component of the contact normal.
+     *
+     * @return -1 for the top edge, 1 for the bottom edge, 0 for the left and right edges
+     */
+    public double getNormalY() {
+        return this.normalY;
+    }
+}
@@ -87,6 +87,6 @@ public class Velocity {
      * @return the magnitude of the velocity
      */
     public double getVelocity() {
-        return Math.sqrt(Math.pow(this.getDx(), 2) + Math.pow(this.getDy(), 2));
+        return GeometryKernel.length(this.dx, this.dy);
     }
 }
@@ -0,0 +1,148 @@
+package level;
+
+// 322613720 Stav Reuven
+
+import arkanoid.CollisionIndexType;
+import arkanoid.Game;
+import arkanoid.InputSource;
+import arkanoid.PhysicsMode;
+import arkanoid.Screen;
+
+import java.io.IOException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * The GameSession class plays levels one after the other in the same window, the score carrying
+ * over, until a level is lost or the last one is cleared.
+ * The session holds two games on the same screen and input. While one plays a level, the next level
+ * is loaded into the other one on a background thread: its image is read, its bricks and balls are
+ * created and its collision index is built. When the level ends, the prepared game takes over at
+ * the frame boundary, so the transition does no loading and no bulk allocation on the game thread.
+ * The finished game is then reset and prepares the level after, so the sprite collections,
+ * environments and collision indexes of both games are reused for the whole session.
+ */
+public class GameSession {
+    private final Screen screen;
+    private final LevelLibrary library;
+    private final int[] levelIds;
+    private final Game[] games;
+    private int score;
+
+    /**
+     * Constructs a session of levels.
+     *
+     * @param screen   the screen the levels are drawn on, or null to play them headless
+     * @param input    the source of the player's input
+     * @param library  the library the levels are loaded from
+     * @param levelIds the ids of the levels, in the order they are played
+     */
+    public GameSession(Screen screen, InputSource input, LevelLibrary library, int... levelIds) {
+        this.screen = screen;
+        this.library = library;
+        this.levelIds = levelIds.clone();
+        this.games = new Game[] {new Game(screen, input), new Game(screen, input)};
+    }
+
+    /**
+     * Sets the physics mode of the games of the session.
+     *
+     * @param mode the physics mode
+     */
+    public void setPhysicsMode(PhysicsMode mode) {
+        for (Game game : this.games) {
+            game.setPhysicsMode(mode);
+        }
+    }
+
+    /**
+     * Sets the collision index of the games of the session.
+     *
+     * @param type the type of the collision index
+     */
+    public void setCollisionIndex(CollisionIndexType type) {
+        for (Game game : this.games) {
+            game.setCollisionIndex(type);
+        }
+    }
+
+    /**
+     * Sets whether the games of the session simulate and render on separate threads.
+     *
+     * @param pipelined true to pipeline the games, false to run them on a single thread
+     */
+    public void setPipelined(boolean pipelined) {
+        for (Game game : this.games) {
+            game.setPipelined(pipelined);
+        }
+    }
+
+    /**
+     * Returns the score of the session so far.
+     *
+     * @return the score
+     */
+    public int getScore() {
+        return this.score;
+    }
+
+    /**
+     * Plays the levels in order until one is lost or all are cleared, then closes the window.
+     *
+     * @return the number of levels cleared
+     * @throws IOException if a level cannot be loaded
+     */
+    public int run() throws IOException {
+        ExecutorService loader = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "level-loader");
+            thread.setDaemon(true);
+            return thread;
+        });
+        int cleared = 0;
+        try {
+            Future<Game> next = this.levelIds.length == 0 ? null : prepare(loader, this.games[0], this.levelIds[0]);
+            for (int i = 0; i < this.levelIds.length; i++) {
+                Game current = await(next);
+                current.setScore(this.score);
+                next = i + 1 < this.levelIds.length
+                        ? prepare(loader, this.games[(i + 1) % 2], this.levelIds[i + 1]) : null;
+                current.play();
+                this.score = current.getScore();
+                if (!current.isCleared()) {
+                    break;
+                }
+                cleared++;
+            }
+        } finally {
+            loader.shutdownNow();
+            if (this.screen != null) {
+                this.screen.close();
+            }
+        }
+        return cleared;
+    }
+
+    private Future<Game> prepare(ExecutorService loader, Game game, int levelId) {
+        return loader.submit(() -> {
+            game.reset();
+            this.library.load(levelId).applyTo(game);
+            return game;
+        });
+    }
+
+    private static Game await(Future<Game> prepared) throws IOException {
+        try {
+            return prepared.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("interrupted while loading a level", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IllegalStateException("cannot load a level", e.getCause());
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package level;
+
+// 322613720 Stav Reuven
+
+import sim.BatchReport;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * The GeneratedLevel class is a level that LevelGenerator produced and vetted: its text, in the
+ * format of level files, its compiled image, ready to set up games, and the report of the games
+ * that vetted it.
+ */
+public class GeneratedLevel {
+    private final String source;
+    private final LevelImage image;
+    private final BatchReport report;
+    private final int candidates;
+
+    /**
+     * Constructs a generated level.
+     *
+     * @param source     the text of the level
+     * @param image      the compiled level
+     * @param report     the report of the games played to vet the level
+     * @param candidates the number of candidates generated until this one was accepted
+     */
+    GeneratedLevel(String source, LevelImage image, BatchReport report, int candidates) {
+        this.source = source;
+        this.image = image;
+        this.report = report;
+        this.candidates = candidates;
+    }
+
+    /**
+     * Returns the text of the level, in the format LevelCompiler reads.
+     *
+     * @return the level text
+     */
+    public String getSource() {
+        return this.source;
+    }
+
+    /**
+     * Returns the compiled level, to set up games with.
+     *
+     * @return the level image
+     */
+    public LevelImage getImage() {
+        return this.image;
+    }
+
+    /**
+     * Returns the report of the games played by the scripted paddle to vet the level.
+     *
+     * @return the vetting report
+     */
+    public BatchReport getReport() {
+        return this.report;
+    }
+
+    /**
+     * Returns the number of candidates generated until this level was accepted, itself included.
+     *
+     * @return the number of candidates
+     */
+    public int getCandidates() {
+        return this.candidates;
+    }
+
+    /**
+     * Writes the text of the level as the level file of a library, so it can be played like the
+     * levels shipped with the game.
+     *
+     * @param library the library to add the level to
+     * @param levelId the id to give the level
+     * @return the path of the level file
+     * @throws IOException if the file cannot be written
+     */
+    public Path writeTo(LevelLibrary library, int levelId) throws IOException {
+        Files.createDirectories(library.getSourceDirectory());
+        Path file = library.getSourcePath(levelId);
+        Files.writeString(file, this.source);
+        return file;
+    }
+}
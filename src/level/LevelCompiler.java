@@ -0,0 +1,338 @@
+package level;
+
+// 322613720 Stav Reuven
+
+import arkanoid.GameEnvironment;
+import geometry.Velocity;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * The LevelCompiler class turns a level written as text into a binary level image, see LevelFormat.
+ * A level file is made of lines, and everything from a '#' on is a comment, unless the '#' starts
+ * a color written as "#rrggbb":
+ * <pre>
+ * paddle X Y WIDTH HEIGHT SPEED
+ * ball X Y ANGLE SPEED RADIUS COLOR      (one line per ball)
+ * field X Y CELL_WIDTH CELL_HEIGHT
+ * brick SYMBOL COLOR [HIT_POINTS]       (one line per kind of brick)
+ * row SYMBOLS                           (one line per row of the field, '.' for an empty cell)
+ * </pre>
+ * Colors are names such as "red" or "lightgray", or "#rrggbb". Rows may differ in length; the field
+ * is as wide as the longest. Light gray bricks cannot be destroyed, like walls. A ball radius is at
+ * most GameEnvironment.MAX_BALL_RADIUS, the widest circle the collision index of a game can sweep.
+ */
+public final class LevelCompiler {
+    private static final char EMPTY = '.';
+    private static final String SOURCE_SUFFIX = ".level";
+
+    private LevelCompiler() {
+    }
+
+    /**
+     * Compiles a level file into a level image. The image is written next to its final path and
+     * then moved into place, so a reader never sees a half-written image.
+     *
+     * @param source  the path of the level file
+     * @param levelId the id of the level
+     * @param image   the path of the image to write
+     * @throws IOException if the level file cannot be read or is not a valid level, or the image
+     *                     cannot be written
+     */
+    public static void compile(Path source, int levelId, Path image) throws IOException {
+        Definition level = parse(source);
+        Path parent = image.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path temporary = Files.createTempFile(parent, image.getFileName().toString(), ".tmp");
+        try {
+            try (OutputStream file = Files.newOutputStream(temporary);
+                 DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file))) {
+                level.write(out, levelId);
+            }
+            Files.move(temporary, image, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * Compiles the text of a level into a level image held in memory, for a level that has no file,
+     * such as a generated one.
+     *
+     * @param text    the text of the level
+     * @param levelId the id of the level
+     * @return the level image
+     * @throws IOException if the text is not a valid level
+     */
+    public static LevelImage compile(String text, int levelId) throws IOException {
+        String name = "level " + levelId;
+        Definition level = parse(new BufferedReader(new StringReader(text)), name);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            level.write(out, levelId);
+        }
+        return LevelImage.wrap(ByteBuffer.wrap(bytes.toByteArray()), name);
+    }
+
+    /**
+     * Compiles every level file named ID.level in a directory whose image, ID.lvl in the cache
+     * directory, is missing or older than the file.
+     *
+     * @param args the directory of the level files and the cache directory, levels and levels/cache
+     *             by default
+     * @throws IOException if a level cannot be compiled
+     */
+    public static void main(String[] args) throws IOException {
+        LevelLibrary library = args.length >= 2 ? new LevelLibrary(Paths.get(args[0]), Paths.get(args[1]))
+                : LevelLibrary.standard();
+        int compiled = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(library.getSourceDirectory(),
+                "*" + SOURCE_SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                int levelId = Integer.parseInt(name.substring(0, name.length() - SOURCE_SUFFIX.length()));
+                if (library.refresh(levelId)) {
+                    compiled++;
+                }
+            }
+        }
+        System.out.println(compiled + " level(s) compiled into " + library.getCacheDirectory());
+    }
+
+    private static Definition parse(Path source) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(source)) {
+            return parse(reader, source.toString());
+        }
+    }
+
+    private static Definition parse(BufferedReader reader, String name) throws IOException {
+        Definition level = new Definition();
+        String line;
+        int number = 0;
+        while ((line = reader.readLine()) != null) {
+            number++;
+            String text = withoutComment(line).trim();
+            if (text.isEmpty()) {
+                continue;
+            }
+            try {
+                level.parseLine(text.split("\\s+"));
+            } catch (IllegalArgumentException e) {
+                throw new IOException(name + ":" + number + ": " + e.getMessage());
+            }
+        }
+        try {
+            level.check();
+        } catch (IllegalArgumentException e) {
+            throw new IOException(name + ": " + e.getMessage());
+        }
+        return level;
+    }
+
+    private static String withoutComment(String line) {
+        for (int i = line.indexOf('#'); i >= 0; i = line.indexOf('#', i + 1)) {
+            int end = i;
+            while (end < line.length() && !Character.isWhitespace(line.charAt(end))) {
+                end++;
+            }
+            boolean wordStart = i == 0 || Character.isWhitespace(line.charAt(i - 1));
+            if (!wordStart || !Palette.isRgb(line.substring(i, end))) {
+                return line.substring(0, i);
+            }
+        }
+        return line;
+    }
+
+    /**
+     * A level as read from its text, before it is written as an image.
+     */
+    private static final class Definition {
+        private double[] paddle;
+        private int paddleSpeed;
+        private final List<Integer> palette = new ArrayList<>();
+        private final List<double[]> balls = new ArrayList<>();
+        private final List<int[]> ballInts = new ArrayList<>();
+        private double[] field;
+        private final int[] brickColor = new int[Character.MAX_VALUE + 1];
+        private final byte[] brickHitPoints = new byte[Character.MAX_VALUE + 1];
+        private final List<String> rows = new ArrayList<>();
+
+        void parseLine(String[] words) {
+            switch (words[0]) {
+                case "paddle":
+                    arguments(words, 5, 5);
+                    this.paddle = new double[] {number(words[1]), number(words[2]), number(words[3]),
+                        number(words[4])};
+                    this.paddleSpeed = integer(words[5], 1, Integer.MAX_VALUE);
+                    break;
+                case "ball":
+                    arguments(words, 6, 6);
+                    Velocity v = Velocity.fromAngleAndSpeed(number(words[3]), number(words[4]));
+                    this.balls.add(new double[] {number(words[1]), number(words[2]), v.getDx(), v.getDy()});
+                    int radius = integer(words[5], 1, Integer.MAX_VALUE);
+                    if (radius > GameEnvironment.MAX_BALL_RADIUS) {
+                        throw new IllegalArgumentException("a ball radius is at most "
+                                + GameEnvironment.MAX_BALL_RADIUS + ", not " + radius);
+                    }
+                    this.ballInts.add(new int[] {radius, color(words[6])});
+                    break;
+                case "field":
+                    arguments(words, 4, 4);
+                    this.field = new double[] {number(words[1]), number(words[2]), number(words[3]),
+                        number(words[4])};
+                    break;
+                case "brick":
+                    arguments(words, 2, 3);
+                    if (words[1].length() != 1 || words[1].charAt(0) == EMPTY) {
+                        throw new IllegalArgumentException("a brick symbol is one character other than '.'");
+                    }
+                    char symbol = words[1].charAt(0);
+                    this.brickColor[symbol] = color(words[2]) + 1;
+                    this.brickHitPoints[symbol] = (byte) (words.length > 3 ? integer(words[3], 1, Byte.MAX_VALUE) : 1);
+                    break;
+                case "row":
+                    arguments(words, 1, 1);
+                    for (char cell : words[1].toCharArray()) {
+                        if (cell != EMPTY && this.brickColor[cell] == 0) {
+                            throw new IllegalArgumentException("unknown brick '" + cell + "'");
+                        }
+                    }
+                    this.rows.add(words[1]);
+                    break;
+                default:
+                    throw new IllegalArgumentException("unknown line \"" + words[0] + "\"");
+            }
+        }
+
+        void check() {
+            if (this.paddle == null || this.field == null) {
+                throw new IllegalArgumentException("a level needs a paddle and a field");
+            }
+            if (this.balls.isEmpty()) {
+                throw new IllegalArgumentException("a level needs at least one ball");
+            }
+            if (this.palette.size() > 256) {
+                throw new IllegalArgumentException("a level has at most 256 colors");
+            }
+            for (String row : this.rows) {
+                for (char symbol : row.toCharArray()) {
+                    if (symbol != EMPTY) {
+                        return;
+                    }
+                }
+            }
+            throw new IllegalArgumentException("a level needs at least one brick");
+        }
+
+        void write(DataOutputStream out, int levelId) throws IOException {
+            out.writeInt(LevelFormat.MAGIC);
+            out.writeInt(LevelFormat.VERSION);
+            out.writeInt(levelId);
+            for (double value : this.paddle) {
+                out.writeDouble(value);
+            }
+            out.writeInt(this.paddleSpeed);
+            out.writeInt(this.palette.size());
+            for (int rgb : this.palette) {
+                out.writeInt(rgb);
+            }
+            out.writeInt(this.balls.size());
+            for (int i = 0; i < this.balls.size(); i++) {
+                for (double value : this.balls.get(i)) {
+                    out.writeDouble(value);
+                }
+                out.writeInt(this.ballInts.get(i)[0]);
+                out.writeInt(this.ballInts.get(i)[1]);
+            }
+
+            int columns = 0;
+            for (String row : this.rows) {
+                columns = Math.max(columns, row.length());
+            }
+            int cells = columns * this.rows.size();
+            byte[] colorIndices = new byte[cells];
+            byte[] hitPoints = new byte[cells];
+            BitSet alive = new BitSet(cells);
+            for (int row = 0; row < this.rows.size(); row++) {
+                String symbols = this.rows.get(row);
+                for (int column = 0; column < symbols.length(); column++) {
+                    char symbol = symbols.charAt(column);
+                    if (symbol != EMPTY) {
+                        int cell = row * columns + column;
+                        colorIndices[cell] = (byte) (this.brickColor[symbol] - 1);
+                        hitPoints[cell] = this.brickHitPoints[symbol];
+                        alive.set(cell);
+                    }
+                }
+            }
+            for (double value : this.field) {
+                out.writeDouble(value);
+            }
+            out.writeInt(columns);
+            out.writeInt(this.rows.size());
+            out.writeInt(alive.cardinality());
+            out.write(colorIndices);
+            out.write(hitPoints);
+            byte[] aliveBytes = alive.toByteArray();
+            out.writeInt(aliveBytes.length);
+            out.write(aliveBytes);
+        }
+
+        private int color(String name) {
+            int rgb = Palette.rgbOf(name);
+            if (rgb == 0) {
+                throw new IllegalArgumentException("unknown color \"" + name + "\"");
+            }
+            int index = this.palette.indexOf(rgb);
+            if (index < 0) {
+                index = this.palette.size();
+                this.palette.add(rgb);
+            }
+            return index;
+        }
+
+        private static void arguments(String[] words, int least, int most) {
+            int count = words.length - 1;
+            if (count < least || count > most) {
+                throw new IllegalArgumentException("\"" + words[0] + "\" takes "
+                        + (least == most ? String.valueOf(least) : least + " to " + most) + " values, not " + count);
+            }
+        }
+
+        private static double number(String word) {
+            try {
+                return Double.parseDouble(word);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("not a number: " + word);
+            }
+        }
+
+        private static int integer(String word, int least, int most) {
+            int value;
+            try {
+                value = Integer.parseInt(word);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("not a whole number: " + word);
+            }
+            if (value < least || value > most) {
+                throw new IllegalArgumentException(word + " is out of range");
+            }
+            return value;
+        }
+    }
+}
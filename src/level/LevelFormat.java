@@ -0,0 +1,28 @@
+package level;
+
+// 322613720 Stav Reuven
+
+/**
+ * The LevelFormat class holds the layout of a compiled level image, shared by the compiler and the
+ * loader. All numbers are big-endian, and the sections follow each other in this order:
+ * <ul>
+ * <li>header: the magic number, the format version and the level id, as ints;</li>
+ * <li>paddle: x, y, width and height as doubles, then its speed as an int;</li>
+ * <li>palette: the number of colors, then the RGB value of each as an int;</li>
+ * <li>spawn table: the number of balls, then for each its center x and y and its velocity dx and
+ *     dy as doubles, its radius and its palette index as ints;</li>
+ * <li>field: its x, y, cell width and cell height as doubles, then the number of columns, of rows
+ *     and of live cells as ints;</li>
+ * <li>cells: one palette index byte per cell, then one hit points byte per cell, row by row,
+ *     then the length of the live-cell bit set in bytes as an int and its bytes, as written by
+ *     BitSet.toByteArray().</li>
+ * </ul>
+ */
+final class LevelFormat {
+    static final int MAGIC = 0x41524B4C;
+    static final int VERSION = 1;
+    static final int BALL_BYTES = 4 * 8 + 2 * 4;
+
+    private LevelFormat() {
+    }
+}
@@ -0,0 +1,250 @@
+package level;
+
+// 322613720 Stav Reuven
+
+import sim.BatchReport;
+import sim.BatchRunner;
+import sim.TrackingPaddle;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * The LevelGenerator class makes up levels from a seed and keeps only the ones worth playing.
+ * A candidate is a brick wall, mirror-symmetric like a hand-made one, of a few colors laid out in
+ * rows, columns, a checkerboard or at random, with one to three balls starting above the paddle.
+ * Since a ball only breaks bricks of a color other than its own, and takes the color of every
+ * brick it breaks, some walls cannot be cleared at all, and others take too long.
+ * To tell, each candidate is played headless by a TrackingPaddle in a batch of short games run in
+ * parallel by a BatchRunner. A small batch is played first and a candidate that clears none of it
+ * is rejected at once; otherwise the rest of the batch is played, and the candidate is accepted if
+ * enough of the games clear it, quickly enough on average.
+ * The same seed always generates the same level, whatever the number of threads.
+ */
+public class LevelGenerator {
+    /**
+     * The default number of games played to vet a candidate.
+     */
+    public static final int DEFAULT_TRIALS = 32;
+    /**
+     * The default length of a vetting game, in frames: 90 seconds of game time.
+     */
+    public static final long DEFAULT_MAX_FRAMES = 60L * 90;
+    /**
+     * The default share of the vetting games that must clear a candidate.
+     */
+    public static final double DEFAULT_MIN_CLEAR_RATE = 0.25;
+    /**
+     * The default longest mean time to clear a candidate, in frames: 60 seconds of game time.
+     */
+    public static final double DEFAULT_MAX_MEAN_CLEAR_FRAMES = 60 * 60;
+
+    private static final int SCREENING_TRIALS = 8;
+    private static final int MAX_CANDIDATES = 256;
+    private static final int MIN_HALF_BRICKS = 3;
+    private static final String[] BRICK_COLORS = {"red", "yellow", "blue", "pink", "green", "cyan", "magenta",
+        "orange"};
+    private static final String[] BALL_COLORS = {"black", "white", "darkgray"};
+    private static final double ARENA_LEFT = 20;
+    private static final double ARENA_WIDTH = 760;
+    private static final double CELL_HEIGHT = 20;
+
+    private final long seed;
+    private final int trials;
+    private final long maxFrames;
+    private final double minClearRate;
+    private final double maxMeanClearFrames;
+
+    /**
+     * Constructs a generator with the default vetting thresholds.
+     *
+     * @param seed the seed of the levels
+     */
+    public LevelGenerator(long seed) {
+        this(seed, DEFAULT_TRIALS, DEFAULT_MAX_FRAMES, DEFAULT_MIN_CLEAR_RATE, DEFAULT_MAX_MEAN_CLEAR_FRAMES);
+    }
+
+    /**
+     * Constructs a generator.
+     *
+     * @param seed               the seed of the levels
+     * @param trials             the number of games played to vet a candidate, at least 8
+     * @param maxFrames          the largest number of frames a vetting game may last
+     * @param minClearRate       the share of the vetting games that must clear a candidate, above 0
+     * @param maxMeanClearFrames the longest mean number of frames the cleared games may take
+     */
+    public LevelGenerator(long seed, int trials, long maxFrames, double minClearRate, double maxMeanClearFrames) {
+        if (trials < SCREENING_TRIALS) {
+            throw new IllegalArgumentException("at least " + SCREENING_TRIALS + " trials are needed: " + trials);
+        }
+        if (minClearRate <= 0 || minClearRate > 1) {
+            throw new IllegalArgumentException("the clear rate must be above 0 and at most 1: " + minClearRate);
+        }
+        this.seed = seed;
+        this.trials = trials;
+        this.maxFrames = maxFrames;
+        this.minClearRate = minClearRate;
+        this.maxMeanClearFrames = maxMeanClearFrames;
+    }
+
+    /**
+     * Generates candidates until one passes vetting, playing the vetting games on a pool.
+     *
+     * @param levelId the id of the level
+     * @param pool    the pool to play the vetting games on
+     * @return the first candidate that passed
+     * @throws IllegalStateException if no candidate passes, which takes thresholds no level can meet
+     */
+    public GeneratedLevel generate(int levelId, ForkJoinPool pool) {
+        SplittableRandom random = new SplittableRandom(this.seed);
+        for (int candidate = 1; candidate <= MAX_CANDIDATES; candidate++) {
+            long candidateSeed = random.nextLong();
+            String source = layout(new SplittableRandom(candidateSeed));
+            LevelImage image;
+            try {
+                image = LevelCompiler.compile(source, levelId);
+            } catch (IOException e) {
+                throw new IllegalStateException("generated an invalid level:\n" + source, e);
+            }
+            BatchReport report = vet(image, candidateSeed, pool);
+            if (report != null) {
+                String vetted = String.format("# Generated from seed %d, candidate %d: cleared %.0f%% of %d games,"
+                                + " in %.1f seconds on average%n", this.seed, candidate, 100 * report.getClearRate(),
+                        report.getGames(), report.getMeanClearFrames() / 60) + source;
+                return new GeneratedLevel(vetted, image, report, candidate);
+            }
+        }
+        throw new IllegalStateException("no level out of " + MAX_CANDIDATES + " candidates passed");
+    }
+
+    /**
+     * Plays the vetting games of a candidate.
+     *
+     * @return the report of the games if the candidate passed, null if it was rejected
+     */
+    private BatchReport vet(LevelImage image, long candidateSeed, ForkJoinPool pool) {
+        BatchReport report = new BatchRunner(SCREENING_TRIALS, candidateSeed, this.maxFrames, TrackingPaddle::new,
+                image::applyTo).run(pool);
+        if (report.getCleared() == 0) {
+            return null;
+        }
+        // The rest of the batch, with seeds of its own
+        report.merge(new BatchRunner(this.trials - SCREENING_TRIALS, ~candidateSeed, this.maxFrames,
+                TrackingPaddle::new, image::applyTo).run(pool));
+        if (report.getClearRate() < this.minClearRate || report.getMeanClearFrames() > this.maxMeanClearFrames) {
+            return null;
+        }
+        return report;
+    }
+
+    /**
+     * Writes the text of a candidate level.
+     */
+    private static String layout(SplittableRandom random) {
+        StringBuilder text = new StringBuilder();
+        text.append("paddle 350 560 100 20 8\n");
+
+        int balls = 1 + random.nextInt(3);
+        String ballColor = BALL_COLORS[random.nextInt(BALL_COLORS.length)];
+        for (int i = 0; i < balls; i++) {
+            int x = 250 + random.nextInt(300);
+            int y = 420 + random.nextInt(100);
+            // Upwards, at least 25 degrees off the horizontal
+            int angle = 205 + random.nextInt(131);
+            double speed = 4 + random.nextInt(5) * 0.5;
+            text.append("ball ").append(x).append(' ').append(y).append(' ').append(angle).append(' ')
+                    .append(speed).append(" 5 ").append(ballColor).append('\n');
+        }
+
+        int columns = 2 * (3 + random.nextInt(3));
+        int rows = 2 + random.nextInt(3);
+        int cellWidth = (int) (ARENA_WIDTH / (columns + 1 + random.nextInt(3)));
+        double originX = ARENA_LEFT + (ARENA_WIDTH - columns * cellWidth) / 2;
+        int originY = 60 + random.nextInt(61);
+        text.append("field ").append(originX).append(' ').append(originY).append(' ').append(cellWidth)
+                .append(' ').append(CELL_HEIGHT).append('\n');
+
+        int kinds = 3 + random.nextInt(3);
+        int first = random.nextInt(BRICK_COLORS.length);
+        for (int kind = 0; kind < kinds; kind++) {
+            int hitPoints = random.nextInt(8) == 0 ? 2 : 1;
+            text.append("brick ").append((char) ('a' + kind)).append(' ')
+                    .append(BRICK_COLORS[(first + kind) % BRICK_COLORS.length]).append(' ').append(hitPoints)
+                    .append('\n');
+        }
+
+        int pattern = random.nextInt(4);
+        double density = 0.4 + 0.5 * random.nextDouble();
+        boolean[][] filled = new boolean[rows][columns / 2];
+        int bricks = 0;
+        for (int row = 0; row < rows; row++) {
+            for (int column = 0; column < columns / 2; column++) {
+                filled[row][column] = random.nextDouble() < density;
+                bricks += filled[row][column] ? 1 : 0;
+            }
+        }
+        while (bricks < MIN_HALF_BRICKS) {
+            int row = random.nextInt(rows);
+            int column = random.nextInt(columns / 2);
+            if (!filled[row][column]) {
+                filled[row][column] = true;
+                bricks++;
+            }
+        }
+        int[][] kind = new int[rows][columns / 2];
+        for (int row = 0; row < rows; row++) {
+            for (int column = 0; column < columns / 2; column++) {
+                switch (pattern) {
+                    case 0:
+                        kind[row][column] = row % kinds;
+                        break;
+                    case 1:
+                        kind[row][column] = column % kinds;
+                        break;
+                    case 2:
+                        kind[row][column] = (row + column) % kinds;
+                        break;
+                    default:
+                        kind[row][column] = random.nextInt(kinds);
+                }
+            }
+        }
+        for (int row = 0; row < rows; row++) {
+            text.append("row ");
+            for (int column = 0; column < columns; column++) {
+                // The right half mirrors the left half
+                int half = column < columns / 2 ? column : columns - 1 - column;
+                text.append(filled[row][half] ? (char) ('a' + kind[row][half]) : '.');
+            }
+            text.append('\n');
+        }
+        return text.toString();
+    }
+
+    /**
+     * Generates a level and writes it to the level directory, levels/ID.level.
+     * Arguments, all optional: the id of the level (default 100), the seed (default: random), and the
+     * number of worker threads (default: one per core).
+     *
+     * @param args the level id, the seed and the number of threads
+     * @throws IOException if the level cannot be written
+     */
+    public static void main(String[] args) throws IOException {
+        int levelId = args.length > 0 ? Integer.parseInt(args[0]) : 100;
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : new SplittableRandom().nextLong();
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            long start = System.nanoTime();
+            GeneratedLevel level = new LevelGenerator(seed).generate(levelId, pool);
+            long elapsed = System.nanoTime() - start;
+            Path file = level.writeTo(LevelLibrary.standard(), levelId);
+            System.out.printf("%s written after %d candidate(s) in %d ms: %s%n", file, level.getCandidates(),
+                    elapsed / 1_000_000, level.getReport());
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package level;
+
+// 322613720 Stav Reuven
+
+import arkanoid.Game;
+import geometry.Ball;
+import geometry.BlockField;
+import geometry.Point;
+import geometry.Rectangle;
+import geometry.Velocity;
+
+import java.awt.Color;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The LevelImage class is a compiled level, memory-mapped from its image file (see LevelFormat)
+ * or compiled in memory.
+ * Mapping reads nothing but the header; the pages of the image are read as the level is set up,
+ * and the cells of the brick wall are copied into the BlockField in bulk, so setting up a level
+ * takes time in proportion to its size in bytes, with no parsing. An image may set up any number
+ * of games, one at a time or from several threads.
+ */
+public class LevelImage {
+    private final ByteBuffer image;
+    private final int levelId;
+    private final List<Color> palette;
+    private final int ballsOffset;
+    private final int ballCount;
+    private final int fieldOffset;
+
+    /**
+     * Maps a level image file.
+     *
+     * @param path the path of the image
+     * @return the level image
+     * @throws IOException if the file cannot be read or is not a level image
+     */
+    public static LevelImage map(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("level image too large: " + path);
+            }
+            // The mapping stays valid after the channel is closed
+            return new LevelImage(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), path.toString());
+        }
+    }
+
+    /**
+     * Wraps a level image held in memory.
+     *
+     * @param image the bytes of the image
+     * @param name  the name of the image in error messages
+     * @return the level image
+     * @throws IOException if the bytes are not a level image
+     */
+    static LevelImage wrap(ByteBuffer image, String name) throws IOException {
+        return new LevelImage(image, name);
+    }
+
+    private LevelImage(ByteBuffer image, String name) throws IOException {
+        this.image = image;
+        try {
+            if (image.getInt(0) != LevelFormat.MAGIC) {
+                throw new IOException("not a level image: " + name);
+            }
+            if (image.getInt(4) != LevelFormat.VERSION) {
+                throw new IOException("unsupported level image version " + image.getInt(4) + ": " + name);
+            }
+            this.levelId = image.getInt(8);
+            int offset = 12 + 4 * 8 + 4;
+            int colors = image.getInt(offset);
+            offset += 4;
+            this.palette = new ArrayList<>(colors);
+            for (int i = 0; i < colors; i++) {
+                this.palette.add(Palette.colorOf(image.getInt(offset)));
+                offset += 4;
+            }
+            this.ballCount = image.getInt(offset);
+            this.ballsOffset = offset + 4;
+            this.fieldOffset = this.ballsOffset + this.ballCount * LevelFormat.BALL_BYTES;
+            // Reach for the last byte, so a truncated image fails here and not while a game is set up
+            int cells = image.getInt(this.fieldOffset + 32) * image.getInt(this.fieldOffset + 36);
+            int aliveOffset = this.fieldOffset + 4 * 8 + 3 * 4 + 2 * cells;
+            image.get(aliveOffset + 4 + image.getInt(aliveOffset) - 1);
+        } catch (IndexOutOfBoundsException e) {
+            throw new IOException("truncated level image: " + name);
+        }
+    }
+
+    /**
+     * Returns the id of the level.
+     *
+     * @return the level id
+     */
+    public int getLevelId() {
+        return this.levelId;
+    }
+
+    /**
+     * Returns the number of balls the level starts with.
+     *
+     * @return the number of balls
+     */
+    public int getBallCount() {
+        return this.ballCount;
+    }
+
+    /**
+     * Sets up a game with this level: the arena with the paddle of the level, the balls of its spawn
+     * table, and its brick wall. Call it instead of Game.initialize(), once.
+     *
+     * @param game the game to set up
+     */
+    public void applyTo(Game game) {
+        int offset = 12;
+        Rectangle paddle = new Rectangle(this.image.getDouble(offset), this.image.getDouble(offset + 8),
+                this.image.getDouble(offset + 16), this.image.getDouble(offset + 24));
+        game.initializeArena(paddle, this.image.getInt(offset + 32));
+
+        offset = this.ballsOffset;
+        for (int i = 0; i < this.ballCount; i++) {
+            Point center = new Point(this.image.getDouble(offset), this.image.getDouble(offset + 8));
+            Ball ball = new Ball(this.image.getInt(offset + 32), center,
+                    this.palette.get(this.image.getInt(offset + 36)), game.getEnvironment());
+            ball.setVelocity(new Velocity(this.image.getDouble(offset + 16), this.image.getDouble(offset + 24)));
+            game.spawnBall(ball);
+            offset += LevelFormat.BALL_BYTES;
+        }
+
+        offset = this.fieldOffset;
+        int columns = this.image.getInt(offset + 32);
+        int rows = this.image.getInt(offset + 36);
+        int liveCount = this.image.getInt(offset + 40);
+        BlockField field = new BlockField(this.image.getDouble(offset), this.image.getDouble(offset + 8),
+                this.image.getDouble(offset + 16), this.image.getDouble(offset + 24), columns, rows);
+        int cells = columns * rows;
+        int colorsOffset = offset + 44;
+        int aliveOffset = colorsOffset + 2 * cells;
+        field.load(this.palette, this.image.slice(colorsOffset, cells), this.image.slice(colorsOffset + cells, cells),
+                this.image.slice(aliveOffset + 4, this.image.getInt(aliveOffset)), liveCount);
+        game.addBlockField(field);
+    }
+}
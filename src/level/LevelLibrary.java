@@ -0,0 +1,155 @@
+package level;
+
+// 322613720 Stav Reuven
+
+import arkanoid.Game;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.stream.Stream;
+
+/**
+ * The LevelLibrary class finds levels by id: the text of level ID is the file ID.level in the
+ * source directory, and its compiled image is the file ID.lvl in the cache directory. An image
+ * missing from the cache, or older than its text, is compiled when the level is loaded, so the
+ * cache can be deleted at any time and is rebuilt as the levels are played.
+ * Level BUILT_IN_LEVEL is not a file but the level Game.initialize() sets up.
+ */
+public class LevelLibrary {
+    /**
+     * The id of the built-in level, the one Game.initialize() sets up.
+     */
+    public static final int BUILT_IN_LEVEL = 0;
+
+    private static final String SOURCE_SUFFIX = ".level";
+    private static final String IMAGE_SUFFIX = ".lvl";
+
+    private final Path sourceDirectory;
+    private final Path cacheDirectory;
+
+    /**
+     * Constructs a library of the levels in a directory.
+     *
+     * @param sourceDirectory the directory of the level files
+     * @param cacheDirectory  the directory of the compiled images
+     */
+    public LevelLibrary(Path sourceDirectory, Path cacheDirectory) {
+        this.sourceDirectory = sourceDirectory;
+        this.cacheDirectory = cacheDirectory;
+    }
+
+    /**
+     * Returns the library of the levels shipped with the game, in levels/, cached in levels/cache/.
+     *
+     * @return the standard library
+     */
+    public static LevelLibrary standard() {
+        return new LevelLibrary(Paths.get("levels"), Paths.get("levels", "cache"));
+    }
+
+    /**
+     * Returns the directory of the level files.
+     *
+     * @return the source directory
+     */
+    public Path getSourceDirectory() {
+        return this.sourceDirectory;
+    }
+
+    /**
+     * Returns the directory of the compiled images.
+     *
+     * @return the cache directory
+     */
+    public Path getCacheDirectory() {
+        return this.cacheDirectory;
+    }
+
+    /**
+     * Returns the path of the file of a level, whether or not the level exists.
+     *
+     * @param levelId the id of the level
+     * @return the path of the level file
+     */
+    public Path getSourcePath(int levelId) {
+        return this.sourceDirectory.resolve(levelId + SOURCE_SUFFIX);
+    }
+
+    /**
+     * Returns the ids of the levels in the source directory, in increasing order.
+     *
+     * @return the level ids
+     * @throws IOException if the source directory cannot be listed
+     */
+    public int[] getLevelIds() throws IOException {
+        try (Stream<Path> files = Files.list(this.sourceDirectory)) {
+            int[] ids = files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.endsWith(SOURCE_SUFFIX))
+                    .map(name -> name.substring(0, name.length() - SOURCE_SUFFIX.length()))
+                    .filter(id -> id.matches("\\d{1,9}"))
+                    .mapToInt(Integer::parseInt)
+                    .toArray();
+            Arrays.sort(ids);
+            return ids;
+        }
+    }
+
+    /**
+     * Loads a level, compiling it first if its image is missing or out of date.
+     *
+     * @param levelId the id of the level
+     * @return the mapped level image
+     * @throws IOException if the level does not exist or cannot be compiled or read
+     */
+    public LevelImage load(int levelId) throws IOException {
+        refresh(levelId);
+        return LevelImage.map(imagePath(levelId));
+    }
+
+    /**
+     * Sets up a game with a level: the built-in level for BUILT_IN_LEVEL, otherwise the level of
+     * this library.
+     *
+     * @param game    the game to set up
+     * @param levelId the id of the level
+     * @throws IOException if the level does not exist or cannot be compiled or read
+     */
+    public void setUp(Game game, int levelId) throws IOException {
+        if (levelId == BUILT_IN_LEVEL) {
+            game.initialize();
+        } else {
+            load(levelId).applyTo(game);
+        }
+    }
+
+    /**
+     * Compiles a level if its image is missing or older than its text. A level shipped only as an
+     * image is left as it is.
+     *
+     * @param levelId the id of the level
+     * @return true if the level was compiled, false if its image was up to date
+     * @throws IOException if the level does not exist or cannot be compiled
+     */
+    public boolean refresh(int levelId) throws IOException {
+        Path source = getSourcePath(levelId);
+        Path image = imagePath(levelId);
+        boolean hasSource = Files.exists(source);
+        boolean hasImage = Files.exists(image);
+        if (!hasSource && !hasImage) {
+            throw new IOException("no level " + levelId + " in " + this.sourceDirectory);
+        }
+        if (!hasSource || hasImage
+                && Files.getLastModifiedTime(image).compareTo(Files.getLastModifiedTime(source)) >= 0) {
+            return false;
+        }
+        LevelCompiler.compile(source, levelId, image);
+        return true;
+    }
+
+    private Path imagePath(int levelId) {
+        return this.cacheDirectory.resolve(levelId + IMAGE_SUFFIX);
+    }
+}
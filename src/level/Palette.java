@@ -0,0 +1,71 @@
+package level;
+
+// 322613720 Stav Reuven
+
+import java.awt.Color;
+
+/**
+ * The Palette class names the colors a level can use. The game compares colors by identity, so a
+ * color read back from a level image is mapped to the named Color constant of the same RGB value,
+ * the instance the rest of the game uses.
+ */
+final class Palette {
+    private static final String[] NAMES = {"black", "blue", "cyan", "darkgray", "gray", "green", "lightgray",
+        "magenta", "orange", "pink", "red", "white", "yellow"};
+    private static final Color[] COLORS = {Color.BLACK, Color.BLUE, Color.CYAN, Color.DARK_GRAY, Color.GRAY,
+        Color.GREEN, Color.LIGHT_GRAY, Color.MAGENTA, Color.ORANGE, Color.PINK, Color.RED, Color.WHITE, Color.YELLOW};
+
+    private Palette() {
+    }
+
+    /**
+     * Returns the RGB value of a color given by name, such as "red", or as "#rrggbb".
+     *
+     * @param name the name of the color
+     * @return the RGB value, with an opaque alpha, or 0 if the name is not a color
+     */
+    static int rgbOf(String name) {
+        if (isRgb(name)) {
+            return 0xFF000000 | Integer.parseInt(name.substring(1), 16);
+        }
+        for (int i = 0; i < NAMES.length; i++) {
+            if (NAMES[i].equalsIgnoreCase(name)) {
+                return COLORS[i].getRGB();
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Returns whether a word is a color written as "#rrggbb".
+     *
+     * @param word the word
+     * @return true if the word is '#' and six hexadecimal digits, false otherwise
+     */
+    static boolean isRgb(String word) {
+        if (word.length() != 7 || word.charAt(0) != '#') {
+            return false;
+        }
+        for (int i = 1; i < word.length(); i++) {
+            if (Character.digit(word.charAt(i), 16) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the color of an RGB value: the named constant if there is one, a new color otherwise.
+     *
+     * @param rgb the RGB value, with an opaque alpha
+     * @return the color
+     */
+    static Color colorOf(int rgb) {
+        for (Color color : COLORS) {
+            if (color.getRGB() == rgb) {
+                return color;
+            }
+        }
+        return new Color(rgb);
+    }
+}
@@ -8,7 +8,10 @@ import geometry.Block;
 /**
  * The BallRemover class is responsible for removing balls from the game when they are hit.
  * It implements the HitListener interface and is used to keep track of the number of balls
- * remaining in the game.
+ * remaining in the game. A ball that is no longer in the game is ignored, so a ball that hits
+ * twice before it is gone is only removed and counted once.
+ * Balls are removed at once rather than through the HitEventBus, since a ball system resolves a
+ * lost ball within its step.
  */
 public class BallRemover implements HitListener {
     private Game game;
@@ -27,6 +30,9 @@ public class BallRemover implements HitListener {
 
     @Override
     public void hitEvent(Block beingHit, Ball hitter) {
+        if (!hitter.isInGame()) {
+            return;
+        }
         remainingBalls.decrease(1);
         hitter.removeFromGame(game);
     }
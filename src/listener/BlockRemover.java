@@ -8,9 +8,11 @@ import geometry.Block;
 
 /**
  * BlockRemover is responsible for removing blocks from the game and updating the count of remaining blocks.
- * It implements HitListener to handle hit events on blocks.
+ * It implements HitListener to handle hit events on blocks, and HitEventSubscriber to handle the
+ * destroyed bricks published to a HitEventBus. A block that is no longer in the game is ignored,
+ * so a block reported twice is only removed and counted once.
  */
-public class BlockRemover implements HitListener {
+public class BlockRemover implements HitListener, HitEventSubscriber {
     private Game game;
     private Counter remainingBlocks;
 
@@ -26,9 +28,21 @@ public class BlockRemover implements HitListener {
     }
     @Override
     public void hitEvent(Block beingHit, Ball hitter) {
+        remove(beingHit);
+    }
+
+    @Override
+    public void onHitEvent(HitEventBus events, int event) {
+        remove(events.block(event));
+    }
+
+    private void remove(Block block) {
+        if (!block.isInGame()) {
+            return;
+        }
         remainingBlocks.decrease(1);
-        beingHit.removeHitListener(this);
-        beingHit.removeFromGame(game);
+        block.removeHitListener(this);
+        block.removeFromGame(game);
     }
 }
 
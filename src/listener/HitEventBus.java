@@ -0,0 +1,227 @@
+package listener;
+
+// 322613720 Stav Reuven
+
+import geometry.Block;
+import geometry.BlockField;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The HitEventBus class collects the hit events of a frame and hands them to subscribers in
+ * batches, instead of calling listeners in the middle of collision resolution.
+ * A collision only appends a record to a ring buffer of parallel primitive arrays: the event type,
+ * the brick wall and the cell that was hit, and where the ball was. Nothing is allocated per
+ * event once the ring has grown to the busiest frame. At the end of every physics step the game
+ * calls dispatch(), which hands each subscriber, in the order they subscribed, all the pending
+ * events whose type is in its filter. Events published while dispatching are kept for the next
+ * batch. A record holds no flyweight or per-step object, so a batch stays valid until the next
+ * dispatch and could as well be handed to another thread.
+ */
+public class HitEventBus {
+    /**
+     * A brick was hit but still has hit points left.
+     */
+    public static final int BRICK_HIT = 1;
+    /**
+     * A brick lost its last hit point. It no longer collides, and is removed by a subscriber.
+     */
+    public static final int BRICK_DESTROYED = 1 << 1;
+    /**
+     * A filter accepting events of every type.
+     */
+    public static final int ALL = BRICK_HIT | BRICK_DESTROYED;
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final List<HitEventSubscriber> subscribers;
+    private int[] filters;
+    private int[] types;
+    private BlockField[] fields;
+    private int[] cells;
+    private double[] xs;
+    private double[] ys;
+    private int mask;
+    private long head;
+    private long tail;
+    private long batchStart;
+
+    /**
+     * Constructs an empty bus.
+     */
+    public HitEventBus() {
+        this.subscribers = new ArrayList<>();
+        this.filters = new int[0];
+        allocate(INITIAL_CAPACITY);
+    }
+
+    /**
+     * Subscribes to the events of the given types.
+     *
+     * @param typeFilter the types to receive, or'ed together, such as BRICK_DESTROYED or ALL
+     * @param subscriber the subscriber
+     */
+    public void subscribe(int typeFilter, HitEventSubscriber subscriber) {
+        this.subscribers.add(subscriber);
+        this.filters = Arrays.copyOf(this.filters, this.subscribers.size());
+        this.filters[this.filters.length - 1] = typeFilter;
+    }
+
+    /**
+     * Appends an event to the current batch.
+     *
+     * @param type  the type of the event
+     * @param field the brick wall that was hit
+     * @param cell  the index of the cell that was hit
+     * @param x     the x-coordinate of the center of the ball when it hit
+     * @param y     the y-coordinate of the center of the ball when it hit
+     */
+    public void publish(int type, BlockField field, int cell, double x, double y) {
+        if (this.tail - this.head == this.types.length) {
+            grow();
+        }
+        int slot = (int) (this.tail & this.mask);
+        this.types[slot] = type;
+        this.fields[slot] = field;
+        this.cells[slot] = cell;
+        this.xs[slot] = x;
+        this.ys[slot] = y;
+        this.tail++;
+    }
+
+    /**
+     * Hands all pending events to the subscribers, one subscriber at a time, and empties the batch.
+     */
+    public void dispatch() {
+        int size = pending();
+        if (size == 0) {
+            return;
+        }
+        this.batchStart = this.head;
+        for (int s = 0; s < this.subscribers.size(); s++) {
+            HitEventSubscriber subscriber = this.subscribers.get(s);
+            int filter = this.filters[s];
+            for (int event = 0; event < size; event++) {
+                if ((this.types[slot(event)] & filter) != 0) {
+                    subscriber.onHitEvent(this, event);
+                }
+            }
+        }
+        // The ring may have grown meanwhile, so the batch is found through batchStart
+        for (int event = 0; event < size; event++) {
+            this.fields[slot(event)] = null;
+        }
+        this.head += size;
+    }
+
+    /**
+     * Returns the number of events waiting for the next dispatch.
+     *
+     * @return the number of pending events
+     */
+    public int pending() {
+        return (int) (this.tail - this.head);
+    }
+
+    /**
+     * Returns the type of an event of the current batch.
+     *
+     * @param event the index of the event within the batch
+     * @return the type of the event
+     */
+    public int type(int event) {
+        return this.types[slot(event)];
+    }
+
+    /**
+     * Returns the brick wall an event of the current batch happened on.
+     *
+     * @param event the index of the event within the batch
+     * @return the brick wall that was hit
+     */
+    public BlockField field(int event) {
+        return this.fields[slot(event)];
+    }
+
+    /**
+     * Returns the cell an event of the current batch happened on.
+     *
+     * @param event the index of the event within the batch
+     * @return the index of the cell within its brick wall
+     */
+    public int cell(int event) {
+        return this.cells[slot(event)];
+    }
+
+    /**
+     * Returns the brick an event of the current batch happened on, as a block. The block is a
+     * view of the brick wall that is rebound by the next call.
+     *
+     * @param event the index of the event within the batch
+     * @return the block bound to the brick
+     */
+    public Block block(int event) {
+        int slot = slot(event);
+        return this.fields[slot].cellView(this.cells[slot]);
+    }
+
+    /**
+     * Returns the x-coordinate of the ball of an event of the current batch.
+     *
+     * @param event the index of the event within the batch
+     * @return the x-coordinate of the center of the ball when it hit
+     */
+    public double x(int event) {
+        return this.xs[slot(event)];
+    }
+
+    /**
+     * Returns the y-coordinate of the ball of an event of the current batch.
+     *
+     * @param event the index of the event within the batch
+     * @return the y-coordinate of the center of the ball when it hit
+     */
+    public double y(int event) {
+        return this.ys[slot(event)];
+    }
+
+    private int slot(int event) {
+        return (int) ((this.batchStart + event) & this.mask);
+    }
+
+    /**
+     * Doubles the ring, keeping the pending events in order.
+     */
+    private void grow() {
+        int[] oldTypes = this.types;
+        BlockField[] oldFields = this.fields;
+        int[] oldCells = this.cells;
+        double[] oldXs = this.xs;
+        double[] oldYs = this.ys;
+        int oldMask = this.mask;
+        int size = (int) (this.tail - this.head);
+        allocate(oldTypes.length * 2);
+        for (int i = 0; i < size; i++) {
+            int from = (int) ((this.head + i) & oldMask);
+            this.types[i] = oldTypes[from];
+            this.fields[i] = oldFields[from];
+            this.cells[i] = oldCells[from];
+            this.xs[i] = oldXs[from];
+            this.ys[i] = oldYs[from];
+        }
+        this.batchStart -= this.head;
+        this.head = 0;
+        this.tail = size;
+    }
+
+    private void allocate(int capacity) {
+        this.types = new int[capacity];
+        this.fields = new BlockField[capacity];
+        this.cells = new int[capacity];
+        this.xs = new double[capacity];
+        this.ys = new double[capacity];
+        this.mask = capacity - 1;
+    }
+}
@@ -0,0 +1,18 @@
+package listener;
+
+// 322613720 Stav Reuven
+
+/**
+ * The HitEventSubscriber interface represents an object that handles the hit events published
+ * to a HitEventBus. Its events arrive in a batch once per physics step, and only those of the
+ * types it subscribed to.
+ */
+public interface HitEventSubscriber {
+    /**
+     * This method is called for every event of a batch that passes the filter of the subscriber.
+     *
+     * @param events the bus, from which the fields of the event are read
+     * @param event  the index of the event within the current batch
+     */
+    void onHitEvent(HitEventBus events, int event);
+}
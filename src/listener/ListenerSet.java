@@ -0,0 +1,137 @@
+package listener;
+
+// 322613720 Stav Reuven
+
+import geometry.Ball;
+import geometry.Block;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * The ListenerSet class is an immutable list of hit listeners. Adding or removing a listener
+ * returns another set and leaves this one untouched (copy on write), so a notifier can dispatch
+ * over its set without copying it, and listeners added or removed during a dispatch only take
+ * effect from the next one. A set holds no mutable state at all, so a set may be shared between
+ * notifiers, games and threads, and the empty set is a single constant that keeps nothing alive.
+ * Two sets are equal when they hold equal listeners in the same order, so a game's ListenerTable
+ * can hand one set to all of its notifiers with the same listeners.
+ * Like the list it replaces, a set may hold a listener more than once.
+ */
+public final class ListenerSet {
+    private static final ListenerSet EMPTY = new ListenerSet(new HitListener[0]);
+
+    private final HitListener[] listeners;
+    private final int hash;
+
+    private ListenerSet(HitListener[] listeners) {
+        this.listeners = listeners;
+        this.hash = Arrays.hashCode(listeners);
+    }
+
+    /**
+     * Returns the set without listeners.
+     *
+     * @return the empty set
+     */
+    public static ListenerSet empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Returns this set with a listener appended.
+     *
+     * @param listener the listener to add
+     * @return the set holding the listeners of this set followed by the given one
+     */
+    public ListenerSet with(HitListener listener) {
+        HitListener[] grown = Arrays.copyOf(this.listeners, this.listeners.length + 1);
+        grown[this.listeners.length] = listener;
+        return new ListenerSet(grown);
+    }
+
+    /**
+     * Returns this set with the first occurrence of a listener removed.
+     *
+     * @param listener the listener to remove
+     * @return the set without the listener, or this set if it does not hold the listener
+     */
+    public ListenerSet without(HitListener listener) {
+        int index = indexOf(listener);
+        if (index < 0) {
+            return this;
+        }
+        if (this.listeners.length == 1) {
+            return EMPTY;
+        }
+        HitListener[] shrunk = new HitListener[this.listeners.length - 1];
+        System.arraycopy(this.listeners, 0, shrunk, 0, index);
+        System.arraycopy(this.listeners, index + 1, shrunk, index, shrunk.length - index);
+        return new ListenerSet(shrunk);
+    }
+
+    /**
+     * Returns the number of listeners in the set.
+     *
+     * @return the size of the set
+     */
+    public int size() {
+        return this.listeners.length;
+    }
+
+    /**
+     * Returns whether the set holds no listeners.
+     *
+     * @return true if the set is empty, false otherwise
+     */
+    public boolean isEmpty() {
+        return this.listeners.length == 0;
+    }
+
+    /**
+     * Tells every listener of the set, in order, that a block was hit.
+     *
+     * @param beingHit the block that was hit
+     * @param hitter   the ball that hit it
+     */
+    public void notifyHit(Block beingHit, Ball hitter) {
+        HitListener[] all = this.listeners;
+        switch (all.length) {
+            case 0:
+                return;
+            case 1:
+                all[0].hitEvent(beingHit, hitter);
+                return;
+            default:
+                for (HitListener listener : all) {
+                    listener.hitEvent(beingHit, hitter);
+                }
+        }
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof ListenerSet)) {
+            return false;
+        }
+        ListenerSet set = (ListenerSet) other;
+        return this.hash == set.hash && Arrays.equals(this.listeners, set.listeners);
+    }
+
+    @Override
+    public int hashCode() {
+        return this.hash;
+    }
+
+    private int indexOf(HitListener listener) {
+        for (int i = 0; i < this.listeners.length; i++) {
+            if (Objects.equals(listener, this.listeners[i])) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,43 @@
+package listener;
+
+// 322613720 Stav Reuven
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The ListenerTable class interns the listener sets of one game: notifiers that hold the same
+ * listeners in the same order are handed one shared set, whichever order they were built in.
+ * Sets are matched by content, each listener by equals, like ListenerSet.without().
+ * A table belongs to a single game and is only used by the thread that sets up and steps that
+ * game, so it takes no locks; the games of a batch each have a table of their own, and a table,
+ * with every set it holds, is dropped with its game. It keeps every distinct set ever interned
+ * in its game, which is bounded by the listeners registered there.
+ */
+public final class ListenerTable {
+    private final Map<ListenerSet, ListenerSet> sets = new HashMap<>();
+
+    /**
+     * Returns the set of this table with the same listeners as the given one, adding the given
+     * set to the table if it holds none.
+     *
+     * @param set the set to intern
+     * @return the shared set with the same listeners, in the same order
+     */
+    public ListenerSet intern(ListenerSet set) {
+        if (set.isEmpty()) {
+            return ListenerSet.empty();
+        }
+        ListenerSet known = this.sets.putIfAbsent(set, set);
+        return known == null ? set : known;
+    }
+
+    /**
+     * Returns the number of distinct non-empty sets in the table.
+     *
+     * @return the size of the table
+     */
+    public int size() {
+        return this.sets.size();
+    }
+}
@@ -1,6 +1,7 @@
 package listener;
 
 // 322613720 Stav Reuven
+import arkanoid.FrameSnapshot;
 import arkanoid.Game;
 import arkanoid.Sprite;
 import biuoop.DrawSurface;
@@ -12,6 +13,9 @@ import java.awt.Color;
  */
 public class ScoreIndicator implements Sprite {
     private Counter score;
+    private int shownScore;
+    private String text;
+    private int spriteSlot = -1;
     /**
      * Constructs a ScoreIndicator with the given score counter.
      *
@@ -23,7 +27,21 @@ public class ScoreIndicator implements Sprite {
     @Override
     public void drawOn(DrawSurface d) {
         d.setColor(Color.BLACK);
-        d.drawText(350, 15, "Score: " + this.score.getValue(), 15);
+        d.drawText(350, 15, text(), 15);
+    }
+
+    @Override
+    public void capture(FrameSnapshot snapshot) {
+        snapshot.drawText(350, 15, text(), 15, Color.BLACK);
+    }
+
+    private String text() {
+        // Only build the text again when the score changed
+        if (this.text == null || this.shownScore != this.score.getValue()) {
+            this.shownScore = this.score.getValue();
+            this.text = "Score: " + this.shownScore;
+        }
+        return this.text;
     }
 
     @Override
@@ -31,6 +49,16 @@ public class ScoreIndicator implements Sprite {
 
     }
 
+    @Override
+    public int getSpriteSlot() {
+        return this.spriteSlot;
+    }
+
+    @Override
+    public void setSpriteSlot(int slot) {
+        this.spriteSlot = slot;
+    }
+
     @Override
     public void addToGame(Game g) {
         g.addSprite(this);
@@ -7,9 +7,10 @@ import geometry.Block;
 
 /**
  * The ScoreTrackingListener class implements the HitListener interface to track and update
- * the score whenever a block is hit.
+ * the score whenever a block is hit. As a HitEventSubscriber it scores the events published to
+ * a HitEventBus the same way.
  */
-public class ScoreTrackingListener implements HitListener {
+public class ScoreTrackingListener implements HitListener, HitEventSubscriber {
     private Counter currentScore;
     /**
      * Constructs a ScoreTrackingListener with the given score counter.
@@ -23,4 +24,9 @@ public class ScoreTrackingListener implements HitListener {
     public void hitEvent(Block beingHit, Ball hitter) {
         currentScore.increase(5);
     }
+
+    @Override
+    public void onHitEvent(HitEventBus events, int event) {
+        currentScore.increase(5);
+    }
 }
@@ -0,0 +1,80 @@
+package replay;
+
+// 322613720 Stav Reuven
+
+import arkanoid.Game;
+import arkanoid.InputSource;
+import arkanoid.StepListener;
+
+import java.io.IOException;
+
+/**
+ * The InputRecorder class is an InputSource that passes on the input of another source and
+ * records it to a journal, one record per physics step together with the hash of the game state
+ * after the step. The paddle is the only part of the game reading the input, and physics advances
+ * in fixed steps, so the recorded inputs are all a replay needs to play the steps again exactly.
+ * Every input is passed on and recorded, rewinding included; a rewound step is recorded like any other.
+ * Use it as the input of the game and add it as a step listener of the same game. If the journal
+ * cannot be written, the error is reported on stderr and recording stops, but the game goes on.
+ */
+public class InputRecorder implements InputSource, StepListener {
+    private final InputSource source;
+    private final JournalWriter journal;
+    private final StateHash stateHash;
+    private int inputs;
+    private boolean failed;
+
+    /**
+     * Constructs a recorder of the given input source.
+     *
+     * @param source  the input source the player uses
+     * @param journal the journal to record into
+     */
+    public InputRecorder(InputSource source, JournalWriter journal) {
+        this.source = source;
+        this.journal = journal;
+        this.stateHash = new StateHash();
+    }
+
+    @Override
+    public boolean isLeftPressed() {
+        boolean pressed = this.source.isLeftPressed();
+        if (pressed) {
+            this.inputs |= JournalWriter.LEFT_PRESSED;
+        }
+        return pressed;
+    }
+
+    @Override
+    public boolean isRightPressed() {
+        boolean pressed = this.source.isRightPressed();
+        if (pressed) {
+            this.inputs |= JournalWriter.RIGHT_PRESSED;
+        }
+        return pressed;
+    }
+
+    @Override
+    public boolean isRewindPressed() {
+        boolean pressed = this.source.isRewindPressed();
+        if (pressed) {
+            this.inputs |= JournalWriter.REWIND_PRESSED;
+        }
+        return pressed;
+    }
+
+    @Override
+    public void stepCompleted(Game game) {
+        int recorded = this.inputs;
+        this.inputs = 0;
+        if (this.failed) {
+            return;
+        }
+        try {
+            this.journal.append(recorded, this.stateHash.hash(game));
+        } catch (IOException e) {
+            System.err.println("Recording stopped: " + e.getMessage());
+            this.failed = true;
+        }
+    }
+}
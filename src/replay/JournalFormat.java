@@ -0,0 +1,21 @@
+package replay;
+
+// 322613720 Stav Reuven
+
+/**
+ * The JournalFormat class holds the layout of an input journal, shared by its writer and reader.
+ * A journal is a header followed by one record per physics step, all big-endian:
+ * the header holds the magic number, the format version, the seed, the level id, the ordinal of the
+ * physics mode, the hash of the game state the level was set up in, and the capacity and keyframe
+ * interval of the rewind buffer of the game, both 0 if it had none; each record holds the input bits
+ * of the step followed by the hash of the game state after it.
+ */
+final class JournalFormat {
+    static final int MAGIC = 0x41524B4A;
+    static final int VERSION = 2;
+    static final int HEADER_BYTES = 4 + 4 + 8 + 4 + 4 + 4 + 4 + 4;
+    static final int RECORD_BYTES = 1 + 4;
+
+    private JournalFormat() {
+    }
+}
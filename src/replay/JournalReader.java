@@ -0,0 +1,163 @@
+package replay;
+
+// 322613720 Stav Reuven
+
+import arkanoid.PhysicsMode;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * The JournalReader class gives random access to the records of an input journal file.
+ * The file is memory-mapped, so opening a journal reads nothing but its header, and a record is
+ * read straight from the mapping when it is asked for. A trailing partial record, left by a
+ * recording that crashed, is ignored.
+ */
+public class JournalReader {
+    private final MappedByteBuffer records;
+    private final long seed;
+    private final int levelId;
+    private final PhysicsMode mode;
+    private final int levelHash;
+    private final int rewindCapacity;
+    private final int keyframeInterval;
+    private final int frames;
+
+    /**
+     * Opens a journal file and checks its header.
+     *
+     * @param path the path of the journal file
+     * @throws IOException if the file cannot be read or is not a journal
+     */
+    public JournalReader(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < JournalFormat.HEADER_BYTES) {
+                throw new IOException("not a journal: " + path);
+            }
+            long frameCount = (size - JournalFormat.HEADER_BYTES) / JournalFormat.RECORD_BYTES;
+            if (frameCount > Integer.MAX_VALUE / JournalFormat.RECORD_BYTES) {
+                throw new IOException("journal too long: " + path);
+            }
+            this.frames = (int) frameCount;
+            // The mapping stays valid after the channel is closed
+            this.records = channel.map(FileChannel.MapMode.READ_ONLY, 0,
+                    JournalFormat.HEADER_BYTES + (long) this.frames * JournalFormat.RECORD_BYTES);
+        }
+        if (this.records.getInt(0) != JournalFormat.MAGIC) {
+            throw new IOException("not a journal: " + path);
+        }
+        int version = this.records.getInt(4);
+        if (version != JournalFormat.VERSION) {
+            throw new IOException("unsupported journal version " + version + ": " + path);
+        }
+        this.seed = this.records.getLong(8);
+        this.levelId = this.records.getInt(16);
+        int modeOrdinal = this.records.getInt(20);
+        if (modeOrdinal < 0 || modeOrdinal >= PhysicsMode.values().length) {
+            throw new IOException("unknown physics mode " + modeOrdinal + ": " + path);
+        }
+        this.mode = PhysicsMode.values()[modeOrdinal];
+        this.levelHash = this.records.getInt(24);
+        this.rewindCapacity = this.records.getInt(28);
+        this.keyframeInterval = this.records.getInt(32);
+        if (this.rewindCapacity < 0 || this.keyframeInterval < 0) {
+            throw new IOException("invalid rewind buffer " + this.rewindCapacity + "/" + this.keyframeInterval
+                    + ": " + path);
+        }
+    }
+
+    /**
+     * Returns the seed the recorded game was set up with.
+     *
+     * @return the seed
+     */
+    public long getSeed() {
+        return this.seed;
+    }
+
+    /**
+     * Returns the id of the level the recorded game plays.
+     *
+     * @return the level id
+     */
+    public int getLevelId() {
+        return this.levelId;
+    }
+
+    /**
+     * Returns the physics mode of the recorded game.
+     *
+     * @return the physics mode
+     */
+    public PhysicsMode getPhysicsMode() {
+        return this.mode;
+    }
+
+    /**
+     * Returns the hash of the game state the level set the recorded game up in, before its first step.
+     *
+     * @return the level hash
+     */
+    public int getLevelHash() {
+        return this.levelHash;
+    }
+
+    /**
+     * Returns the capacity of the rewind buffer of the recorded game.
+     *
+     * @return the number of states the buffer kept, or 0 if the game had no rewind buffer
+     */
+    public int getRewindCapacity() {
+        return this.rewindCapacity;
+    }
+
+    /**
+     * Returns the keyframe interval of the rewind buffer of the recorded game.
+     *
+     * @return the number of captures per keyframe, or 0 if the game had no rewind buffer
+     */
+    public int getKeyframeInterval() {
+        return this.keyframeInterval;
+    }
+
+    /**
+     * Returns the number of steps recorded.
+     *
+     * @return the number of frames
+     */
+    public int getFrames() {
+        return this.frames;
+    }
+
+    /**
+     * Returns the input bits of a step.
+     *
+     * @param frame the index of the step, from 0
+     * @return a combination of JournalWriter.LEFT_PRESSED, JournalWriter.RIGHT_PRESSED and
+     *         JournalWriter.REWIND_PRESSED
+     */
+    public int getInputs(int frame) {
+        return this.records.get(offset(frame));
+    }
+
+    /**
+     * Returns the hash of the game state recorded after a step.
+     *
+     * @param frame the index of the step, from 0
+     * @return the state hash
+     */
+    public int getStateHash(int frame) {
+        return this.records.getInt(offset(frame) + 1);
+    }
+
+    private int offset(int frame) {
+        if (frame < 0 || frame >= this.frames) {
+            throw new IndexOutOfBoundsException("frame " + frame + " of " + this.frames);
+        }
+        return JournalFormat.HEADER_BYTES + frame * JournalFormat.RECORD_BYTES;
+    }
+}
@@ -0,0 +1,119 @@
+package replay;
+
+// 322613720 Stav Reuven
+
+import arkanoid.PhysicsMode;
+import snapshot.SnapshotRing;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * The JournalWriter class appends the steps of a game to an input journal file.
+ * Records are gathered in a direct buffer and written to the file channel when it fills up, on
+ * flush() and on close(), so recording costs a few bytes of memory traffic per step and a write
+ * call every several thousand steps. The file only ever grows at its end; a journal cut short
+ * by a crash still replays up to its last whole record.
+ */
+public class JournalWriter implements Closeable {
+    /**
+     * The input bit of a step in which left was pressed.
+     */
+    public static final int LEFT_PRESSED = 1;
+    /**
+     * The input bit of a step in which right was pressed.
+     */
+    public static final int RIGHT_PRESSED = 2;
+    /**
+     * The input bit of a step in which rewind was pressed.
+     */
+    public static final int REWIND_PRESSED = 4;
+
+    private static final int BUFFER_BYTES = 64 * 1024;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer;
+    private long frames;
+
+    /**
+     * Creates a journal file, replacing any file at the path, and writes its header.
+     *
+     * @param path      the path of the journal file
+     * @param seed      the seed the recorded game was set up with, or 0 for an unseeded game
+     * @param levelId   the id of the level the recorded game plays
+     * @param mode      the physics mode of the recorded game
+     * @param levelHash the hash of the game state the level sets the game up in, see StateHash
+     * @param rewind    the rewind buffer of the recorded game, or null if it has none
+     * @throws IOException if the file cannot be created
+     */
+    public JournalWriter(Path path, long seed, int levelId, PhysicsMode mode, int levelHash, SnapshotRing rewind)
+            throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        this.buffer = ByteBuffer.allocateDirect(BUFFER_BYTES);
+        this.buffer.putInt(JournalFormat.MAGIC)
+                .putInt(JournalFormat.VERSION)
+                .putLong(seed)
+                .putInt(levelId)
+                .putInt(mode.ordinal())
+                .putInt(levelHash)
+                .putInt(rewind == null ? 0 : rewind.getCapacity())
+                .putInt(rewind == null ? 0 : rewind.getKeyframeInterval());
+    }
+
+    /**
+     * Appends the record of a step.
+     *
+     * @param inputs    the input bits of the step, a combination of LEFT_PRESSED, RIGHT_PRESSED and
+     *                  REWIND_PRESSED
+     * @param stateHash the hash of the game state after the step
+     * @throws IOException if the buffered records cannot be written
+     */
+    public void append(int inputs, int stateHash) throws IOException {
+        if (this.buffer.remaining() < JournalFormat.RECORD_BYTES) {
+            flush();
+        }
+        this.buffer.put((byte) inputs).putInt(stateHash);
+        this.frames++;
+    }
+
+    /**
+     * Returns the number of steps appended so far.
+     *
+     * @return the number of recorded frames
+     */
+    public long getFrames() {
+        return this.frames;
+    }
+
+    /**
+     * Writes the buffered records to the file.
+     *
+     * @throws IOException if the records cannot be written
+     */
+    public void flush() throws IOException {
+        this.buffer.flip();
+        while (this.buffer.hasRemaining()) {
+            this.channel.write(this.buffer);
+        }
+        this.buffer.clear();
+    }
+
+    /**
+     * Writes the buffered records and closes the file.
+     *
+     * @throws IOException if the records cannot be written or the file cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            this.channel.close();
+        }
+    }
+}
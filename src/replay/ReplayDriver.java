@@ -0,0 +1,137 @@
+package replay;
+
+// 322613720 Stav Reuven
+
+import arkanoid.Game;
+import arkanoid.InputSource;
+import arkanoid.PhysicsMode;
+import level.LevelLibrary;
+import snapshot.SnapshotRing;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * The ReplayDriver class plays an input journal back in a headless game, as fast as possible,
+ * and compares the state of the game with the recording after every step. The first step whose
+ * state hash differs is reported, which makes it quick to bisect where two builds stop agreeing.
+ * Before the first step, the game the level sets up is checked against the level hash of the journal,
+ * so a journal recorded on a level that has changed since is refused instead of replayed.
+ */
+public final class ReplayDriver {
+    private static final InputSource NO_INPUT = new InputSource() {
+        @Override
+        public boolean isLeftPressed() {
+            return false;
+        }
+
+        @Override
+        public boolean isRightPressed() {
+            return false;
+        }
+    };
+
+    private ReplayDriver() {
+    }
+
+    /**
+     * Replays a journal until it ends or the game drifts from it.
+     *
+     * @param journal the journal to replay
+     * @return how far the replay matched the journal
+     * @throws IOException if the level of the journal cannot be loaded, or is not the level recorded
+     */
+    public static ReplayResult replay(JournalReader journal) throws IOException {
+        JournalInput input = new JournalInput(journal);
+        Game game = new Game(input);
+        game.setPhysicsMode(journal.getPhysicsMode());
+        if (journal.getRewindCapacity() > 0) {
+            game.setRewindBuffer(new SnapshotRing(journal.getRewindCapacity(), journal.getKeyframeInterval()));
+        }
+        LevelLibrary.standard().setUp(game, journal.getLevelId());
+
+        StateHash stateHash = new StateHash();
+        int levelHash = stateHash.hash(game);
+        if (levelHash != journal.getLevelHash()) {
+            throw new IOException(String.format("level %d has changed since the journal was recorded:"
+                    + " level hash %08x, recorded %08x", journal.getLevelId(), levelHash, journal.getLevelHash()));
+        }
+        int frames = journal.getFrames();
+        long start = System.nanoTime();
+        for (int frame = 0; frame < frames; frame++) {
+            if (game.isOver()) {
+                // The recording went on after the replayed game ended
+                return new ReplayResult(frame, frames, frame, journal.getStateHash(frame), 0,
+                        System.nanoTime() - start);
+            }
+            input.frame = frame;
+            game.step();
+            int actual = stateHash.hash(game);
+            int expected = journal.getStateHash(frame);
+            if (actual != expected) {
+                return new ReplayResult(frame + 1, frames, frame, expected, actual, System.nanoTime() - start);
+            }
+        }
+        return new ReplayResult(frames, frames, -1, 0, 0, System.nanoTime() - start);
+    }
+
+    /**
+     * Returns the hash of the game state a level sets a game up in, to record in a journal header.
+     * The state of a game depends on its physics mode, so the hash does too.
+     *
+     * @param levelId the id of the level in the standard level library
+     * @param mode    the physics mode of the game
+     * @return the level hash
+     * @throws IOException if the level cannot be loaded
+     */
+    public static int levelHash(int levelId, PhysicsMode mode) throws IOException {
+        Game game = new Game(NO_INPUT);
+        game.setPhysicsMode(mode);
+        LevelLibrary.standard().setUp(game, levelId);
+        return new StateHash().hash(game);
+    }
+
+    /**
+     * Replays a journal file and prints how far it matched. Exits with status 1 if the replay
+     * diverged.
+     *
+     * @param args the path of the journal, replay.journal by default
+     * @throws IOException if the journal cannot be read
+     */
+    public static void main(String[] args) throws IOException {
+        Path path = Paths.get(args.length > 0 ? args[0] : "replay.journal");
+        ReplayResult result = replay(new JournalReader(path));
+        System.out.println(result);
+        if (result.isDiverged()) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * The input source of a replayed game, reading the inputs of the current step from the journal.
+     */
+    private static final class JournalInput implements InputSource {
+        private final JournalReader journal;
+        private int frame;
+
+        JournalInput(JournalReader journal) {
+            this.journal = journal;
+        }
+
+        @Override
+        public boolean isLeftPressed() {
+            return (this.journal.getInputs(this.frame) & JournalWriter.LEFT_PRESSED) != 0;
+        }
+
+        @Override
+        public boolean isRightPressed() {
+            return (this.journal.getInputs(this.frame) & JournalWriter.RIGHT_PRESSED) != 0;
+        }
+
+        @Override
+        public boolean isRewindPressed() {
+            return (this.journal.getInputs(this.frame) & JournalWriter.REWIND_PRESSED) != 0;
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package replay;
+
+// 322613720 Stav Reuven
+
+/**
+ * The ReplayResult class describes how far a replay matched its journal and how fast it ran.
+ */
+public class ReplayResult {
+    private final int frames;
+    private final int recordedFrames;
+    private final int divergentFrame;
+    private final int expectedHash;
+    private final int actualHash;
+    private final long elapsedNanos;
+
+    /**
+     * Constructs a result.
+     *
+     * @param frames         the number of steps replayed
+     * @param recordedFrames the number of steps in the journal
+     * @param divergentFrame the first step whose state differs from the recording, or -1 if none does
+     * @param expectedHash   the recorded state hash of the divergent step, or 0
+     * @param actualHash     the replayed state hash of the divergent step, or 0
+     * @param elapsedNanos   the wall-clock time the replay took, in nanoseconds
+     */
+    public ReplayResult(int frames, int recordedFrames, int divergentFrame, int expectedHash, int actualHash,
+                        long elapsedNanos) {
+        this.frames = frames;
+        this.recordedFrames = recordedFrames;
+        this.divergentFrame = divergentFrame;
+        this.expectedHash = expectedHash;
+        this.actualHash = actualHash;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    /**
+     * Returns the number of steps replayed, up to and including a divergent one.
+     *
+     * @return the number of frames
+     */
+    public int getFrames() {
+        return this.frames;
+    }
+
+    /**
+     * Returns the number of steps in the journal.
+     *
+     * @return the number of recorded frames
+     */
+    public int getRecordedFrames() {
+        return this.recordedFrames;
+    }
+
+    /**
+     * Returns whether the replay drifted from the recording.
+     *
+     * @return true if some step differs from the recording, false otherwise
+     */
+    public boolean isDiverged() {
+        return this.divergentFrame >= 0;
+    }
+
+    /**
+     * Returns the first step whose state differs from the recording.
+     *
+     * @return the index of the step, from 0, or -1 if the replay matched
+     */
+    public int getDivergentFrame() {
+        return this.divergentFrame;
+    }
+
+    /**
+     * Returns the state hash recorded for the divergent step.
+     *
+     * @return the expected hash, or 0 if the replay matched
+     */
+    public int getExpectedHash() {
+        return this.expectedHash;
+    }
+
+    /**
+     * Returns the state hash the replay reached at the divergent step.
+     *
+     * @return the actual hash, or 0 if the replay matched
+     */
+    public int getActualHash() {
+        return this.actualHash;
+    }
+
+    /**
+     * Returns the number of steps replayed per second of wall-clock time.
+     *
+     * @return the replayed frames per second
+     */
+    public double getFramesPerSecond() {
+        return this.elapsedNanos == 0 ? 0 : this.frames * 1e9 / this.elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        if (isDiverged()) {
+            return String.format("diverged at frame %d of %d: expected %08x, got %08x fps=%.0f",
+                    this.divergentFrame, this.recordedFrames, this.expectedHash, this.actualHash,
+                    getFramesPerSecond());
+        }
+        return String.format("matched %d of %d frames fps=%.0f", this.frames, this.recordedFrames,
+                getFramesPerSecond());
+    }
+}
@@ -0,0 +1,55 @@
+package replay;
+
+// 322613720 Stav Reuven
+
+import arkanoid.Game;
+import arkanoid.StateSink;
+
+import java.awt.Color;
+
+/**
+ * The StateHash class is a StateSink that folds the state of a game into a 32-bit hash, so two
+ * runs of a game can be compared step by step without storing their states.
+ * Doubles are hashed by their exact bits, so any drift in the physics changes the hash.
+ * A hash is reused from step to step and allocates nothing.
+ */
+public class StateHash implements StateSink {
+    private static final long MULTIPLIER = 0x9E3779B97F4A7C15L;
+
+    private long hash;
+
+    /**
+     * Hashes the current state of a game.
+     *
+     * @param game the game to hash
+     * @return the hash of its state
+     */
+    public int hash(Game game) {
+        this.hash = 0;
+        game.writeState(this);
+        // Spread every bit of the 64-bit state over the 32 bits returned
+        long h = this.hash;
+        h = (h ^ (h >>> 33)) * MULTIPLIER;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    @Override
+    public void putInt(int value) {
+        putLong(value);
+    }
+
+    @Override
+    public void putLong(long value) {
+        this.hash = Long.rotateLeft((this.hash ^ value) * MULTIPLIER, 27);
+    }
+
+    @Override
+    public void putDouble(double value) {
+        putLong(Double.doubleToRawLongBits(value));
+    }
+
+    @Override
+    public void putColor(Color color) {
+        putLong(color.getRGB());
+    }
+}
@@ -0,0 +1,164 @@
+package sim;
+
+// 322613720 Stav Reuven
+
+import arkanoid.SimulationResult;
+
+/**
+ * The BatchReport class aggregates the results of many games as they finish. Every worker fills
+ * its own report and the reports are merged at the end, so no report is shared between threads.
+ */
+public class BatchReport {
+    private long games;
+    private long totalScore;
+    private int minScore = Integer.MAX_VALUE;
+    private int maxScore = Integer.MIN_VALUE;
+    private long totalFrames;
+    private long totalBlocksLeft;
+    private long cleared;
+    private long clearedFrames;
+    private long elapsedNanos;
+
+    /**
+     * Adds the result of one game to the report.
+     *
+     * @param result the result of the game
+     */
+    public void add(SimulationResult result) {
+        this.games++;
+        this.totalScore += result.getScore();
+        this.minScore = Math.min(this.minScore, result.getScore());
+        this.maxScore = Math.max(this.maxScore, result.getScore());
+        this.totalFrames += result.getFrames();
+        this.totalBlocksLeft += result.getRemainingBlocks();
+        if (result.getRemainingBlocks() == 0) {
+            this.cleared++;
+            this.clearedFrames += result.getFrames();
+        }
+    }
+
+    /**
+     * Adds all the games of another report to this one.
+     *
+     * @param other the report to merge in
+     * @return this report
+     */
+    public BatchReport merge(BatchReport other) {
+        this.games += other.games;
+        this.totalScore += other.totalScore;
+        this.minScore = Math.min(this.minScore, other.minScore);
+        this.maxScore = Math.max(this.maxScore, other.maxScore);
+        this.totalFrames += other.totalFrames;
+        this.totalBlocksLeft += other.totalBlocksLeft;
+        this.cleared += other.cleared;
+        this.clearedFrames += other.clearedFrames;
+        return this;
+    }
+
+    /**
+     * Sets the wall-clock time the whole batch took.
+     *
+     * @param nanos the elapsed time in nanoseconds
+     */
+    public void setElapsedNanos(long nanos) {
+        this.elapsedNanos = nanos;
+    }
+
+    /**
+     * Returns the number of games in the report.
+     *
+     * @return the number of games
+     */
+    public long getGames() {
+        return this.games;
+    }
+
+    /**
+     * Returns the mean score.
+     *
+     * @return the mean score, or 0 for an empty report
+     */
+    public double getMeanScore() {
+        return this.games == 0 ? 0 : (double) this.totalScore / this.games;
+    }
+
+    /**
+     * Returns the lowest score.
+     *
+     * @return the lowest score, or 0 for an empty report
+     */
+    public int getMinScore() {
+        return this.games == 0 ? 0 : this.minScore;
+    }
+
+    /**
+     * Returns the highest score.
+     *
+     * @return the highest score, or 0 for an empty report
+     */
+    public int getMaxScore() {
+        return this.games == 0 ? 0 : this.maxScore;
+    }
+
+    /**
+     * Returns the mean number of frames a game lasted.
+     *
+     * @return the mean frames survived, or 0 for an empty report
+     */
+    public double getMeanFrames() {
+        return this.games == 0 ? 0 : (double) this.totalFrames / this.games;
+    }
+
+    /**
+     * Returns the mean number of blocks left at the end of a game.
+     *
+     * @return the mean blocks left, or 0 for an empty report
+     */
+    public double getMeanBlocksLeft() {
+        return this.games == 0 ? 0 : (double) this.totalBlocksLeft / this.games;
+    }
+
+    /**
+     * Returns the number of games that destroyed every block.
+     *
+     * @return the number of cleared games
+     */
+    public long getCleared() {
+        return this.cleared;
+    }
+
+    /**
+     * Returns the share of the games that destroyed every block.
+     *
+     * @return the clear rate from 0 to 1, or 0 for an empty report
+     */
+    public double getClearRate() {
+        return this.games == 0 ? 0 : (double) this.cleared / this.games;
+    }
+
+    /**
+     * Returns the mean number of frames a cleared game took to destroy every block.
+     *
+     * @return the mean frames to clear, or 0 if no game was cleared
+     */
+    public double getMeanClearFrames() {
+        return this.cleared == 0 ? 0 : (double) this.clearedFrames / this.cleared;
+    }
+
+    /**
+     * Returns the number of games completed per second of wall-clock time.
+     *
+     * @return the throughput in games per second
+     */
+    public double getGamesPerSecond() {
+        return this.elapsedNanos == 0 ? 0 : this.games * 1e9 / this.elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("games=%d score(mean=%.1f min=%d max=%d) frames(mean=%.0f) blocksLeft(mean=%.1f)"
+                        + " cleared=%d games/sec=%.1f",
+                this.games, getMeanScore(), getMinScore(), getMaxScore(), getMeanFrames(), getMeanBlocksLeft(),
+                this.cleared, getGamesPerSecond());
+    }
+}
@@ -0,0 +1,152 @@
+package sim;
+
+// 322613720 Stav Reuven
+
+import arkanoid.Game;
+import arkanoid.InputSource;
+import arkanoid.StepListener;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Consumer;
+import java.util.function.LongFunction;
+
+/**
+ * The BatchRunner class plays many independent headless games at once on a work-stealing pool
+ * and aggregates their results into a BatchReport.
+ * Every game builds its own Game and its own paddle policy from a seed derived from the batch
+ * seed and the game's index, so games share no mutable state, and a batch with the same seed
+ * always produces the same report (apart from its timing). A policy that is also a StepListener is
+ * added to its game as one, so it can see the game between steps. The games are split into ranges that
+ * the pool's workers steal from each other; each range fills a report of its own, and the
+ * reports are merged as the ranges finish.
+ */
+public class BatchRunner {
+    private static final int GAMES_PER_TASK = 16;
+    private static final long DEFAULT_MAX_FRAMES = 60L * 60 * 10;
+
+    private final int games;
+    private final long seed;
+    private final long maxFrames;
+    private final LongFunction<InputSource> policy;
+    private final Consumer<Game> level;
+
+    /**
+     * Constructs a runner of games of the built-in level.
+     *
+     * @param games     the number of games to play
+     * @param seed      the seed of the batch
+     * @param maxFrames the largest number of frames a single game may last
+     * @param policy    builds the paddle policy of a game from the game's seed
+     */
+    public BatchRunner(int games, long seed, long maxFrames, LongFunction<InputSource> policy) {
+        this(games, seed, maxFrames, policy, Game::initialize);
+    }
+
+    /**
+     * Constructs a runner of games of any level.
+     *
+     * @param games     the number of games to play
+     * @param seed      the seed of the batch
+     * @param maxFrames the largest number of frames a single game may last
+     * @param policy    builds the paddle policy of a game from the game's seed
+     * @param level     sets up a new game with the level to play, instead of Game.initialize(); it is
+     *                  called from several threads at once
+     */
+    public BatchRunner(int games, long seed, long maxFrames, LongFunction<InputSource> policy,
+                       Consumer<Game> level) {
+        this.games = games;
+        this.seed = seed;
+        this.maxFrames = maxFrames;
+        this.policy = policy;
+        this.level = level;
+    }
+
+    /**
+     * Plays all the games on the given pool and returns the aggregated report.
+     *
+     * @param pool the pool to play the games on
+     * @return the report of the batch
+     */
+    public BatchReport run(ForkJoinPool pool) {
+        long start = System.nanoTime();
+        BatchReport report = pool.invoke(new GamesTask(0, this.games));
+        report.setElapsedNanos(System.nanoTime() - start);
+        return report;
+    }
+
+    /**
+     * Returns the seed of a single game of the batch.
+     *
+     * @param index the index of the game
+     * @return the seed of the game
+     */
+    public long gameSeed(int index) {
+        // SplitMix64 finalizer, so neighbouring indices get unrelated seeds
+        long z = this.seed + (index + 1) * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    private void play(int index, BatchReport report) {
+        InputSource input = this.policy.apply(gameSeed(index));
+        Game game = new Game(input);
+        if (input instanceof StepListener) {
+            game.addStepListener((StepListener) input);
+        }
+        this.level.accept(game);
+        report.add(game.runHeadless(this.maxFrames));
+    }
+
+    /**
+     * Plays a range of games, splitting it across the pool while it is large.
+     */
+    private final class GamesTask extends RecursiveTask<BatchReport> {
+        private static final long serialVersionUID = 1L;
+
+        private final int from;
+        private final int to;
+
+        GamesTask(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected BatchReport compute() {
+            if (this.to - this.from <= GAMES_PER_TASK) {
+                BatchReport report = new BatchReport();
+                for (int i = this.from; i < this.to; i++) {
+                    play(i, report);
+                }
+                return report;
+            }
+            int middle = (this.from + this.to) >>> 1;
+            GamesTask left = new GamesTask(this.from, middle);
+            left.fork();
+            BatchReport right = new GamesTask(middle, this.to).compute();
+            return left.join().merge(right);
+        }
+    }
+
+    /**
+     * Plays a batch of games with random paddle policies and prints the report.
+     * Arguments, all optional: the number of games (default 1000), the batch seed (default 1),
+     * and the number of worker threads (default: one per core).
+     *
+     * @param args the number of games, the seed and the number of threads
+     */
+    public static void main(String[] args) {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : 1;
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            BatchReport report = new BatchRunner(games, seed, DEFAULT_MAX_FRAMES, RandomPaddle::new).run(pool);
+            System.out.println(report);
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package sim;
+
+// 322613720 Stav Reuven
+
+import arkanoid.InputSource;
+
+import java.util.SplittableRandom;
+
+/**
+ * The RandomPaddle class is a seeded paddle policy that holds left, right or nothing for a random
+ * number of frames, then picks again. The same seed always produces the same moves, so a game
+ * played by this policy can be repeated exactly.
+ * The policy is asked once per frame by the paddle, left first and then right.
+ */
+public class RandomPaddle implements InputSource {
+    private static final int MAX_HOLD_FRAMES = 30;
+
+    private final SplittableRandom random;
+    private int direction;
+    private int framesLeft;
+
+    /**
+     * Constructs a policy from a seed.
+     *
+     * @param seed the seed of the moves
+     */
+    public RandomPaddle(long seed) {
+        this.random = new SplittableRandom(seed);
+    }
+
+    @Override
+    public boolean isLeftPressed() {
+        // The paddle asks for left first, once per frame
+        if (this.framesLeft == 0) {
+            this.direction = this.random.nextInt(3) - 1;
+            this.framesLeft = 1 + this.random.nextInt(MAX_HOLD_FRAMES);
+        }
+        this.framesLeft--;
+        return this.direction < 0;
+    }
+
+    @Override
+    public boolean isRightPressed() {
+        return this.direction > 0;
+    }
+}
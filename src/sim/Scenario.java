@@ -0,0 +1,222 @@
+package sim;
+
+// 322613720 Stav Reuven
+
+import arkanoid.Game;
+import arkanoid.InputSource;
+import arkanoid.PhysicsMode;
+import arkanoid.SimulationResult;
+import geometry.Ball;
+import geometry.BlockField;
+import geometry.Point;
+import geometry.Velocity;
+import listener.HitEventBus;
+import listener.HitEventSubscriber;
+
+import java.awt.Color;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * The Scenario class describes a seeded stress world: a brick wall of a given number of cells
+ * packed into the upper half of the arena, each brick taking a number of hits, a number of small
+ * balls scattered over the lower half with random directions and a fixed speed, and a paddle
+ * policy. The floor of the arena is closed, so the load lasts for the whole run unless every brick
+ * is destroyed. The same scenario always builds the same world, so its runs can be compared across
+ * changes to the engine.
+ */
+public class Scenario {
+    /**
+     * The largest number of bricks a scenario may have.
+     */
+    public static final int MAX_BLOCKS = 100_000;
+    /**
+     * The largest number of balls a scenario may have.
+     */
+    public static final int MAX_BALLS = 10_000;
+
+    private static final double FIELD_LEFT = 20;
+    private static final double FIELD_TOP = 40;
+    private static final double FIELD_WIDTH = 760;
+    private static final double FIELD_HEIGHT = 300;
+    private static final int BALL_RADIUS = 3;
+    private static final int FRAMES_PER_SWEEP = 90;
+    private static final double MIN_ANGLE_FROM_HORIZONTAL = 15;
+    private static final Color[] COLORS = {Color.GRAY, Color.RED, Color.YELLOW, Color.BLUE, Color.PINK, Color.GREEN};
+
+    /**
+     * How the paddle of a scenario moves.
+     */
+    public enum PaddleBehaviour {
+        /** The paddle stands still. */
+        IDLE,
+        /** The paddle follows a seeded RandomPaddle. */
+        RANDOM,
+        /** The paddle follows a SweepPaddle, back and forth across the arena. */
+        SWEEP
+    }
+
+    private final String name;
+    private final long seed;
+    private final int blocks;
+    private final int hitPoints;
+    private final int balls;
+    private final double ballSpeed;
+    private final PaddleBehaviour paddle;
+    private final long frames;
+
+    /**
+     * Constructs a scenario.
+     *
+     * @param name      the name of the scenario, used as its key in baselines
+     * @param seed      the seed of the world
+     * @param blocks    the number of bricks, from 1 to MAX_BLOCKS
+     * @param hitPoints the number of hits that destroy a brick, from 1 to 127
+     * @param balls     the number of balls, from 1 to MAX_BALLS
+     * @param ballSpeed the distance every ball moves per frame, greater than zero
+     * @param paddle    how the paddle moves
+     * @param frames    the number of frames a run simulates, unless the game ends first
+     */
+    public Scenario(String name, long seed, int blocks, int hitPoints, int balls, double ballSpeed,
+                    PaddleBehaviour paddle, long frames) {
+        if (blocks < 1 || blocks > MAX_BLOCKS) {
+            throw new IllegalArgumentException("blocks must be between 1 and " + MAX_BLOCKS + ": " + blocks);
+        }
+        if (hitPoints < 1 || hitPoints > Byte.MAX_VALUE) {
+            throw new IllegalArgumentException("hit points must be between 1 and " + Byte.MAX_VALUE + ": " + hitPoints);
+        }
+        if (balls < 1 || balls > MAX_BALLS) {
+            throw new IllegalArgumentException("balls must be between 1 and " + MAX_BALLS + ": " + balls);
+        }
+        if (ballSpeed <= 0) {
+            throw new IllegalArgumentException("ball speed must be positive: " + ballSpeed);
+        }
+        this.name = name;
+        this.seed = seed;
+        this.blocks = blocks;
+        this.hitPoints = hitPoints;
+        this.balls = balls;
+        this.ballSpeed = ballSpeed;
+        this.paddle = paddle;
+        this.frames = frames;
+    }
+
+    /**
+     * Returns the standard set of stress scenarios, from a small level to the largest worlds.
+     *
+     * @return the standard scenarios
+     */
+    public static List<Scenario> standard() {
+        return Arrays.asList(
+                new Scenario("small", 1, 100, 20, 10, 5, PaddleBehaviour.RANDOM, 60_000),
+                new Scenario("fast", 2, 1_000, 40, 100, 20, PaddleBehaviour.SWEEP, 20_000),
+                new Scenario("dense", 3, 10_000, 2, 100, 5, PaddleBehaviour.SWEEP, 20_000),
+                new Scenario("swarm", 4, 1_000, 100, MAX_BALLS, 3, PaddleBehaviour.IDLE, 300),
+                new Scenario("huge", 5, MAX_BLOCKS, 1, 1_000, 6, PaddleBehaviour.RANDOM, 3_000));
+    }
+
+    /**
+     * Returns the name of the scenario.
+     *
+     * @return the scenario name
+     */
+    public String getName() {
+        return this.name;
+    }
+
+    /**
+     * Builds the world of the scenario and simulates it headless.
+     *
+     * @param mode the physics mode to simulate with
+     * @return the throughput of the run
+     */
+    public ScenarioResult run(PhysicsMode mode) {
+        Game game = new Game(paddleInput());
+        game.setPhysicsMode(mode);
+        game.setFloorClosed(true);
+        game.initializeArena();
+        SplittableRandom random = new SplittableRandom(this.seed);
+        BlockField field = buildField(random);
+        game.addBlockField(field);
+        HitCounter hits = new HitCounter();
+        // Most bricks take many hits, so every hit counts, not only the one that destroys a brick
+        game.getHitEvents().subscribe(HitEventBus.ALL, hits);
+        for (int i = 0; i < this.balls; i++) {
+            Ball ball = new Ball(BALL_RADIUS, new Point(30 + random.nextDouble(740), 360 + random.nextDouble(180)),
+                    Color.BLACK, game.getEnvironment());
+            ball.setVelocity(Velocity.fromAngleAndSpeed(randomAngle(random), this.ballSpeed));
+            game.spawnBall(ball);
+        }
+
+        long queriesBefore = game.getEnvironment().getQueryCount();
+        SimulationResult result = game.runHeadless(this.frames);
+        return new ScenarioResult(this.name, result.getFrames(), result.getElapsedNanos(),
+                game.getEnvironment().getQueryCount() - queriesBefore, hits.count);
+    }
+
+    private InputSource paddleInput() {
+        switch (this.paddle) {
+            case RANDOM:
+                return new RandomPaddle(this.seed);
+            case SWEEP:
+                return new SweepPaddle(FRAMES_PER_SWEEP);
+            default:
+                return new InputSource() {
+                    @Override
+                    public boolean isLeftPressed() {
+                        return false;
+                    }
+
+                    @Override
+                    public boolean isRightPressed() {
+                        return false;
+                    }
+                };
+        }
+    }
+
+    /**
+     * Packs the bricks into a grid of about square cells filling the upper half of the arena.
+     *
+     * @param random the random source of the world
+     * @return the brick wall
+     */
+    private BlockField buildField(SplittableRandom random) {
+        int columns = (int) Math.ceil(Math.sqrt(this.blocks * FIELD_WIDTH / FIELD_HEIGHT));
+        int rows = (this.blocks + columns - 1) / columns;
+        BlockField field = new BlockField(FIELD_LEFT, FIELD_TOP, FIELD_WIDTH / columns, FIELD_HEIGHT / rows,
+                columns, rows);
+        for (int i = 0; i < this.blocks; i++) {
+            field.setCell(i % columns, i / columns, COLORS[random.nextInt(COLORS.length)], this.hitPoints);
+        }
+        return field;
+    }
+
+    /**
+     * Draws a direction that is not too close to horizontal, so no ball bounces between the side
+     * walls forever.
+     *
+     * @param random the random source of the world
+     * @return the angle in degrees
+     */
+    private static double randomAngle(SplittableRandom random) {
+        double angle;
+        do {
+            angle = random.nextDouble(360);
+        } while (Math.abs(Math.sin(Math.toRadians(angle))) < Math.sin(Math.toRadians(MIN_ANGLE_FROM_HORIZONTAL)));
+        return angle;
+    }
+
+    /**
+     * Counts the hit events of the brick wall.
+     */
+    private static final class HitCounter implements HitEventSubscriber {
+        private long count;
+
+        @Override
+        public void onHitEvent(HitEventBus events, int event) {
+            this.count++;
+        }
+    }
+}
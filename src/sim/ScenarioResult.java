@@ -0,0 +1,97 @@
+package sim;
+
+// 322613720 Stav Reuven
+
+import java.util.Locale;
+
+/**
+ * The ScenarioResult class holds the throughput of one headless run of a stress Scenario.
+ */
+public class ScenarioResult {
+    private final String name;
+    private final long frames;
+    private final long elapsedNanos;
+    private final long queries;
+    private final long hits;
+
+    /**
+     * Constructs a result.
+     *
+     * @param name         the name of the scenario
+     * @param frames       the number of frames simulated
+     * @param elapsedNanos the wall-clock time the frames took, in nanoseconds
+     * @param queries      the number of collision queries made
+     * @param hits         the number of hits on bricks, destroying or not
+     */
+    public ScenarioResult(String name, long frames, long elapsedNanos, long queries, long hits) {
+        this.name = name;
+        this.frames = frames;
+        this.elapsedNanos = elapsedNanos;
+        this.queries = queries;
+        this.hits = hits;
+    }
+
+    /**
+     * Returns the name of the scenario.
+     *
+     * @return the scenario name
+     */
+    public String getName() {
+        return this.name;
+    }
+
+    /**
+     * Returns the number of frames simulated.
+     *
+     * @return the number of frames
+     */
+    public long getFrames() {
+        return this.frames;
+    }
+
+    /**
+     * Returns the wall-clock time the frames took.
+     *
+     * @return the elapsed time in nanoseconds
+     */
+    public long getElapsedNanos() {
+        return this.elapsedNanos;
+    }
+
+    /**
+     * Returns the number of frames simulated per second.
+     *
+     * @return the frames per second
+     */
+    public double getFramesPerSecond() {
+        return perSecond(this.frames);
+    }
+
+    /**
+     * Returns the number of collision queries made per second.
+     *
+     * @return the collision queries per second
+     */
+    public double getQueriesPerSecond() {
+        return perSecond(this.queries);
+    }
+
+    /**
+     * Returns the number of hit events sent per second.
+     *
+     * @return the hit events per second
+     */
+    public double getHitsPerSecond() {
+        return perSecond(this.hits);
+    }
+
+    private double perSecond(long count) {
+        return this.elapsedNanos == 0 ? 0 : count * 1e9 / this.elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT, "%-8s frames=%-6d fps=%-10.0f queries/s=%-12.0f hits/s=%.0f",
+                this.name, this.frames, getFramesPerSecond(), getQueriesPerSecond(), getHitsPerSecond());
+    }
+}
@@ -0,0 +1,175 @@
+package sim;
+
+// 322613720 Stav Reuven
+
+import arkanoid.PhysicsMode;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * The StressHarness class is the load test of the engine. It runs every standard Scenario
+ * headless, once to warm up the JIT and then a few measured times keeping the fastest run, and
+ * prints frames, collision queries and hit events per second. The results are compared with a
+ * baseline file, and the harness fails if any rate dropped by more than the margin below it, or if
+ * the baseline has no rates for a scenario in the physics mode being run, so a missing baseline
+ * never passes silently. With "--record" the results are written as the new baseline instead.
+ */
+public final class StressHarness {
+    private static final int WARMUP_RUNS = 1;
+    private static final int MEASURED_RUNS = 3;
+    private static final double DEFAULT_MARGIN_PERCENT = 15;
+    private static final String DEFAULT_BASELINE = "bench/stress-baseline.csv";
+    private static final String HEADER = "scenario,mode,frames_per_sec,queries_per_sec,hits_per_sec";
+
+    private StressHarness() {
+    }
+
+    /**
+     * Runs the scenarios in one physics mode and returns the fastest measured run of each.
+     *
+     * @param scenarios the scenarios to run
+     * @param mode      the physics mode to run them in
+     * @return the results, in the order of the scenarios
+     */
+    public static List<ScenarioResult> runAll(List<Scenario> scenarios, PhysicsMode mode) {
+        List<ScenarioResult> results = new ArrayList<>();
+        for (Scenario scenario : scenarios) {
+            for (int i = 0; i < WARMUP_RUNS; i++) {
+                scenario.run(mode);
+            }
+            ScenarioResult best = null;
+            for (int i = 0; i < MEASURED_RUNS; i++) {
+                ScenarioResult result = scenario.run(mode);
+                if (best == null || result.getFramesPerSecond() > best.getFramesPerSecond()) {
+                    best = result;
+                }
+            }
+            results.add(best);
+        }
+        return results;
+    }
+
+    /**
+     * Runs the standard scenarios and checks them against the baseline.
+     * Arguments, all optional: a physics mode (default STEPPED), "--record" to write the baseline,
+     * "--baseline FILE" (default bench/stress-baseline.csv) and "--margin PERCENT" (default 15).
+     * Exits with status 1 if any rate regressed or the baseline has no rates to compare with.
+     *
+     * @param args the options
+     * @throws IOException if the baseline cannot be read or written
+     */
+    public static void main(String[] args) throws IOException {
+        PhysicsMode mode = PhysicsMode.STEPPED;
+        boolean record = false;
+        Path baselineFile = Paths.get(DEFAULT_BASELINE);
+        double margin = DEFAULT_MARGIN_PERCENT;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--record")) {
+                record = true;
+            } else if (args[i].equals("--baseline")) {
+                baselineFile = Paths.get(args[++i]);
+            } else if (args[i].equals("--margin")) {
+                margin = Double.parseDouble(args[++i]);
+            } else {
+                mode = PhysicsMode.valueOf(args[i]);
+            }
+        }
+
+        List<ScenarioResult> results = runAll(Scenario.standard(), mode);
+        for (ScenarioResult result : results) {
+            System.out.println(result);
+        }
+
+        Map<String, double[]> baseline = read(baselineFile);
+        if (record) {
+            for (ScenarioResult result : results) {
+                baseline.put(key(result.getName(), mode), rates(result));
+            }
+            write(baselineFile, baseline);
+            System.out.println("Recorded the baseline in " + baselineFile);
+            return;
+        }
+        String[] rateNames = {"frames/s", "queries/s", "hits/s"};
+        int regressions = 0;
+        int missing = 0;
+        for (ScenarioResult result : results) {
+            double[] before = baseline.get(key(result.getName(), mode));
+            if (before == null) {
+                missing++;
+                System.out.println("NO BASELINE for " + key(result.getName(), mode) + " in " + baselineFile);
+                continue;
+            }
+            double[] now = rates(result);
+            for (int r = 0; r < now.length; r++) {
+                if (before[r] > 0 && now[r] < before[r] * (1 - margin / 100)) {
+                    regressions++;
+                    System.out.printf(Locale.ROOT, "REGRESSED %s %s: %.0f -> %.0f (%.1f%%)%n", result.getName(),
+                            rateNames[r], before[r], now[r], (now[r] - before[r]) / before[r] * 100);
+                }
+            }
+        }
+        if (missing > 0) {
+            System.out.println(missing + " scenario(s) have no baseline; record one with --record");
+        }
+        if (regressions > 0) {
+            System.out.println(regressions + " rate(s) dropped more than " + margin + "% below the baseline");
+        }
+        if (missing > 0 || regressions > 0) {
+            System.exit(1);
+        }
+        System.out.println("OK: no rate dropped more than " + margin + "% below the baseline");
+    }
+
+    private static String key(String scenario, PhysicsMode mode) {
+        return scenario + "," + mode;
+    }
+
+    private static double[] rates(ScenarioResult result) {
+        return new double[] {result.getFramesPerSecond(), result.getQueriesPerSecond(), result.getHitsPerSecond()};
+    }
+
+    /**
+     * Reads a baseline file, keyed by scenario name and physics mode.
+     *
+     * @param file the file to read
+     * @return the rates of each scenario, empty if the file does not exist
+     * @throws IOException if the file cannot be read
+     */
+    private static Map<String, double[]> read(Path file) throws IOException {
+        Map<String, double[]> baseline = new HashMap<>();
+        if (!Files.exists(file)) {
+            return baseline;
+        }
+        for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+            String[] columns = line.split(",");
+            if (line.equals(HEADER) || columns.length != 5) {
+                continue;
+            }
+            baseline.put(columns[0] + "," + columns[1], new double[] {Double.parseDouble(columns[2]),
+                Double.parseDouble(columns[3]), Double.parseDouble(columns[4])});
+        }
+        return baseline;
+    }
+
+    private static void write(Path file, Map<String, double[]> baseline) throws IOException {
+        List<String> lines = new ArrayList<>();
+        lines.add(HEADER);
+        baseline.keySet().stream().sorted().forEach(key -> {
+            double[] r = baseline.get(key);
+            lines.add(String.format(Locale.ROOT, "%s,%.1f,%.1f,%.1f", key, r[0], r[1], r[2]));
+        });
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        Files.write(file, lines, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,41 @@
+package sim;
+
+// 322613720 Stav Reuven
+
+import arkanoid.InputSource;
+
+/**
+ * The SweepPaddle class is a scripted paddle policy that holds right for a fixed number of frames,
+ * then left for as many, over and over, sweeping the paddle across the arena.
+ * The policy is asked once per frame by the paddle, left first and then right.
+ */
+public class SweepPaddle implements InputSource {
+    private final int framesPerSweep;
+    private int frame;
+    private boolean left;
+
+    /**
+     * Constructs a policy.
+     *
+     * @param framesPerSweep the number of frames spent moving in each direction, greater than zero
+     */
+    public SweepPaddle(int framesPerSweep) {
+        if (framesPerSweep <= 0) {
+            throw new IllegalArgumentException("frames per sweep must be positive: " + framesPerSweep);
+        }
+        this.framesPerSweep = framesPerSweep;
+    }
+
+    @Override
+    public boolean isLeftPressed() {
+        // The paddle asks for left first, once per frame
+        this.left = (this.frame / this.framesPerSweep) % 2 == 1;
+        this.frame++;
+        return this.left;
+    }
+
+    @Override
+    public boolean isRightPressed() {
+        return !this.left;
+    }
+}
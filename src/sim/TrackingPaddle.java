@@ -0,0 +1,72 @@
+package sim;
+
+// 322613720 Stav Reuven
+
+import arkanoid.Game;
+import arkanoid.InputSource;
+import arkanoid.StepListener;
+import geometry.Rectangle;
+
+import java.util.SplittableRandom;
+
+/**
+ * The TrackingPaddle class is a scripted paddle policy that plays like a fair player: it follows
+ * the ball nearest the floor, aiming a seeded random distance off the middle of the paddle so it
+ * sends the ball off at varied angles. The aim changes every two seconds, so games played with
+ * different seeds take different courses, while the same seed always produces the same moves.
+ * The policy must be added to its game as a step listener, which is how it sees the ball; a game
+ * run by BatchRunner is set up that way.
+ * The policy is asked once per frame by the paddle, left first and then right.
+ */
+public class TrackingPaddle implements InputSource, StepListener {
+    private static final int FRAMES_PER_AIM = 120;
+    private static final double MAX_AIM = 0.45;
+    private static final double DEAD_ZONE = 4;
+    // Pushed while it touches a wall, the paddle wraps around to the other side, so it is not pushed then
+    private static final double LEFT_LIMIT = 20;
+    private static final double RIGHT_LIMIT = 780;
+
+    private final SplittableRandom random;
+    private double aim;
+    private int framesLeft;
+    private double targetX = Double.NaN;
+    private double paddleMinX;
+    private double paddleMaxX;
+    private boolean left;
+
+    /**
+     * Constructs a policy from a seed.
+     *
+     * @param seed the seed of the aim
+     */
+    public TrackingPaddle(long seed) {
+        this.random = new SplittableRandom(seed);
+    }
+
+    @Override
+    public void stepCompleted(Game game) {
+        Rectangle paddle = game.getPaddleBounds();
+        if (this.framesLeft == 0) {
+            this.aim = (2 * this.random.nextDouble() - 1) * MAX_AIM * paddle.getWidth();
+            this.framesLeft = FRAMES_PER_AIM;
+        }
+        this.framesLeft--;
+        this.paddleMinX = paddle.getMinX();
+        this.paddleMaxX = paddle.getMaxX();
+        this.targetX = game.getLowestBallX() + this.aim;
+    }
+
+    @Override
+    public boolean isLeftPressed() {
+        // NaN, before the first step or with no ball in play, compares false: the paddle stands still
+        double center = (this.paddleMinX + this.paddleMaxX) / 2;
+        this.left = this.targetX < center - DEAD_ZONE && this.paddleMinX > LEFT_LIMIT;
+        return this.left;
+    }
+
+    @Override
+    public boolean isRightPressed() {
+        double center = (this.paddleMinX + this.paddleMaxX) / 2;
+        return !this.left && this.targetX > center + DEAD_ZONE && this.paddleMaxX < RIGHT_LIMIT;
+    }
+}
@@ -0,0 +1,52 @@
+package snapshot;
+
+// 322613720 Stav Reuven
+
+import java.awt.Color;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The ColorTable class numbers the colors written into snapshots, so a snapshot stores a small
+ * index instead of a Color and reading it back gives the very same instance. Colors are matched
+ * by identity, like the game matches them. A game uses a handful of colors, so a linear search
+ * is the fastest lookup, and the table only allocates when it meets a new color.
+ */
+final class ColorTable {
+    private final List<Color> colors = new ArrayList<>();
+
+    /**
+     * Returns the index of a color, adding the color if the table does not hold it yet.
+     *
+     * @param color the color
+     * @return the index of the color
+     */
+    int indexOf(Color color) {
+        for (int i = 0; i < this.colors.size(); i++) {
+            if (this.colors.get(i) == color) {
+                return i;
+            }
+        }
+        this.colors.add(color);
+        return this.colors.size() - 1;
+    }
+
+    /**
+     * Returns the color at an index.
+     *
+     * @param index the index of the color
+     * @return the color
+     */
+    Color get(int index) {
+        return this.colors.get(index);
+    }
+
+    /**
+     * Returns the number of colors in the table.
+     *
+     * @return the number of colors
+     */
+    int size() {
+        return this.colors.size();
+    }
+}
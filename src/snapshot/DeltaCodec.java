@@ -0,0 +1,123 @@
+package snapshot;
+
+// 322613720 Stav Reuven
+
+/**
+ * The DeltaCodec class compresses a state against a base state, usually a keyframe: the two are
+ * XORed byte by byte, which leaves zeros wherever the state did not change, and the result is
+ * stored as runs of zeros and literal bytes.
+ * An encoded state is its length followed by tokens, all numbers as unsigned varints: each token
+ * is a number of zero bytes, a number of literal bytes, and the literal bytes. Literals run on
+ * through short gaps of zeros, so a token is only started for a gap worth its two numbers.
+ * Between two steps only the moving balls, the paddle and a few bricks change, so a delta against
+ * a recent keyframe is a small fraction of the full state.
+ * A codec keeps its read position between calls, so use one codec per thread.
+ */
+final class DeltaCodec {
+    private static final int MIN_ZERO_RUN = 4;
+    private static final int MAX_VARINT_BYTES = 5;
+
+    private int position;
+
+    /**
+     * Returns the largest number of bytes encode() can write for a state of the given length.
+     *
+     * @param length the length of the state
+     * @return the largest encoded length
+     */
+    static int maxEncodedLength(int length) {
+        // Every token but the first and the last follows a gap of at least MIN_ZERO_RUN zeros
+        return MAX_VARINT_BYTES + length + (length / MIN_ZERO_RUN + 2) * 2 * MAX_VARINT_BYTES;
+    }
+
+    /**
+     * Encodes a state as its delta against a base. Bytes past the end of the base are taken as XORed
+     * with zero.
+     *
+     * @param base       the base state
+     * @param baseLength the length of the base state
+     * @param state      the state to encode
+     * @param length     the length of the state
+     * @param out        the array to encode into, of at least maxEncodedLength(length) bytes
+     * @return the number of bytes written
+     */
+    int encode(byte[] base, int baseLength, byte[] state, int length, byte[] out) {
+        this.position = 0;
+        writeVarint(out, length);
+        int i = 0;
+        while (i < length) {
+            int zeros = 0;
+            while (i < length && delta(base, baseLength, state, i) == 0) {
+                zeros++;
+                i++;
+            }
+            // The literal ends at the last changed byte before a long enough gap
+            int lastChanged = i - 1;
+            for (int j = i; j < length && j - lastChanged <= MIN_ZERO_RUN; j++) {
+                if (delta(base, baseLength, state, j) != 0) {
+                    lastChanged = j;
+                }
+            }
+            int literal = lastChanged + 1 - i;
+            writeVarint(out, zeros);
+            writeVarint(out, literal);
+            for (int end = i + literal; i < end; i++) {
+                out[this.position++] = delta(base, baseLength, state, i);
+            }
+        }
+        return this.position;
+    }
+
+    /**
+     * Decodes a delta against the base it was encoded against.
+     *
+     * @param base       the base state
+     * @param baseLength the length of the base state
+     * @param encoded    the encoded delta
+     * @param out        the array to decode into, as long as the encoded state
+     * @return the length of the decoded state
+     */
+    int decode(byte[] base, int baseLength, byte[] encoded, byte[] out) {
+        this.position = 0;
+        int length = readVarint(encoded);
+        int i = 0;
+        while (i < length) {
+            int zeros = readVarint(encoded);
+            int copied = Math.max(0, Math.min(i + zeros, baseLength) - i);
+            System.arraycopy(base, i, out, i, copied);
+            for (int j = i + copied; j < i + zeros; j++) {
+                out[j] = 0;
+            }
+            i += zeros;
+            int literal = readVarint(encoded);
+            for (int end = i + literal; i < end; i++) {
+                out[i] = (byte) (encoded[this.position++] ^ (i < baseLength ? base[i] : 0));
+            }
+        }
+        return length;
+    }
+
+    private static byte delta(byte[] base, int baseLength, byte[] state, int i) {
+        return (byte) (state[i] ^ (i < baseLength ? base[i] : 0));
+    }
+
+    private void writeVarint(byte[] out, int value) {
+        int rest = value;
+        while ((rest & ~0x7F) != 0) {
+            out[this.position++] = (byte) (rest & 0x7F | 0x80);
+            rest >>>= 7;
+        }
+        out[this.position++] = (byte) rest;
+    }
+
+    private int readVarint(byte[] in) {
+        int value = 0;
+        for (int shift = 0;; shift += 7) {
+            byte b = in[this.position++];
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+    }
+}
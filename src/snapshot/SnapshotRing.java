@@ -0,0 +1,224 @@
+package snapshot;
+
+// 322613720 Stav Reuven
+
+import arkanoid.Game;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * The SnapshotRing class keeps the states of the last steps of a game, for rewinding and for
+ * crash dumps. Captures are grouped: the first capture of every group is a keyframe, stored whole,
+ * and the others are stored as deltas against it (see DeltaCodec). The ring holds a fixed number
+ * of groups and overwrites the oldest group when it starts a new one, so it always holds between
+ * capacity - keyframeInterval + 1 and capacity of the latest states.
+ * All storage is allocated up front or grown once to the size of the state, after which capturing
+ * and rewinding allocate nothing; the balls a rewind puts back into play are the exception.
+ * A ring is used by one thread: the thread stepping the game.
+ */
+public class SnapshotRing {
+    private static final int INITIAL_STATE_BYTES = 1024;
+    private static final int DUMP_MAGIC = 0x41524B53;
+    private static final int DUMP_VERSION = 1;
+
+    private final int capacity;
+    private final int keyframeInterval;
+    private final ColorTable colors;
+    private final StateBuffer state;
+    private final DeltaCodec codec;
+    private final byte[][] keyframes;
+    private final int[] keyframeLengths;
+    private final byte[][] deltas;
+    private final int[] stateLengths;
+    private final int[] storedLengths;
+    private long oldest;
+    private long newest;
+
+    /**
+     * Constructs an empty ring.
+     *
+     * @param capacity         the number of states to keep, a multiple of the keyframe interval
+     * @param keyframeInterval the number of captures per keyframe
+     */
+    public SnapshotRing(int capacity, int keyframeInterval) {
+        if (keyframeInterval < 1 || capacity < keyframeInterval || capacity % keyframeInterval != 0) {
+            throw new IllegalArgumentException("capacity " + capacity + " is not a multiple of the keyframe interval "
+                    + keyframeInterval);
+        }
+        this.capacity = capacity;
+        this.keyframeInterval = keyframeInterval;
+        this.colors = new ColorTable();
+        this.state = new StateBuffer(INITIAL_STATE_BYTES, this.colors);
+        this.codec = new DeltaCodec();
+        int groups = capacity / keyframeInterval;
+        this.keyframes = new byte[groups][INITIAL_STATE_BYTES];
+        this.keyframeLengths = new int[groups];
+        this.deltas = new byte[capacity][DeltaCodec.maxEncodedLength(INITIAL_STATE_BYTES)];
+        this.stateLengths = new int[capacity];
+        this.storedLengths = new int[capacity];
+        clear();
+    }
+
+    /**
+     * Forgets every state captured.
+     */
+    public void clear() {
+        this.oldest = 0;
+        this.newest = -1;
+    }
+
+    /**
+     * Returns the number of states the ring keeps.
+     *
+     * @return the capacity
+     */
+    public int getCapacity() {
+        return this.capacity;
+    }
+
+    /**
+     * Returns the number of captures per keyframe.
+     *
+     * @return the keyframe interval
+     */
+    public int getKeyframeInterval() {
+        return this.keyframeInterval;
+    }
+
+    /**
+     * Returns the number of states held.
+     *
+     * @return the number of states
+     */
+    public int size() {
+        return (int) (this.newest - this.oldest + 1);
+    }
+
+    /**
+     * Captures the current state of a game as the latest state of the ring. Call it between steps.
+     *
+     * @param game the game to capture
+     */
+    public void capture(Game game) {
+        this.state.clear();
+        game.writeState(this.state);
+        long index = this.newest + 1;
+        int group = group(index);
+        int slot = slot(index);
+        int length = this.state.length();
+        this.stateLengths[slot] = length;
+        if (index % this.keyframeInterval == 0) {
+            if (this.keyframes[group].length < length) {
+                this.keyframes[group] = new byte[Math.max(length, this.keyframes[group].length * 2)];
+            }
+            System.arraycopy(this.state.array(), 0, this.keyframes[group], 0, length);
+            this.keyframeLengths[group] = length;
+            this.storedLengths[slot] = length;
+            // Starting a group overwrites the keyframe of the oldest one, and with it that whole group
+            this.oldest = Math.max(this.oldest, index - this.capacity + this.keyframeInterval);
+        } else {
+            int maxLength = DeltaCodec.maxEncodedLength(length);
+            if (this.deltas[slot].length < maxLength) {
+                this.deltas[slot] = new byte[maxLength];
+            }
+            this.storedLengths[slot] = this.codec.encode(this.keyframes[group], this.keyframeLengths[group],
+                    this.state.array(), length, this.deltas[slot]);
+        }
+        this.newest = index;
+    }
+
+    /**
+     * Steps a game one capture back: drops the latest state and restores the one before it. At the
+     * oldest state held the game is restored to that state again, so rewinding stops there.
+     *
+     * @param game the game the states were captured from
+     * @return true if a state was restored, false if the ring is empty
+     */
+    public boolean rewind(Game game) {
+        if (this.newest < this.oldest) {
+            return false;
+        }
+        if (this.newest > this.oldest) {
+            this.newest--;
+        }
+        decode(this.newest);
+        game.readState(this.state);
+        return true;
+    }
+
+    /**
+     * Writes the latest state to a file, for inspecting the last complete step after a crash.
+     * The file holds a magic number, a version, the length of the state and its raw bytes as
+     * written by Game.writeState(), then the number of colors and their RGB values, in the order
+     * of the indices that stand for colors in the state. All numbers are big-endian.
+     *
+     * @param path the path of the dump
+     * @throws IOException if the dump cannot be written
+     * @throws IllegalStateException if the ring is empty
+     */
+    public void writeLatest(Path path) throws IOException {
+        if (this.newest < this.oldest) {
+            throw new IllegalStateException("no state captured");
+        }
+        decode(this.newest);
+        try (OutputStream file = Files.newOutputStream(path);
+             DataOutputStream out = new DataOutputStream(file)) {
+            out.writeInt(DUMP_MAGIC);
+            out.writeInt(DUMP_VERSION);
+            out.writeInt(this.state.length());
+            out.write(this.state.array(), 0, this.state.length());
+            out.writeInt(this.colors.size());
+            for (int i = 0; i < this.colors.size(); i++) {
+                out.writeInt(this.colors.get(i).getRGB());
+            }
+        }
+    }
+
+    /**
+     * Returns the number of bytes the latest state takes in full.
+     *
+     * @return the raw length of the latest state, or 0 if the ring is empty
+     */
+    public int getLatestStateBytes() {
+        return this.newest < this.oldest ? 0 : this.stateLengths[slot(this.newest)];
+    }
+
+    /**
+     * Returns the number of bytes the latest state is stored in: its whole length for a keyframe,
+     * the length of its delta otherwise.
+     *
+     * @return the stored length of the latest state, or 0 if the ring is empty
+     */
+    public int getLatestStoredBytes() {
+        return this.newest < this.oldest ? 0 : this.storedLengths[slot(this.newest)];
+    }
+
+    /**
+     * Decodes the state of a capture into the state buffer, ready to be read.
+     *
+     * @param index the index of the capture
+     */
+    private void decode(long index) {
+        int group = group(index);
+        if (index % this.keyframeInterval == 0) {
+            this.state.reset(this.keyframeLengths[group]);
+            System.arraycopy(this.keyframes[group], 0, this.state.array(), 0, this.keyframeLengths[group]);
+            return;
+        }
+        byte[] delta = this.deltas[slot(index)];
+        this.state.reset(this.stateLengths[slot(index)]);
+        this.codec.decode(this.keyframes[group], this.keyframeLengths[group], delta, this.state.array());
+    }
+
+    private int slot(long index) {
+        return (int) (index % this.capacity);
+    }
+
+    private int group(long index) {
+        return (int) (index / this.keyframeInterval % (this.capacity / this.keyframeInterval));
+    }
+}
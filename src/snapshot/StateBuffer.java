@@ -0,0 +1,139 @@
+package snapshot;
+
+// 322613720 Stav Reuven
+
+import arkanoid.StateSink;
+import arkanoid.StateSource;
+
+import java.awt.Color;
+import java.util.Arrays;
+
+/**
+ * The StateBuffer class holds the state of a game as raw big-endian bytes in a reusable array.
+ * Written as a StateSink it appends, read as a StateSource it reads from the start, and colors
+ * are stored as indices into a ColorTable. The array only grows, so once it fits the state of a
+ * game, writing and reading allocate nothing.
+ */
+final class StateBuffer implements StateSink, StateSource {
+    private final ColorTable colors;
+    private byte[] data;
+    private int length;
+    private int position;
+
+    /**
+     * Constructs an empty buffer.
+     *
+     * @param capacity the initial capacity in bytes
+     * @param colors   the table the colors are numbered in
+     */
+    StateBuffer(int capacity, ColorTable colors) {
+        this.data = new byte[capacity];
+        this.colors = colors;
+    }
+
+    /**
+     * Empties the buffer for writing.
+     */
+    void clear() {
+        this.length = 0;
+        this.position = 0;
+    }
+
+    /**
+     * Makes the buffer hold the given number of bytes, to be filled in through array(), and
+     * starts reading from the first of them.
+     *
+     * @param newLength the number of bytes held
+     */
+    void reset(int newLength) {
+        ensureCapacity(newLength);
+        this.length = newLength;
+        this.position = 0;
+    }
+
+    /**
+     * Returns the array backing the buffer. It is replaced when the buffer grows.
+     *
+     * @return the backing array
+     */
+    byte[] array() {
+        return this.data;
+    }
+
+    /**
+     * Returns the number of bytes held.
+     *
+     * @return the length of the state
+     */
+    int length() {
+        return this.length;
+    }
+
+    @Override
+    public void putInt(int value) {
+        ensureCapacity(this.length + 4);
+        for (int shift = 24; shift >= 0; shift -= 8) {
+            this.data[this.length++] = (byte) (value >>> shift);
+        }
+    }
+
+    @Override
+    public void putLong(long value) {
+        ensureCapacity(this.length + 8);
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            this.data[this.length++] = (byte) (value >>> shift);
+        }
+    }
+
+    @Override
+    public void putDouble(double value) {
+        putLong(Double.doubleToRawLongBits(value));
+    }
+
+    @Override
+    public void putColor(Color color) {
+        putInt(this.colors.indexOf(color));
+    }
+
+    @Override
+    public int getInt() {
+        checkRemaining(4);
+        int value = 0;
+        for (int i = 0; i < 4; i++) {
+            value = value << 8 | (this.data[this.position++] & 0xFF);
+        }
+        return value;
+    }
+
+    @Override
+    public long getLong() {
+        checkRemaining(8);
+        long value = 0;
+        for (int i = 0; i < 8; i++) {
+            value = value << 8 | (this.data[this.position++] & 0xFF);
+        }
+        return value;
+    }
+
+    @Override
+    public double getDouble() {
+        return Double.longBitsToDouble(getLong());
+    }
+
+    @Override
+    public Color getColor() {
+        return this.colors.get(getInt());
+    }
+
+    private void checkRemaining(int bytes) {
+        if (this.position + bytes > this.length) {
+            throw new IllegalStateException("read past the end of the state");
+        }
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > this.data.length) {
+            this.data = Arrays.copyOf(this.data, Math.max(capacity, this.data.length * 2));
+        }
+    }
+}
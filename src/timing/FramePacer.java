@@ -0,0 +1,120 @@
+package timing;
+
+// 322613720 Stav Reuven
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * The FramePacer class holds a loop to a fixed frame period with sub-millisecond precision.
+ * Waiting for a deadline parks the thread until shortly before it, since a park can oversleep by
+ * the scheduler granularity, and then spins for the last stretch. Deadlines are kept as a running
+ * sum of periods from the start, not measured from when the last wait ended, so small overshoots
+ * do not add up to drift. A frame that overruns its deadline skips the deadlines it missed rather
+ * than rushing through them. How late every wait ended is recorded in a jitter histogram.
+ */
+public class FramePacer {
+    /**
+     * The default time before a deadline at which the pacer stops parking and starts spinning.
+     */
+    public static final long DEFAULT_SPIN_NANOS = 1_000_000L;
+
+    private final long periodNanos;
+    private final long spinNanos;
+    private final Histogram jitter;
+    private long deadline;
+    private long missedFrames;
+    private boolean started;
+
+    /**
+     * Constructs a pacer with the given frame period and the default spin time.
+     *
+     * @param periodNanos the frame period in nanoseconds, greater than zero
+     */
+    public FramePacer(long periodNanos) {
+        this(periodNanos, DEFAULT_SPIN_NANOS);
+    }
+
+    /**
+     * Constructs a pacer with the given frame period and spin time.
+     *
+     * @param periodNanos the frame period in nanoseconds, greater than zero
+     * @param spinNanos   how long before each deadline to stop parking and spin instead
+     */
+    public FramePacer(long periodNanos, long spinNanos) {
+        if (periodNanos <= 0) {
+            throw new IllegalArgumentException("period must be positive: " + periodNanos);
+        }
+        this.periodNanos = periodNanos;
+        this.spinNanos = Math.max(0, spinNanos);
+        this.jitter = new Histogram();
+    }
+
+    /**
+     * Starts pacing: the first deadline is one period from now. Clears the jitter statistics.
+     */
+    public void start() {
+        this.deadline = System.nanoTime() + this.periodNanos;
+        this.missedFrames = 0;
+        this.jitter.reset();
+        this.started = true;
+    }
+
+    /**
+     * Waits until the deadline of the current frame and moves on to the next one.
+     * Returns at once if the deadline has already passed. Starts pacing on the first call if
+     * start() was not called.
+     */
+    public void awaitNextFrame() {
+        if (!this.started) {
+            start();
+        }
+        long now = System.nanoTime();
+        long remaining = this.deadline - now;
+        while (remaining > this.spinNanos) {
+            LockSupport.parkNanos(remaining - this.spinNanos);
+            now = System.nanoTime();
+            remaining = this.deadline - now;
+        }
+        while (remaining > 0) {
+            Thread.onSpinWait();
+            now = System.nanoTime();
+            remaining = this.deadline - now;
+        }
+        long late = now - this.deadline;
+        this.jitter.record(late);
+        this.deadline += this.periodNanos;
+        if (late >= this.periodNanos) {
+            // Overran whole frames: skip their deadlines, keeping the phase of the frame clock
+            long missed = late / this.periodNanos;
+            this.deadline += missed * this.periodNanos;
+            this.missedFrames += missed;
+        }
+    }
+
+    /**
+     * Returns the frame period.
+     *
+     * @return the frame period in nanoseconds
+     */
+    public long getPeriodNanos() {
+        return this.periodNanos;
+    }
+
+    /**
+     * Returns how many frame deadlines were skipped because a frame overran them.
+     *
+     * @return the number of missed frames since start()
+     */
+    public long getMissedFrames() {
+        return this.missedFrames;
+    }
+
+    /**
+     * Returns the histogram of how late, in nanoseconds, each wait ended after its deadline.
+     *
+     * @return the jitter histogram, updated by every call to awaitNextFrame()
+     */
+    public Histogram getJitter() {
+        return this.jitter;
+    }
+}
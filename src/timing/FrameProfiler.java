@@ -0,0 +1,176 @@
+package timing;
+
+// 322613720 Stav Reuven
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * The FrameProfiler class measures where frame time goes. Each phase of a frame is timed with
+ * System.nanoTime() into its own Histogram: update, hit event dispatch, draw and present once per
+ * frame, collision queries once per call. The game marks the end of every frame with
+ * endFrame(), which is where snapshots are taken and, optionally, written to a file every given
+ * number of frames. A dump reports the frames since the previous dump and starts a new window.
+ * While the profiler is disabled, start() and stop() read a single flag and do nothing else.
+ * A profiler is meant to be used by one game; in pipelined mode the simulation phases are
+ * recorded on the simulation thread while the dumps happen on the render thread, so their
+ * counts may be off by the frame in flight.
+ */
+public class FrameProfiler {
+    /**
+     * The phases of a frame that are timed.
+     */
+    public enum Phase {
+        /** One physics step of all sprites, including the collision queries it runs. */
+        UPDATE,
+        /** One query of the game environment for the closest collision. */
+        COLLISION,
+        /** The dispatch of the hit events of one physics step to the subscribers of the hit event bus. */
+        LISTENERS,
+        /** Drawing all sprites of a frame onto the draw surface. */
+        DRAW,
+        /** Showing the drawn frame on the screen. */
+        PRESENT
+    }
+
+    private final Histogram[] histograms;
+    private volatile boolean enabled;
+    private long frames;
+    private long totalFrames;
+    private long windowStart;
+    private Path dumpFile;
+    private long dumpInterval;
+
+    /**
+     * Constructs a disabled profiler.
+     */
+    public FrameProfiler() {
+        this.histograms = new Histogram[Phase.values().length];
+        for (int i = 0; i < this.histograms.length; i++) {
+            this.histograms[i] = new Histogram();
+        }
+        this.windowStart = System.nanoTime();
+    }
+
+    /**
+     * Turns timing on or off. Turning it on starts a new window.
+     *
+     * @param enabled true to time the phases, false to stop
+     */
+    public void setEnabled(boolean enabled) {
+        if (enabled && !this.enabled) {
+            reset();
+        }
+        this.enabled = enabled;
+    }
+
+    /**
+     * Returns whether the phases are being timed.
+     *
+     * @return true if the profiler is enabled
+     */
+    public boolean isEnabled() {
+        return this.enabled;
+    }
+
+    /**
+     * Writes a snapshot to the given file every given number of frames, appending to it.
+     * A file whose name ends with ".json" gets one JSON object per line; any other file gets CSV
+     * rows, one per phase, with a header when the file is new.
+     *
+     * @param file        the file to append to, or null to stop dumping
+     * @param everyFrames the number of frames between dumps, greater than zero
+     */
+    public void dumpTo(Path file, long everyFrames) {
+        if (file != null && everyFrames <= 0) {
+            throw new IllegalArgumentException("dump interval must be positive: " + everyFrames);
+        }
+        this.dumpFile = file;
+        this.dumpInterval = everyFrames;
+    }
+
+    /**
+     * Starts timing a phase.
+     *
+     * @return the start time to pass to stop(), or 0 if the profiler is disabled
+     */
+    public long start() {
+        return this.enabled ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Finishes timing a phase and records its duration.
+     *
+     * @param phase the phase that was timed
+     * @param start the value returned by start() when the phase began
+     */
+    public void stop(Phase phase, long start) {
+        if (start != 0 && this.enabled) {
+            this.histograms[phase.ordinal()].record(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Marks the end of a frame, and writes a dump if one is due.
+     */
+    public void endFrame() {
+        if (!this.enabled) {
+            return;
+        }
+        this.frames++;
+        this.totalFrames++;
+        if (this.dumpFile != null && this.frames >= this.dumpInterval) {
+            dump();
+        }
+    }
+
+    /**
+     * Copies the timings of the current window.
+     *
+     * @return a snapshot of the timings since the last dump or reset
+     */
+    public ProfileSnapshot snapshot() {
+        Histogram[] copies = new Histogram[this.histograms.length];
+        for (int i = 0; i < copies.length; i++) {
+            copies[i] = new Histogram();
+            this.histograms[i].copyInto(copies[i]);
+        }
+        return new ProfileSnapshot(this.totalFrames, this.frames, System.nanoTime() - this.windowStart, copies);
+    }
+
+    /**
+     * Forgets the timings of the current window and starts a new one.
+     */
+    public void reset() {
+        for (Histogram histogram : this.histograms) {
+            histogram.reset();
+        }
+        this.frames = 0;
+        this.windowStart = System.nanoTime();
+    }
+
+    private void dump() {
+        ProfileSnapshot snapshot = snapshot();
+        reset();
+        boolean json = this.dumpFile.getFileName().toString().endsWith(".json");
+        try {
+            boolean isNew = !Files.exists(this.dumpFile) || Files.size(this.dumpFile) == 0;
+            try (Writer out = Files.newBufferedWriter(this.dumpFile, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+                if (json) {
+                    snapshot.writeJson(out);
+                } else {
+                    snapshot.writeCsv(out, isNew);
+                }
+            }
+        } catch (IOException e) {
+            // Profiling must never stop the game
+            System.err.println("Stopped dumping frame timings to " + this.dumpFile + ": " + e);
+            this.dumpFile = null;
+        }
+    }
+}
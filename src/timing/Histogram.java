@@ -0,0 +1,145 @@
+package timing;
+
+// 322613720 Stav Reuven
+
+import java.util.Arrays;
+
+/**
+ * The Histogram class counts non-negative long values, such as durations in nanoseconds, in
+ * log-linear buckets: values below 64 have a bucket each, and every larger power of two is split
+ * into 32 buckets, so any value is known to within about 3%. Recording a value is a few
+ * arithmetic operations on a fixed array and never allocates, so it can run on every frame.
+ * Percentiles are read from the bucket counts.
+ */
+public class Histogram {
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = 60 * SUB_BUCKETS;
+
+    private final long[] counts;
+    private long count;
+    private long sum;
+    private long min;
+    private long max;
+
+    /**
+     * Constructs an empty histogram.
+     */
+    public Histogram() {
+        this.counts = new long[BUCKETS];
+        reset();
+    }
+
+    /**
+     * Records a value. Negative values are recorded as zero.
+     *
+     * @param value the value to record
+     */
+    public void record(long value) {
+        long v = Math.max(0, value);
+        this.counts[index(v)]++;
+        this.count++;
+        this.sum += v;
+        this.min = Math.min(this.min, v);
+        this.max = Math.max(this.max, v);
+    }
+
+    /**
+     * Forgets all recorded values.
+     */
+    public void reset() {
+        Arrays.fill(this.counts, 0);
+        this.count = 0;
+        this.sum = 0;
+        this.min = Long.MAX_VALUE;
+        this.max = 0;
+    }
+
+    /**
+     * Copies the recorded values of this histogram into another one, replacing its own.
+     *
+     * @param target the histogram to copy into
+     */
+    public void copyInto(Histogram target) {
+        System.arraycopy(this.counts, 0, target.counts, 0, BUCKETS);
+        target.count = this.count;
+        target.sum = this.sum;
+        target.min = this.min;
+        target.max = this.max;
+    }
+
+    /**
+     * Returns the number of recorded values.
+     *
+     * @return the number of values
+     */
+    public long getCount() {
+        return this.count;
+    }
+
+    /**
+     * Returns the smallest recorded value.
+     *
+     * @return the smallest value, or 0 if nothing was recorded
+     */
+    public long getMin() {
+        return this.count == 0 ? 0 : this.min;
+    }
+
+    /**
+     * Returns the largest recorded value.
+     *
+     * @return the largest value, or 0 if nothing was recorded
+     */
+    public long getMax() {
+        return this.max;
+    }
+
+    /**
+     * Returns the mean of the recorded values.
+     *
+     * @return the mean, or 0 if nothing was recorded
+     */
+    public double getMean() {
+        return this.count == 0 ? 0 : (double) this.sum / this.count;
+    }
+
+    /**
+     * Returns the value below which the given share of the recorded values lies.
+     *
+     * @param percentile the share, from 0 to 100
+     * @return the value at the percentile, or 0 if nothing was recorded
+     */
+    public long getPercentile(double percentile) {
+        if (this.count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * this.count));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += this.counts[i];
+            if (seen >= rank) {
+                // The middle of the bucket, but never beyond what was actually recorded
+                return Math.max(this.getMin(), Math.min(this.max, middle(i)));
+            }
+        }
+        return this.max;
+    }
+
+    private static int index(long value) {
+        if (value < 2 * SUB_BUCKETS) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return shift * SUB_BUCKETS + (int) (value >>> shift);
+    }
+
+    private static long middle(int index) {
+        if (index < 2 * SUB_BUCKETS) {
+            return index;
+        }
+        int shift = index / SUB_BUCKETS - 1;
+        long mantissa = index - (long) shift * SUB_BUCKETS;
+        return (mantissa << shift) + (1L << shift) / 2;
+    }
+}
@@ -0,0 +1,125 @@
+package timing;
+
+// 322613720 Stav Reuven
+
+import java.io.IOException;
+import java.util.Locale;
+
+/**
+ * The ProfileSnapshot class holds a copy of the phase timings of a FrameProfiler over one window
+ * of frames, and formats them as CSV or JSON.
+ */
+public class ProfileSnapshot {
+    private static final String CSV_HEADER = "frame,phase,count,p50_ns,p99_ns,max_ns,mean_ns";
+
+    private final long frame;
+    private final long frames;
+    private final long windowNanos;
+    private final Histogram[] histograms;
+
+    /**
+     * Constructs a snapshot.
+     *
+     * @param frame       the number of frames profiled since the profiler was enabled
+     * @param frames      the number of frames in the window
+     * @param windowNanos the wall-clock length of the window in nanoseconds
+     * @param histograms  the timings of the window, indexed by phase ordinal
+     */
+    ProfileSnapshot(long frame, long frames, long windowNanos, Histogram[] histograms) {
+        this.frame = frame;
+        this.frames = frames;
+        this.windowNanos = windowNanos;
+        this.histograms = histograms;
+    }
+
+    /**
+     * Returns the number of frames profiled since the profiler was enabled.
+     *
+     * @return the frame the snapshot was taken at
+     */
+    public long getFrame() {
+        return this.frame;
+    }
+
+    /**
+     * Returns the number of frames in the window.
+     *
+     * @return the number of frames covered by the snapshot
+     */
+    public long getFrames() {
+        return this.frames;
+    }
+
+    /**
+     * Returns the wall-clock length of the window.
+     *
+     * @return the length of the window in nanoseconds
+     */
+    public long getWindowNanos() {
+        return this.windowNanos;
+    }
+
+    /**
+     * Returns the timings of a phase.
+     *
+     * @param phase the phase
+     * @return the histogram of the durations of the phase, in nanoseconds
+     */
+    public Histogram getHistogram(FrameProfiler.Phase phase) {
+        return this.histograms[phase.ordinal()];
+    }
+
+    /**
+     * Writes the snapshot as CSV rows, one per phase.
+     *
+     * @param out    where to write
+     * @param header true to write the header row first
+     * @throws IOException if writing fails
+     */
+    public void writeCsv(Appendable out, boolean header) throws IOException {
+        if (header) {
+            out.append(CSV_HEADER).append('\n');
+        }
+        for (FrameProfiler.Phase phase : FrameProfiler.Phase.values()) {
+            Histogram h = getHistogram(phase);
+            out.append(String.format(Locale.ROOT, "%d,%s,%d,%d,%d,%d,%.1f%n", this.frame,
+                    phase.name().toLowerCase(Locale.ROOT), h.getCount(), h.getPercentile(50),
+                    h.getPercentile(99), h.getMax(), h.getMean()));
+        }
+    }
+
+    /**
+     * Writes the snapshot as a single line holding one JSON object.
+     *
+     * @param out where to write
+     * @throws IOException if writing fails
+     */
+    public void writeJson(Appendable out) throws IOException {
+        out.append(String.format(Locale.ROOT, "{\"frame\":%d,\"frames\":%d,\"window_ns\":%d,\"phases\":{",
+                this.frame, this.frames, this.windowNanos));
+        for (FrameProfiler.Phase phase : FrameProfiler.Phase.values()) {
+            Histogram h = getHistogram(phase);
+            if (phase.ordinal() > 0) {
+                out.append(',');
+            }
+            out.append(String.format(Locale.ROOT,
+                    "\"%s\":{\"count\":%d,\"p50_ns\":%d,\"p99_ns\":%d,\"max_ns\":%d,\"mean_ns\":%.1f}",
+                    phase.name().toLowerCase(Locale.ROOT), h.getCount(), h.getPercentile(50),
+                    h.getPercentile(99), h.getMax(), h.getMean()));
+        }
+        out.append("}}\n");
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder();
+        text.append(String.format(Locale.ROOT, "%d frames in %.1f ms%n", this.frames, this.windowNanos / 1e6));
+        for (FrameProfiler.Phase phase : FrameProfiler.Phase.values()) {
+            Histogram h = getHistogram(phase);
+            text.append(String.format(Locale.ROOT, "%-9s n=%-8d p50=%8.1f us  p99=%8.1f us  max=%8.1f us%n",
+                    phase.name().toLowerCase(Locale.ROOT), h.getCount(), h.getPercentile(50) / 1e3,
+                    h.getPercentile(99) / 1e3, h.getMax() / 1e3));
+        }
+        return text.toString();
+    }
+}
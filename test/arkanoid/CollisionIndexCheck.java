@@ -0,0 +1,206 @@
+package arkanoid;
+
+// 322613720 Stav Reuven
+
+import check.Checks;
+import geometry.Block;
+import geometry.Collidable;
+import geometry.Rectangle;
+
+import java.awt.Color;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Supplier;
+
+/**
+ * The CollisionIndexCheck class checks every collision index against brute force.
+ * Each index is filled with seeded random blocks, some of them straddling the edge of the indexed
+ * area, and then alternately mutated, with blocks moved, removed and added, and queried with
+ * random swept circles. Every query must find the same closest impact as testing each live block
+ * in turn: the same time, and a block that really is hit at that time.
+ * The grid must refuse a query wider than the largest radius it was built for, and the built-in
+ * level must play out the same over either index in every physics mode.
+ * Run it with "ant test"; it exits with status 1 at the first query an index answers wrongly.
+ */
+public final class CollisionIndexCheck {
+    private static final long SEED = 7;
+    private static final int BLOCKS = 150;
+    private static final int ROUNDS = 200;
+    private static final int CHANGES_PER_ROUND = 8;
+    private static final int QUERIES_PER_ROUND = 250;
+    private static final double WIDTH = 800;
+    private static final double HEIGHT = 600;
+    private static final double MAX_RADIUS = 10;
+    private static final int MAX_FRAMES = 4000;
+
+    private CollisionIndexCheck() {
+    }
+
+    /**
+     * Runs the check on the uniform grid, the AABB tree, the game environment over either, and
+     * games played over either.
+     *
+     * @param args command-line arguments (not used)
+     */
+    public static void main(String[] args) {
+        check("UniformGrid", () -> new UniformGrid(0, 0, WIDTH, HEIGHT, 50, MAX_RADIUS));
+        check("AabbTree", AabbTree::new);
+        check("GameEnvironment", () -> new EnvironmentIndex(new GameEnvironment()));
+        check("GameEnvironment over an AabbTree",
+                () -> new EnvironmentIndex(new GameEnvironment(CollisionIndexType.AABB_TREE)));
+        checkRadiusLimit();
+        checkGames();
+        System.out.println("OK: every index agrees with brute force");
+    }
+
+    /**
+     * Checks that the grid refuses a circle wider than it buckets for, instead of missing impacts.
+     */
+    private static void checkRadiusLimit() {
+        UniformGrid grid = new UniformGrid(0, 0, WIDTH, HEIGHT, 50, MAX_RADIUS);
+        grid.add(new Block(new Rectangle(100, 100, 40, 20), Color.RED));
+        CollisionQuery query = new CollisionQuery();
+        query.reset(110, 60, 0, 80, MAX_RADIUS);
+        grid.query(query);
+        if (!query.found()) {
+            Checks.fail("UniformGrid: missed an impact at the largest radius it supports");
+        }
+        query.reset(110, 60, 0, 80, MAX_RADIUS + 1);
+        try {
+            grid.query(query);
+            Checks.fail("UniformGrid: answered a query wider than its largest radius");
+        } catch (IllegalArgumentException e) {
+            System.out.println("UniformGrid: a query wider than " + MAX_RADIUS + " refused");
+        }
+    }
+
+    /**
+     * Checks that the built-in level, with a paddle that never moves, ends on the same frame with
+     * the same score over either index, in every physics mode.
+     */
+    private static void checkGames() {
+        for (PhysicsMode mode : PhysicsMode.values()) {
+            SimulationResult grid = play(mode, CollisionIndexType.UNIFORM_GRID);
+            SimulationResult tree = play(mode, CollisionIndexType.AABB_TREE);
+            if (tree.getFrames() != grid.getFrames() || tree.getScore() != grid.getScore()) {
+                Checks.fail(String.format("%s, built-in level over an AabbTree: %d frames with score %d instead of %d"
+                        + " with score %d", mode, tree.getFrames(), tree.getScore(), grid.getFrames(),
+                        grid.getScore()));
+            }
+        }
+        System.out.println("Games: the built-in level plays out the same over either index in every mode");
+    }
+
+    private static SimulationResult play(PhysicsMode mode, CollisionIndexType type) {
+        Game game = new Game(Checks.IDLE);
+        game.setPhysicsMode(mode);
+        game.setCollisionIndex(type);
+        game.initialize();
+        return game.runHeadless(MAX_FRAMES);
+    }
+
+    private static void check(String name, Supplier<CollisionIndex> indexes) {
+        Random random = new Random(SEED);
+        CollisionIndex index = indexes.get();
+        List<Block> live = new ArrayList<>();
+        for (int i = 0; i < BLOCKS; i++) {
+            Block block = randomBlock(random);
+            index.add(block);
+            live.add(block);
+        }
+        CollisionQuery indexed = new CollisionQuery();
+        CollisionQuery brute = new CollisionQuery();
+        CollisionQuery single = new CollisionQuery();
+        int hits = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            for (int i = 0; i < CHANGES_PER_ROUND; i++) {
+                Block moved = live.get(random.nextInt(live.size()));
+                moved.getCollisionRectangle().moveTo(random.nextDouble() * WIDTH - 20,
+                        random.nextDouble() * HEIGHT - 20);
+                index.update(moved);
+                index.remove(live.remove(random.nextInt(live.size())));
+                Block added = randomBlock(random);
+                index.add(added);
+                live.add(added);
+            }
+            for (int q = 0; q < QUERIES_PER_ROUND; q++) {
+                double x0 = random.nextDouble() * (WIDTH + 40) - 20;
+                double y0 = random.nextDouble() * (HEIGHT + 40) - 20;
+                double dx = (random.nextDouble() * 2 - 1) * 80;
+                double dy = (random.nextDouble() * 2 - 1) * 80;
+                double radius = random.nextInt(4) == 0 ? 0 : random.nextDouble() * MAX_RADIUS;
+                indexed.reset(x0, y0, dx, dy, radius);
+                index.query(indexed);
+                brute.reset(x0, y0, dx, dy, radius);
+                for (Block block : live) {
+                    brute.test(block);
+                }
+                String where = String.format("%s, round %d: query (%.3f, %.3f) by (%.3f, %.3f) radius %.3f",
+                        name, round, x0, y0, dx, dy, radius);
+                if (indexed.found() != brute.found()) {
+                    Checks.fail(where + (brute.found() ? " missed the impact at " + brute.time()
+                            : " found an impact at " + indexed.time() + " where there is none"));
+                }
+                if (!brute.found()) {
+                    continue;
+                }
+                hits++;
+                if (indexed.time() != brute.time()) {
+                    Checks.fail(where + " hit at " + indexed.time() + " instead of " + brute.time());
+                }
+                Collidable found = indexed.toCollisionInfo().collisionObject();
+                single.reset(x0, y0, dx, dy, radius);
+                single.test(found);
+                if (!live.contains(found) || !single.found() || single.time() != brute.time()) {
+                    Checks.fail(where + " reported a block that is not hit at " + brute.time());
+                }
+            }
+        }
+        System.out.printf("%s: %d queries, %d of them hits, all as brute force%n", name,
+                ROUNDS * QUERIES_PER_ROUND, hits);
+    }
+
+    private static Block randomBlock(Random random) {
+        double width = 5 + random.nextDouble() * 60;
+        double height = 5 + random.nextDouble() * 30;
+        return new Block(new Rectangle(random.nextDouble() * (WIDTH + 40 - width) - 20,
+                random.nextDouble() * (HEIGHT + 40 - height) - 20, width, height), Color.RED);
+    }
+
+    /**
+     * A GameEnvironment seen as a collision index, so it is checked the way the game uses it.
+     */
+    private static final class EnvironmentIndex implements CollisionIndex {
+        private final GameEnvironment environment;
+
+        EnvironmentIndex(GameEnvironment environment) {
+            this.environment = environment;
+        }
+
+        @Override
+        public void add(Collidable c) {
+            this.environment.addCollidable(c);
+        }
+
+        @Override
+        public void remove(Collidable c) {
+            this.environment.remove(c);
+        }
+
+        @Override
+        public void update(Collidable c) {
+            this.environment.update(c);
+        }
+
+        @Override
+        public void clear() {
+            this.environment.clear();
+        }
+
+        @Override
+        public void query(CollisionQuery query) {
+            this.environment.query(query);
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package arkanoid;
+
+// 322613720 Stav Reuven
+
+import check.Checks;
+import level.LevelCompiler;
+import level.LevelImage;
+import sim.TrackingPaddle;
+
+import java.io.IOException;
+import java.util.Random;
+
+/**
+ * The PhysicsModeCheck class checks that the physics modes play the same games.
+ * Each game is a seeded one-ball level played headless by a TrackingPaddle, once in every mode,
+ * recording the x-coordinate of the lowest ball and the score after every frame.
+ * The ball-system modes resolve the same collisions in the same order as stepped mode, so they must
+ * match it bit for bit over the whole game. Event-driven mode reaches the same positions through
+ * sums of a different number of terms, so its rounding differs; the difference grows with every
+ * bounce, and the check only asks it to stay within a thousandth of a pixel, with the same score,
+ * over the first ten seconds of each game.
+ * The built-in level, with a paddle that never moves, must end on the same frame with the same
+ * score in every mode.
+ * Run it with "ant test"; it exits with status 1 at the first game that a mode plays differently.
+ */
+public final class PhysicsModeCheck {
+    private static final long SEED = 11;
+    private static final int GAMES = 40;
+    private static final int MAX_FRAMES = 4000;
+    private static final int EVENT_DRIVEN_FRAMES = 600;
+    private static final double EVENT_DRIVEN_TOLERANCE = 1e-3;
+    private static final int LEVEL_ID = 50;
+
+    private PhysicsModeCheck() {
+    }
+
+    /**
+     * Runs the check on the seeded levels and on the built-in level.
+     *
+     * @param args command-line arguments (not used)
+     * @throws IOException if a seeded level does not compile
+     */
+    public static void main(String[] args) throws IOException {
+        Random random = new Random(SEED);
+        for (int i = 0; i < GAMES; i++) {
+            long seed = random.nextLong();
+            checkLevel(seed, LevelCompiler.compile(layout(random), LEVEL_ID));
+        }
+        System.out.printf("%d seeded games: every mode plays them like stepped mode%n", GAMES);
+        checkBuiltInLevel();
+        System.out.println("OK: the physics modes agree");
+    }
+
+    private static void checkLevel(long seed, LevelImage level) {
+        Trace stepped = play(PhysicsMode.STEPPED, seed, level);
+        for (PhysicsMode mode : PhysicsMode.values()) {
+            if (mode == PhysicsMode.STEPPED) {
+                continue;
+            }
+            Trace trace = play(mode, seed, level);
+            String where = String.format("%s, game of seed %d", mode, seed);
+            if (mode == PhysicsMode.EVENT_DRIVEN) {
+                int frames = Math.min(EVENT_DRIVEN_FRAMES, Math.min(stepped.frames, trace.frames));
+                for (int f = 0; f < frames; f++) {
+                    double difference = Math.abs(trace.ballX[f] - stepped.ballX[f]);
+                    boolean bothNaN = Double.isNaN(trace.ballX[f]) && Double.isNaN(stepped.ballX[f]);
+                    if (!bothNaN && !(difference <= EVENT_DRIVEN_TOLERANCE)) {
+                        Checks.fail(where + ", frame " + f + ": ball at x=" + trace.ballX[f] + " instead of "
+                                + stepped.ballX[f]);
+                    }
+                    if (trace.score[f] != stepped.score[f]) {
+                        Checks.fail(where + ", frame " + f + ": score " + trace.score[f] + " instead of "
+                                + stepped.score[f]);
+                    }
+                }
+                if (frames < EVENT_DRIVEN_FRAMES && trace.frames != stepped.frames) {
+                    Checks.fail(where + ": ended on frame " + trace.frames + " instead of " + stepped.frames);
+                }
+                continue;
+            }
+            if (trace.frames != stepped.frames) {
+                Checks.fail(where + ": ended on frame " + trace.frames + " instead of " + stepped.frames);
+            }
+            for (int f = 0; f < stepped.frames; f++) {
+                if (Double.compare(trace.ballX[f], stepped.ballX[f]) != 0 || trace.score[f] != stepped.score[f]) {
+                    Checks.fail(where + ", frame " + f + ": ball at x=" + trace.ballX[f] + " with score "
+                            + trace.score[f] + " instead of x=" + stepped.ballX[f] + " with score " + stepped.score[f]);
+                }
+            }
+        }
+    }
+
+    private static void checkBuiltInLevel() {
+        SimulationResult stepped = null;
+        for (PhysicsMode mode : PhysicsMode.values()) {
+            Game game = new Game(Checks.IDLE);
+            game.setPhysicsMode(mode);
+            game.initialize();
+            SimulationResult result = game.runHeadless(MAX_FRAMES);
+            if (stepped == null) {
+                stepped = result;
+            } else if (result.getFrames() != stepped.getFrames() || result.getScore() != stepped.getScore()) {
+                Checks.fail(String.format("%s, built-in level: %d frames with score %d instead of %d with score %d",
+                        mode, result.getFrames(), result.getScore(), stepped.getFrames(), stepped.getScore()));
+            }
+        }
+        System.out.printf("Built-in level: every mode ends on frame %d with score %d%n", stepped.getFrames(),
+                stepped.getScore());
+    }
+
+    private static Trace play(PhysicsMode mode, long seed, LevelImage level) {
+        TrackingPaddle paddle = new TrackingPaddle(seed);
+        Game game = new Game(paddle);
+        game.setPhysicsMode(mode);
+        game.addStepListener(paddle);
+        level.applyTo(game);
+        Trace trace = new Trace();
+        while (trace.frames < MAX_FRAMES && !game.isOver()) {
+            game.step();
+            trace.ballX[trace.frames] = game.getLowestBallX();
+            trace.score[trace.frames] = game.getScore();
+            trace.frames++;
+        }
+        return trace;
+    }
+
+    /**
+     * Writes a level with one ball, starting at a random place and angle, under a fixed brick wall.
+     */
+    private static String layout(Random random) {
+        return String.format("paddle 350 560 100 20 8%n"
+                        + "ball %s %s %s %s 5 black%n"
+                        + "field 27.5 60 45 20%n"
+                        + "brick R red%nbrick B blue%nbrick Y yellow%n"
+                        + "row RRRRRRRRRRRRRRRR%nrow BYBYBYBYBYBYBYBY%nrow YBYBYBYBYBYBYBYB%nrow R.R.R.R.R.R.R.R.%n",
+                250 + random.nextDouble() * 300, 380 + random.nextDouble() * 120, 200 + random.nextDouble() * 140,
+                4 + random.nextDouble() * 3);
+    }
+
+    /**
+     * The lowest ball and the score after every frame of a game.
+     */
+    private static final class Trace {
+        private final double[] ballX = new double[MAX_FRAMES];
+        private final int[] score = new int[MAX_FRAMES];
+        private int frames;
+    }
+}
@@ -0,0 +1,39 @@
+package check;
+
+// 322613720 Stav Reuven
+
+import arkanoid.InputSource;
+
+/**
+ * The Checks class holds what the behaviour checks under test share: the way a check fails, and
+ * an input that never presses a key.
+ */
+public final class Checks {
+    /**
+     * An input source that never presses a key, for a paddle that never moves.
+     */
+    public static final InputSource IDLE = new InputSource() {
+        @Override
+        public boolean isLeftPressed() {
+            return false;
+        }
+
+        @Override
+        public boolean isRightPressed() {
+            return false;
+        }
+    };
+
+    private Checks() {
+    }
+
+    /**
+     * Reports a failed check and exits with status 1, which fails "ant test".
+     *
+     * @param message what went wrong, and where
+     */
+    public static void fail(String message) {
+        System.out.println("FAILED: " + message);
+        System.exit(1);
+    }
+}
@@ -0,0 +1,346 @@
+package level;
+
+// 322613720 Stav Reuven
+
+import arkanoid.Game;
+import arkanoid.GameEnvironment;
+import arkanoid.InputSource;
+import arkanoid.PhysicsMode;
+import check.Checks;
+import geometry.Ball;
+import geometry.BlockField;
+import geometry.Point;
+import geometry.Rectangle;
+import geometry.Velocity;
+import replay.StateHash;
+import sim.RandomPaddle;
+import sim.TrackingPaddle;
+
+import java.awt.Color;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+/**
+ * The LevelCheck class checks that a level comes out of its image as it was written.
+ * A level using every kind of line is compiled both to an image file, which is then mapped, and in
+ * memory. In every physics mode, a game set up from either image must be in the same state as a
+ * game set up by hand through the public API of Game and BlockField, and stay in the same state
+ * step after step played by the same seeded TrackingPaddle. A paddle of a size and height of its
+ * own must wrap around between the walls at its own height. The levels shipped in levels/ must
+ * compile.
+ * Invalid level texts must be refused with the line and the reason, truncated or foreign images
+ * must be refused when mapped, and a LevelLibrary must compile a level only when its image is
+ * missing or older than its text.
+ * Run it with "ant test"; it exits with status 1 at the first level that does not come out right.
+ */
+public final class LevelCheck {
+    private static final int LEVEL_ID = 7;
+    private static final long SEED = 3;
+    private static final int FRAMES = 1500;
+    private static final String[] ROWS = {"RRTTOORRTTOO", ".RW..WR.OOT", "T.O.TWW.TRRT"};
+    private static final String LEVEL = "# A level for LevelCheck: every kind of line, with comments\n"
+            + "paddle 340 560 120 20 7   # wider and slower than the default\n"
+            + "\n"
+            + "ball 400 450 250 6 5 black\n"
+            + "ball 300 470 300 5 4 #ff8000\n"
+            + "field 40 70 60 25\n"
+            + "brick R red\n"
+            + "brick T yellow 2   # takes two hits\n"
+            + "brick O #ff8000\n"
+            + "brick W lightgray\n"
+            + "row " + ROWS[0] + "\n"
+            + "row " + ROWS[1] + "\n"
+            + "row " + ROWS[2] + "\n";
+    private static final String SMALL_LEVEL = "paddle 350 560 100 20 8\n"
+            + "ball 400 450 250 6 5 black\n"
+            + "field 40 70 60 25\n"
+            + "brick R red\n"
+            + "row RR.RR\n";
+    // The paddle of the wrapping check, and the inner sides of the walls it wraps between
+    private static final int WRAP_FRAMES = 200;
+    private static final double WRAP_Y = 500;
+    private static final int WRAP_SPEED = 8;
+    private static final double LEFT_WALL = 20;
+    private static final double RIGHT_WALL = 780;
+
+    private LevelCheck() {
+    }
+
+    /**
+     * Runs the check.
+     *
+     * @param args command-line arguments (not used)
+     * @throws IOException if a temporary file cannot be written
+     */
+    public static void main(String[] args) throws IOException {
+        Path directory = Files.createTempDirectory("level-check");
+        try {
+            checkImages(directory);
+            checkPaddleWrap();
+            checkShippedLevels();
+            checkErrors(directory);
+            checkLibrary(directory);
+        } finally {
+            try (Stream<Path> files = Files.walk(directory)) {
+                for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                    Files.delete(file);
+                }
+            }
+        }
+        System.out.println("OK: every level comes out of its image as written");
+    }
+
+    private static void checkImages(Path directory) throws IOException {
+        Path source = directory.resolve("check.level");
+        Path file = directory.resolve("check.lvl");
+        Files.writeString(source, LEVEL);
+        LevelCompiler.compile(source, LEVEL_ID, file);
+        LevelImage mapped = LevelImage.map(file);
+        LevelImage inMemory = LevelCompiler.compile(LEVEL, LEVEL_ID);
+        for (PhysicsMode mode : PhysicsMode.values()) {
+            checkImage(mode + ", mapped image", mapped, mode);
+            checkImage(mode + ", image in memory", inMemory, mode);
+        }
+        System.out.printf("Images: mapped and in memory, set up like the level built by hand in every mode%n");
+    }
+
+    private static void checkImage(String where, LevelImage image, PhysicsMode mode) {
+        if (image.getLevelId() != LEVEL_ID || image.getBallCount() != 2) {
+            Checks.fail(where + ": level " + image.getLevelId() + " with " + image.getBallCount() + " balls");
+        }
+        Game expected = trackedGame(mode);
+        buildByHand(expected);
+        Game actual = trackedGame(mode);
+        image.applyTo(actual);
+        Rectangle paddle = actual.getPaddleBounds();
+        if (paddle.getMinX() != 340 || paddle.getMinY() != 560 || paddle.getWidth() != 120
+                || paddle.getHeight() != 20) {
+            Checks.fail(where + ": the paddle is at " + paddle.getMinX() + ", " + paddle.getMinY() + ", "
+                    + paddle.getWidth() + " by " + paddle.getHeight());
+        }
+        StateHash hash = new StateHash();
+        for (int frame = 0; frame <= FRAMES && !expected.isOver(); frame++) {
+            if (hash.hash(actual) != hash.hash(expected) || actual.isOver()) {
+                Checks.fail(where + (frame == 0 ? ": set up differently" : ": played differently at step " + frame));
+            }
+            expected.step();
+            actual.step();
+        }
+    }
+
+    private static Game trackedGame(PhysicsMode mode) {
+        TrackingPaddle paddle = new TrackingPaddle(SEED);
+        Game game = new Game(paddle);
+        game.setPhysicsMode(mode);
+        game.addStepListener(paddle);
+        return game;
+    }
+
+    /**
+     * Sets up LEVEL the way LevelImage.applyTo() does, from the values written in its text.
+     */
+    private static void buildByHand(Game game) {
+        Color orange = new Color(0xFF8000);
+        game.initializeArena(new Rectangle(340, 560, 120, 20), 7);
+        Ball black = new Ball(5, new Point(400, 450), Color.BLACK, game.getEnvironment());
+        black.setVelocity(Velocity.fromAngleAndSpeed(250, 6));
+        game.spawnBall(black);
+        Ball ball = new Ball(4, new Point(300, 470), orange, game.getEnvironment());
+        ball.setVelocity(Velocity.fromAngleAndSpeed(300, 5));
+        game.spawnBall(ball);
+        BlockField field = new BlockField(40, 70, 60, 25, ROWS[0].length(), ROWS.length);
+        for (int row = 0; row < ROWS.length; row++) {
+            for (int column = 0; column < ROWS[row].length(); column++) {
+                switch (ROWS[row].charAt(column)) {
+                    case 'R':
+                        field.setCell(column, row, Color.RED);
+                        break;
+                    case 'T':
+                        field.setCell(column, row, Color.YELLOW, 2);
+                        break;
+                    case 'O':
+                        field.setCell(column, row, orange);
+                        break;
+                    case 'W':
+                        field.setCell(column, row, Color.LIGHT_GRAY);
+                        break;
+                    default:
+                        break;
+                }
+            }
+        }
+        game.addBlockField(field);
+    }
+
+    /**
+     * Holds a wide, raised paddle against each wall in turn: it must wrap around to the other wall,
+     * at its own height, and never move into a wall by more than a step.
+     */
+    private static void checkPaddleWrap() throws IOException {
+        LevelImage image = LevelCompiler.compile(SMALL_LEVEL.replace("paddle 350 560 100 20 8",
+                "paddle 300 " + WRAP_Y + " 150 20 " + WRAP_SPEED), LEVEL_ID);
+        for (boolean left : new boolean[] {true, false}) {
+            String where = "paddle held " + (left ? "left" : "right");
+            Game game = new Game(new HeldKey(left));
+            game.setFloorClosed(true);
+            image.applyTo(game);
+            boolean wrapped = false;
+            for (int frame = 0; frame < WRAP_FRAMES; frame++) {
+                double before = game.getPaddleBounds().getMinX();
+                game.step();
+                Rectangle paddle = game.getPaddleBounds();
+                if (paddle.getMinY() != WRAP_Y || paddle.getMinX() <= LEFT_WALL - WRAP_SPEED
+                        || paddle.getMaxX() >= RIGHT_WALL + WRAP_SPEED) {
+                    Checks.fail(where + ", step " + frame + ": the paddle is at " + paddle.getMinX() + ", "
+                            + paddle.getMinY());
+                }
+                wrapped |= left ? paddle.getMinX() > before && paddle.getMaxX() == RIGHT_WALL
+                        : paddle.getMinX() < before && paddle.getMinX() == LEFT_WALL;
+            }
+            if (!wrapped) {
+                Checks.fail(where + ": the paddle never wrapped around to the other wall");
+            }
+        }
+        System.out.println("Paddle: a wide, raised paddle wraps around between the walls at its own height");
+    }
+
+    private static void checkShippedLevels() throws IOException {
+        LevelLibrary library = LevelLibrary.standard();
+        int[] ids = library.getLevelIds();
+        for (int id : ids) {
+            LevelImage image = LevelCompiler.compile(Files.readString(library.getSourcePath(id)), id);
+            Game game = new Game(new RandomPaddle(SEED));
+            image.applyTo(game);
+            if (game.isOver()) {
+                Checks.fail("level " + id + " of " + library.getSourceDirectory() + " is over before it starts");
+            }
+        }
+        System.out.printf("Shipped levels: %s compiled and set up%n", Arrays.toString(ids));
+    }
+
+    private static void checkErrors(Path directory) throws IOException {
+        refused(SMALL_LEVEL.replace("paddle 350 560 100 20 8", "paddle 350 560 100 20"), 1,
+                "\"paddle\" takes 5 values, not 4");
+        refused(SMALL_LEVEL.replace("ball 400 450 250 6 5 black", "ball 400 x 250 6 5 black"), 2, "not a number: x");
+        refused(SMALL_LEVEL.replace("ball 400 450 250 6 5 black", "ball 400 450 250 6 0 black"), 2,
+                "0 is out of range");
+        refused(SMALL_LEVEL.replace("ball 400 450 250 6 5 black", "ball 400 450 250 6 25 black"), 2,
+                "a ball radius is at most " + GameEnvironment.MAX_BALL_RADIUS + ", not 25");
+        refused(SMALL_LEVEL.replace("brick R red", "brick R mauve"), 4, "unknown color \"mauve\"");
+        refused(SMALL_LEVEL.replace("brick R red", "brick R red 200"), 4, "200 is out of range");
+        refused(SMALL_LEVEL.replace("brick R red", "brick . red"), 4,
+                "a brick symbol is one character other than '.'");
+        refused(SMALL_LEVEL.replace("row RR.RR", "row RRXRR"), 5, "unknown brick 'X'");
+        refused(SMALL_LEVEL.replace("field 40 70 60 25", "wall 40 70 60 25"), 3, "unknown line \"wall\"");
+        refused(SMALL_LEVEL.replace("field 40 70 60 25\n", ""), 0, "a level needs a paddle and a field");
+        refused(SMALL_LEVEL.replace("ball 400 450 250 6 5 black\n", ""), 0, "a level needs at least one ball");
+        refused(SMALL_LEVEL.replace("row RR.RR", "row ....."), 0, "a level needs at least one brick");
+
+        Path source = directory.resolve("small.level");
+        Path file = directory.resolve("small.lvl");
+        Files.writeString(source, SMALL_LEVEL);
+        LevelCompiler.compile(source, LEVEL_ID, file);
+        byte[] image = Files.readAllBytes(file);
+        Path damaged = directory.resolve("damaged.lvl");
+        Files.write(damaged, Arrays.copyOf(image, image.length - 1));
+        unreadable(damaged, "truncated level image");
+        byte[] foreign = image.clone();
+        foreign[0] ^= 1;
+        Files.write(damaged, foreign);
+        unreadable(damaged, "not a level image");
+        byte[] newer = image.clone();
+        newer[7]++;
+        Files.write(damaged, newer);
+        unreadable(damaged, "unsupported level image version");
+        System.out.println("Errors: invalid levels and damaged images refused with the reason");
+    }
+
+    /**
+     * Checks that a level text is refused, with the line at fault, or with none for a level missing
+     * a line, and the reason.
+     */
+    private static void refused(String text, int line, String reason) {
+        String expected = "level " + LEVEL_ID + (line > 0 ? ":" + line : "") + ": " + reason;
+        try {
+            LevelCompiler.compile(text, LEVEL_ID);
+        } catch (IOException e) {
+            if (!e.getMessage().equals(expected)) {
+                Checks.fail("refused with \"" + e.getMessage() + "\" instead of \"" + expected + "\"");
+            }
+            return;
+        }
+        Checks.fail("compiled a level that should be refused with \"" + expected + "\"");
+    }
+
+    private static void unreadable(Path image, String reason) {
+        try {
+            LevelImage.map(image);
+        } catch (IOException e) {
+            if (!e.getMessage().startsWith(reason)) {
+                Checks.fail("a damaged image refused with \"" + e.getMessage() + "\" instead of \"" + reason + "\"");
+            }
+            return;
+        }
+        Checks.fail("mapped a damaged image that should be refused with \"" + reason + "\"");
+    }
+
+    private static void checkLibrary(Path directory) throws IOException {
+        Path sources = Files.createDirectory(directory.resolve("levels"));
+        LevelLibrary library = new LevelLibrary(sources, sources.resolve("cache"));
+        Files.writeString(library.getSourcePath(LEVEL_ID), SMALL_LEVEL);
+        if (!Arrays.equals(library.getLevelIds(), new int[] {LEVEL_ID})) {
+            Checks.fail("the library lists levels " + Arrays.toString(library.getLevelIds()));
+        }
+        if (!library.refresh(LEVEL_ID) || library.refresh(LEVEL_ID)) {
+            Checks.fail("the library did not compile a new level exactly once");
+        }
+        Path source = library.getSourcePath(LEVEL_ID);
+        String edited = SMALL_LEVEL.replace("row RR.RR", "row RRRRR");
+        Files.writeString(source, edited);
+        Files.setLastModifiedTime(source, FileTime.fromMillis(System.currentTimeMillis() + 60_000));
+        if (!library.refresh(LEVEL_ID)) {
+            Checks.fail("the library did not compile a level edited since its image");
+        }
+        Game loaded = new Game(new RandomPaddle(SEED));
+        library.load(LEVEL_ID).applyTo(loaded);
+        Game compiled = new Game(new RandomPaddle(SEED));
+        LevelCompiler.compile(edited, LEVEL_ID).applyTo(compiled);
+        StateHash hash = new StateHash();
+        if (hash.hash(loaded) != hash.hash(compiled)) {
+            Checks.fail("the library loaded the level as it was before it was edited");
+        }
+        try {
+            library.load(LEVEL_ID + 1);
+            Checks.fail("the library loaded a level it does not have");
+        } catch (IOException e) {
+            // Refused, as it should be
+        }
+        System.out.println("Library: levels compiled when missing or out of date, and only then");
+    }
+
+    /**
+     * An input that holds one key down.
+     */
+    private static final class HeldKey implements InputSource {
+        private final boolean left;
+
+        HeldKey(boolean left) {
+            this.left = left;
+        }
+
+        @Override
+        public boolean isLeftPressed() {
+            return this.left;
+        }
+
+        @Override
+        public boolean isRightPressed() {
+            return !this.left;
+        }
+    }
+}
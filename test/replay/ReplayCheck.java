@@ -0,0 +1,114 @@
+package replay;
+
+// 322613720 Stav Reuven
+
+import arkanoid.Game;
+import arkanoid.InputSource;
+import arkanoid.PhysicsMode;
+import check.Checks;
+import level.LevelLibrary;
+import sim.RandomPaddle;
+import snapshot.SnapshotRing;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * The ReplayCheck class checks that a recorded journal replays frame for frame.
+ * In every physics mode, a game of the built-in level is played by a seeded random paddle that also
+ * holds the rewind key now and then, recorded through an InputRecorder, and replayed: the replay
+ * must match the state hash of every recorded frame, rewound frames included.
+ * A journal whose level hash does not match the level must be refused before it is replayed.
+ * Run it with "ant test"; it exits with status 1 at the first journal that does not replay.
+ */
+public final class ReplayCheck {
+    private static final long SEED = 7;
+    private static final int MAX_FRAMES = 3000;
+    private static final int REWIND_CAPACITY = 600;
+    private static final int KEYFRAME_INTERVAL = 60;
+    // Rewind for 50 frames out of every 200
+    private static final int REWIND_PERIOD = 200;
+    private static final int REWIND_FRAMES = 50;
+
+    private ReplayCheck() {
+    }
+
+    /**
+     * Runs the check in every physics mode.
+     *
+     * @param args command-line arguments (not used)
+     * @throws IOException if a journal cannot be written or read
+     */
+    public static void main(String[] args) throws IOException {
+        Path path = Files.createTempFile("replay-check", ".journal");
+        try {
+            for (PhysicsMode mode : PhysicsMode.values()) {
+                int levelHash = ReplayDriver.levelHash(LevelLibrary.BUILT_IN_LEVEL, mode);
+                int recorded = record(path, mode, levelHash);
+                ReplayResult result = ReplayDriver.replay(new JournalReader(path));
+                if (result.isDiverged() || result.getFrames() != recorded) {
+                    Checks.fail(mode + ": " + recorded + " recorded frames replayed as " + result);
+                }
+                record(path, mode, ~levelHash);
+                try {
+                    ReplayDriver.replay(new JournalReader(path));
+                    Checks.fail(mode + ": a journal of another level was replayed");
+                } catch (IOException e) {
+                    // Refused, as it should be
+                }
+                System.out.printf("%s: %d frames replayed exactly, another level refused%n", mode, recorded);
+            }
+        } finally {
+            Files.deleteIfExists(path);
+        }
+        System.out.println("OK: every journal replays frame for frame");
+    }
+
+    /**
+     * Records a game of the built-in level into a journal.
+     *
+     * @return the number of frames recorded
+     */
+    private static int record(Path path, PhysicsMode mode, int levelHash) throws IOException {
+        SnapshotRing ring = new SnapshotRing(REWIND_CAPACITY, KEYFRAME_INTERVAL);
+        try (JournalWriter journal = new JournalWriter(path, SEED, LevelLibrary.BUILT_IN_LEVEL, mode, levelHash,
+                ring)) {
+            InputRecorder recorder = new InputRecorder(new RewindingPaddle(new RandomPaddle(SEED)), journal);
+            Game game = new Game(recorder);
+            game.setPhysicsMode(mode);
+            game.setRewindBuffer(ring);
+            game.addStepListener(recorder);
+            LevelLibrary.standard().setUp(game, LevelLibrary.BUILT_IN_LEVEL);
+            game.runHeadless(MAX_FRAMES);
+            return (int) journal.getFrames();
+        }
+    }
+
+    /**
+     * A paddle policy that also holds the rewind key for a stretch of every period.
+     */
+    private static final class RewindingPaddle implements InputSource {
+        private final InputSource paddle;
+        private int frame;
+
+        RewindingPaddle(InputSource paddle) {
+            this.paddle = paddle;
+        }
+
+        @Override
+        public boolean isLeftPressed() {
+            return this.paddle.isLeftPressed();
+        }
+
+        @Override
+        public boolean isRightPressed() {
+            return this.paddle.isRightPressed();
+        }
+
+        @Override
+        public boolean isRewindPressed() {
+            return this.frame++ % REWIND_PERIOD >= REWIND_PERIOD - REWIND_FRAMES;
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package snapshot;
+
+// 322613720 Stav Reuven
+
+import arkanoid.Game;
+import arkanoid.InputSource;
+import arkanoid.PhysicsMode;
+import arkanoid.StepListener;
+import check.Checks;
+import geometry.Rectangle;
+import level.LevelCompiler;
+import level.LevelImage;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * The SnapshotCheck class checks that game states survive the snapshot ring byte for byte.
+ * First the DeltaCodec alone: seeded random states, from unchanged to wholly changed, shorter and
+ * longer than their base, must decode to exactly the bytes encoded, within maxEncodedLength().
+ * Then the ring: in every physics mode a game of a level with a brick wall is captured step by
+ * step, the state after every step also kept whole; rewinding must restore each kept state in
+ * turn, back to the oldest one held, and playing on from there must step through the kept states
+ * again, or in event-driven mode, which predicts its collisions again from a restored state, keep
+ * the same counters.
+ * Run it with "ant test"; it exits with status 1 at the first state that does not come back.
+ */
+public final class SnapshotCheck {
+    private static final long SEED = 5;
+    private static final int CODEC_ROUNDS = 2000;
+    private static final int MAX_STATE_BYTES = 600;
+    private static final int CAPACITY = 240;
+    private static final int KEYFRAME_INTERVAL = 30;
+    private static final int FRAMES = 450;
+    // The state starts with the remaining blocks, the remaining balls and the score
+    private static final int COUNTER_BYTES = 3 * Integer.BYTES;
+    private static final LevelImage LEVEL = compile("paddle 350 560 100 20 8\n"
+            + "ball 420 450 250 6 5 black\n"
+            + "field 27.5 60 45 20\n"
+            + "brick R red\nbrick B blue\nbrick Y yellow 2\n"
+            + "row RRRRRRRRRRRRRRRR\nrow BYBYBYBYBYBYBYBY\nrow YBYBYBYBYBYBYBYB\nrow R.R.R.R.R.R.R.R.\n");
+
+    private SnapshotCheck() {
+    }
+
+    /**
+     * Runs the check on the codec and on the ring in every physics mode.
+     *
+     * @param args command-line arguments (not used)
+     */
+    public static void main(String[] args) {
+        checkCodec();
+        for (PhysicsMode mode : PhysicsMode.values()) {
+            checkRing(mode);
+        }
+        System.out.println("OK: every state comes back as it was captured");
+    }
+
+    private static void checkCodec() {
+        Random random = new Random(SEED);
+        DeltaCodec codec = new DeltaCodec();
+        byte[] encoded = new byte[DeltaCodec.maxEncodedLength(MAX_STATE_BYTES)];
+        byte[] decoded = new byte[MAX_STATE_BYTES];
+        long encodedBytes = 0;
+        long stateBytes = 0;
+        for (int round = 0; round < CODEC_ROUNDS; round++) {
+            int baseLength = random.nextInt(MAX_STATE_BYTES + 1);
+            byte[] base = new byte[MAX_STATE_BYTES];
+            random.nextBytes(base);
+            int length = random.nextInt(4) == 0 ? random.nextInt(MAX_STATE_BYTES + 1) : baseLength;
+            byte[] state = Arrays.copyOf(base, MAX_STATE_BYTES);
+            // From no change at all to every byte changed, in runs of random length
+            double changeRate = random.nextInt(5) == 0 ? 0 : random.nextDouble();
+            for (int i = 0; i < length; i++) {
+                if (random.nextDouble() < changeRate) {
+                    int run = Math.min(length - i, 1 + random.nextInt(12));
+                    for (int end = i + run; i < end; i++) {
+                        state[i] = (byte) random.nextInt(256);
+                    }
+                }
+            }
+            int written = codec.encode(base, baseLength, state, length, encoded);
+            if (written > DeltaCodec.maxEncodedLength(length)) {
+                Checks.fail("codec, round " + round + ": " + written + " bytes encoded, more than the "
+                        + DeltaCodec.maxEncodedLength(length) + " allowed");
+            }
+            Arrays.fill(decoded, (byte) 0x5A);
+            int decodedLength = codec.decode(base, baseLength, encoded, decoded);
+            if (decodedLength != length || !Arrays.equals(decoded, 0, length, state, 0, length)) {
+                Checks.fail("codec, round " + round + ": a state of " + length + " bytes against a base of "
+                        + baseLength + " decoded differently");
+            }
+            encodedBytes += written;
+            stateBytes += length;
+        }
+        System.out.printf("DeltaCodec: %d states decoded exactly, encoded in %.0f%% of their size%n", CODEC_ROUNDS,
+                100.0 * encodedBytes / stateBytes);
+    }
+
+    private static void checkRing(PhysicsMode mode) {
+        FollowingPaddle paddle = new FollowingPaddle();
+        Game game = new Game(paddle);
+        paddle.game = game;
+        SnapshotRing ring = new SnapshotRing(CAPACITY, KEYFRAME_INTERVAL);
+        game.setPhysicsMode(mode);
+        game.setRewindBuffer(ring);
+        LEVEL.applyTo(game);
+        StateRecorder recorder = new StateRecorder();
+        game.addStepListener(recorder);
+        while (recorder.states.size() < FRAMES && !game.isOver()) {
+            game.step();
+        }
+        List<byte[]> kept = new ArrayList<>(recorder.states);
+        int newest = kept.size() - 1;
+        int held = ring.size();
+        if (held < CAPACITY - KEYFRAME_INTERVAL + 1 || held > CAPACITY) {
+            Checks.fail(mode + ": the ring holds " + held + " states");
+        }
+        if (Arrays.equals(kept.get(newest - held + 1), 0, COUNTER_BYTES, kept.get(newest), 0, COUNTER_BYTES)) {
+            Checks.fail(mode + ": no brick was broken in the states held, so rewinding them checks little");
+        }
+
+        StateRecorder restored = new StateRecorder();
+        for (int back = 1; back < held; back++) {
+            ring.rewind(game);
+            restored.stepCompleted(game);
+            compare(mode + ", rewound " + back + " steps", kept.get(newest - back), restored.latest());
+        }
+        ring.rewind(game);
+        restored.stepCompleted(game);
+        compare(mode + ", rewound past the oldest state", kept.get(newest - held + 1), restored.latest());
+
+        // Played on from the oldest state held, the game must take the same course again; in
+        // event-driven mode collisions are predicted again from the restored state, with rounding
+        // of their own, so only the counters are bound to come out the same
+        int compared = mode == PhysicsMode.EVENT_DRIVEN ? COUNTER_BYTES : Integer.MAX_VALUE;
+        recorder.states.clear();
+        for (int frame = newest - held + 2; frame <= newest; frame++) {
+            game.step();
+            byte[] expected = kept.get(frame);
+            byte[] actual = recorder.latest();
+            compare(mode + ", played on to step " + frame, Arrays.copyOf(expected, Math.min(compared, expected.length)),
+                    Arrays.copyOf(actual, Math.min(compared, actual.length)));
+        }
+        System.out.printf("%s: %d states rewound exactly and played again, stored in %d of %d bytes%n", mode,
+                held, ring.getLatestStoredBytes(), ring.getLatestStateBytes());
+    }
+
+    private static LevelImage compile(String text) {
+        try {
+            return LevelCompiler.compile(text, 0);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void compare(String where, byte[] expected, byte[] actual) {
+        if (!Arrays.equals(expected, actual)) {
+            Checks.fail(where + ": the state is not the one captured");
+        }
+    }
+
+    /**
+     * Keeps the whole state of the game after every step. All recorders share the color numbering
+     * of the first, so equal states are equal bytes.
+     */
+    private static final class StateRecorder implements StepListener {
+        private static final ColorTable COLORS = new ColorTable();
+
+        private final StateBuffer buffer = new StateBuffer(1024, COLORS);
+        private final List<byte[]> states = new ArrayList<>();
+
+        @Override
+        public void stepCompleted(Game game) {
+            this.buffer.clear();
+            game.writeState(this.buffer);
+            this.states.add(Arrays.copyOf(this.buffer.array(), this.buffer.length()));
+        }
+
+        byte[] latest() {
+            return this.states.get(this.states.size() - 1);
+        }
+    }
+
+    /**
+     * A paddle policy that follows the lowest ball, reading nothing but the game itself, so a game
+     * restored to a state plays on from it as it did the first time.
+     */
+    private static final class FollowingPaddle implements InputSource {
+        private static final double DEAD_ZONE = 4;
+        // Pushed while it touches a wall, the paddle wraps around to the other side
+        private static final double LEFT_LIMIT = 20;
+        private static final double RIGHT_LIMIT = 780;
+
+        private Game game;
+
+        @Override
+        public boolean isLeftPressed() {
+            Rectangle paddle = this.game.getPaddleBounds();
+            return this.game.getLowestBallX() < (paddle.getMinX() + paddle.getMaxX()) / 2 - DEAD_ZONE
+                    && paddle.getMinX() > LEFT_LIMIT;
+        }
+
+        @Override
+        public boolean isRightPressed() {
+            Rectangle paddle = this.game.getPaddleBounds();
+            return this.game.getLowestBallX() > (paddle.getMinX() + paddle.getMaxX()) / 2 + DEAD_ZONE
+                    && paddle.getMaxX() < RIGHT_LIMIT;
+        }
+    }
+}